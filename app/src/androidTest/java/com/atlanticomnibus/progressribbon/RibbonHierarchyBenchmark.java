@@ -0,0 +1,106 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p>Inflating {@link com.atlanticomnibus.progressribbon.R.layout#progress_ribbon} against building the same views in code,
+ * as {@link ProgressRibbon#buildCompoundHierarchy(android.content.Context, android.view.ViewGroup)} does. Both add to a fresh
+ * {@link FrameLayout} every time, the way a new ribbon would.</p>
+ * <br />
+ * <p>The context is not an AppCompat activity, so both create a plain {@link android.widget.TextView}: the inflater has no AppCompat
+ * factory, and the code path only builds an AppCompat one inside an AppCompat activity. Checked in {@link RibbonHierarchyBenchmark#setUp()},
+ * so the two never drift apart into measuring different views.</p>
+ * <br />
+ * <p>Needs a device. Run with:</p>
+ * <pre>
+ *     ./gradlew :app:connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.atlanticomnibus.progressribbon.RibbonHierarchyBenchmark
+ * </pre>
+ * <p>Results end up in the instrumentation output and in the <code>*-benchmarkData.json</code> pulled from the device.
+ * Numbers from debuggable builds or emulators are only good for comparing these two with each other.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class RibbonHierarchyBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule=new BenchmarkRule();
+
+    private Context context;
+    private LayoutInflater inflater;
+
+    @Before
+    public void setUp(){
+        context=new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(), R.style.Theme_AppCompat_Light);
+        inflater=LayoutInflater.from(context);
+
+        FrameLayout inflated=new FrameLayout(context);
+        inflater.inflate(R.layout.progress_ribbon, inflated, true);
+        FrameLayout built=new FrameLayout(context);
+        ProgressRibbon.buildCompoundHierarchy(context, built);
+        assertEquals(inflated.findViewById(R.id.progress_ribbon_text).getClass(), built.findViewById(R.id.progress_ribbon_text).getClass());
+        assertEquals(inflated.findViewById(R.id.ribbon_container).getClass(), built.findViewById(R.id.ribbon_container).getClass());
+    }
+
+    /**
+     * <p>The old way, XML parsing and reflection included</p>
+     */
+    @Test
+    @UiThreadTest
+    public void inflateLayout(){
+        final BenchmarkState state=benchmarkRule.getState();
+        while(state.keepRunning()){
+            FrameLayout parent=new FrameLayout(context);
+            inflater.inflate(R.layout.progress_ribbon, parent, true);
+        }
+    }
+
+    /**
+     * <p>The same views, built directly</p>
+     */
+    @Test
+    @UiThreadTest
+    public void buildInCode(){
+        final BenchmarkState state=benchmarkRule.getState();
+        while(state.keepRunning()){
+            FrameLayout parent=new FrameLayout(context);
+            ProgressRibbon.buildCompoundHierarchy(context, parent);
+        }
+    }
+}
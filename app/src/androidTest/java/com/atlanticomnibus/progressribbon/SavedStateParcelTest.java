@@ -0,0 +1,94 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.os.Parcel;
+import android.view.AbsSavedState;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import com.atlanticomnibus.progressribbon.core.RibbonStateCodec;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * <p>{@link ProgressRibbon.SavedState} through a real {@link Parcel}. Whatever version wrote it, whatever was written
+ * after it has to be read back in one piece</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class SavedStateParcelTest {
+
+    private static final int SENTINEL=0x5EA1ED;
+
+    @Test
+    public void sameVersionIsRestored(){
+        ProgressRibbon.SavedState restored=writeAndRead(newState(RibbonStateCodec.VERSION));
+
+        assertEquals(RibbonStateCodec.VERSION, restored.version);
+        assertEquals(3000000000L, restored.values[RibbonStateCodec.FIELD_PROGRESS]);
+        assertEquals(42, restored.values[RibbonStateCodec.FIELD_BORDER_SIZE]);
+        assertEquals("Downloading", restored.progressText);
+    }
+
+    @Test
+    public void otherVersionIsSkipped(){
+        ProgressRibbon.SavedState restored=writeAndRead(newState((byte) (RibbonStateCodec.VERSION+1)));
+
+        assertEquals(RibbonStateCodec.VERSION+1, restored.version);
+        assertEquals(0, restored.values[RibbonStateCodec.FIELD_PROGRESS]);
+        assertNull(restored.progressText);
+    }
+
+    private static ProgressRibbon.SavedState newState(byte version){
+        ProgressRibbon.SavedState state=new ProgressRibbon.SavedState(AbsSavedState.EMPTY_STATE);
+        state.version=version;
+        state.values[RibbonStateCodec.FIELD_PROGRESS]=3000000000L;
+        state.values[RibbonStateCodec.FIELD_BORDER_SIZE]=42;
+        state.presenceMask=(1<<RibbonStateCodec.FIELD_PROGRESS) | (1<<RibbonStateCodec.FIELD_BORDER_SIZE);
+        state.flags=RibbonStateCodec.setFlag(0, RibbonStateCodec.FLAG_HAS_PROGRESS_TEXT, true);
+        state.progressText="Downloading";
+        return state;
+    }
+
+    /**
+     * <p>Writes the state with something after it, the way a parent would, and reads both back</p>
+     */
+    private static ProgressRibbon.SavedState writeAndRead(ProgressRibbon.SavedState state){
+        Parcel parcel=Parcel.obtain();
+        try {
+            state.writeToParcel(parcel, 0);
+            parcel.writeInt(SENTINEL);
+            parcel.setDataPosition(0);
+
+            ProgressRibbon.SavedState restored=ProgressRibbon.SavedState.CREATOR.createFromParcel(parcel);
+            assertEquals(SENTINEL, parcel.readInt());
+            return restored;
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.ViewGroup;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>Builds {@link ProgressRibbon}s on a background thread, in the spirit of <code>AsyncLayoutInflater</code>, and hands them
+ * over on the main thread once they are ready to be shown.</p>
+ * <br />
+ * <p>Creating a ribbon from code means inflating its layout, creating a {@link android.widget.ProgressBar} and loading drawables,
+ * all of it on the main thread, usually on the very frame the user has just tapped something. With this, all of that happens on a
+ * shared background thread instead, and the main thread only gets the finished ribbon. Nothing is attached to anything until the
+ * ribbon is shown, so it's safe to build it off the main thread. Should building it fail there for any reason (e.g. some
+ * unusual theme needing the main thread), it's retried on the main thread, so the callback always gets a ribbon.</p>
+ * <br />
+ * <p>There's one catch: a {@link android.widget.ProgressBar} remembers the thread it was created on, and posts every progress
+ * update made from any other thread. One built here would post every update from the main thread, a frame late, and without
+ * the coalescing {@link ProgressRibbon#setProgress(long)} does otherwise. So ribbons are built in {@link ProgressRibbon#RENDER_CANVAS}
+ * mode by default, which has no {@link android.widget.ProgressBar} at all, and looks the same. A style asking for
+ * {@link ProgressRibbon#RENDER_COMPOUND} gets its ribbon built on the main thread, with only its background drawable loaded
+ * in the background.</p>
+ * <br />
+ * <p>Callbacks are dropped if the {@link Activity} is destroyed by the time the ribbon is ready.</p>
+ *
+ * <pre>
+ *     //E.g. in onCreate()
+ *     ribbonFactory=new AsyncRibbonFactory(this);
+ *
+ *     //When needed
+ *     ribbonFactory.create(parentView, new AsyncRibbonFactory.OnRibbonReadyListener() {
+ *         {@literal @}Override
+ *         public void onRibbonReady(ProgressRibbon ribbon) {
+ *             ribbon.show();
+ *         }
+ *     });
+ * </pre>
+ */
+public final class AsyncRibbonFactory {
+
+    private static final String TAG="AsyncRibbonFactory";
+
+    /**
+     * <p>Called on the main thread, once the ribbon is built</p>
+     */
+    public interface OnRibbonReadyListener {
+        void onRibbonReady(@NonNull ProgressRibbon ribbon);
+    }
+
+    /**
+     * <p>One background thread for every factory, started when first needed. It's idle most of the time, so it's never stopped</p>
+     */
+    private static HandlerThread buildThread;
+    private static Handler buildHandler;
+
+    private final Activity activity;
+    private final Handler mainHandler=new Handler(Looper.getMainLooper());
+
+    /**
+     * @param activity The {@link Activity} the ribbons will be shown in
+     */
+    public AsyncRibbonFactory(@NonNull Activity activity){
+        this.activity=activity;
+    }
+
+    /**
+     * <p>Builds a ribbon with default settings, as {@link ProgressRibbon#newInstance(Activity, ViewGroup)} would, except that it's
+     * drawn in {@link ProgressRibbon#RENDER_CANVAS} mode</p>
+     *
+     * @param parentView Optional parent {@link ViewGroup}. Orphan mode if null
+     * @param listener Gets the ribbon on the main thread
+     */
+    @MainThread
+    public void create(@Nullable ViewGroup parentView, @NonNull OnRibbonReadyListener listener){
+        create(parentView, null, listener);
+    }
+
+    /**
+     * <p>Builds a ribbon with the given {@link RibbonStyle}, as {@link ProgressRibbon#newInstance(Activity, ViewGroup, RibbonStyle)} would.
+     * Only {@link ProgressRibbon#RENDER_CANVAS} styles are built in the background, see above</p>
+     *
+     * @param parentView Optional parent {@link ViewGroup}. Orphan mode if null. It's only remembered while building, not touched
+     * @param style The style to build it with, or <code>null</code> for default settings, in {@link ProgressRibbon#RENDER_CANVAS} mode
+     * @param listener Gets the ribbon on the main thread
+     */
+    @MainThread
+    public void create(@Nullable final ViewGroup parentView, @Nullable final RibbonStyle style, @NonNull final OnRibbonReadyListener listener){
+        getBuildHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                ProgressRibbon ribbon=null;
+                RibbonStyle buildStyle=style;
+
+                try {
+                    if(buildStyle==null){
+                        buildStyle=new RibbonStyle.Builder(activity).setRenderMode(ProgressRibbon.RENDER_CANVAS).build();
+                    }
+
+                    if(buildStyle.renderMode==ProgressRibbon.RENDER_CANVAS){
+                        ribbon=build(parentView, buildStyle);
+                    } else {
+                        //The ProgressBar has to be created on the main thread, so only its background is loaded here
+                        preloadBackground(buildStyle);
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to build the ribbon in the background, retrying on the main thread", e);
+                }
+
+                deliver(ribbon, parentView, buildStyle, listener);
+            }
+        });
+    }
+
+    private void deliver(@Nullable final ProgressRibbon ribbon, @Nullable final ViewGroup parentView, @Nullable final RibbonStyle style,
+                         @NonNull final OnRibbonReadyListener listener){
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if(activity.isDestroyed()){
+                    return;
+                }
+
+                listener.onRibbonReady((ribbon!=null) ? ribbon : build(parentView, style));
+            }
+        });
+    }
+
+    private ProgressRibbon build(@Nullable ViewGroup parentView, @Nullable RibbonStyle style){
+        if(style!=null){
+            return ProgressRibbon.newInstance(activity, parentView, style);
+        }
+        return ProgressRibbon.newInstance(activity, parentView);
+    }
+
+    /**
+     * <p>Puts the background of a {@link ProgressRibbon#RENDER_COMPOUND} ribbon with the given style into the {@link RibbonDrawableCache},
+     * where the ribbon will find it when built</p>
+     *
+     * @param style The style
+     */
+    private void preloadBackground(@NonNull RibbonStyle style){
+        int borderSize=style.isBorderless ? 0 : style.borderSize;
+        //Without a border, the border is painted in the background colour, same as the ribbon does
+        int borderColor=(borderSize==0) ? style.backgroundColor : style.borderColor;
+
+        RibbonDrawableCache.obtain(activity, RibbonDrawableCache.keyFor(activity, style.isInDialogueMode,
+                style.backgroundColor, borderColor, borderSize, style.borderRadius));
+    }
+
+    private static synchronized Handler getBuildHandler(){
+        if(buildHandler==null){
+            //Same priority as the main thread would do it with, this is work somebody is waiting for
+            buildThread=new HandlerThread(TAG, Process.THREAD_PRIORITY_DEFAULT);
+            buildThread.start();
+            buildHandler=new Handler(buildThread.getLooper());
+        }
+        return buildHandler;
+    }
+}
@@ -24,32 +24,32 @@ package com.atlanticomnibus.progressribbon;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
 import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.Service;
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.content.res.Configuration;
-import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.graphics.PixelFormat;
 import android.graphics.drawable.Drawable;
-import android.graphics.drawable.GradientDrawable;
-import android.graphics.drawable.InsetDrawable;
 import android.graphics.drawable.LayerDrawable;
 import android.os.Build;
-import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.util.SparseArray;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.Gravity;
-import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
@@ -64,18 +64,37 @@ import androidx.annotation.ColorInt;
 import androidx.annotation.FloatRange;
 import androidx.annotation.IntDef;
 import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.annotation.RequiresApi;
 import androidx.annotation.StringRes;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.AppCompatTextView;
 import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
-import androidx.core.content.ContextCompat;
 import androidx.core.content.res.ResourcesCompat;
 import androidx.core.view.ViewCompat;
 
+import com.atlanticomnibus.progressribbon.core.ListenerRegistry;
+import com.atlanticomnibus.progressribbon.core.ProgressAccumulator;
+import com.atlanticomnibus.progressribbon.core.ProgressAggregator;
+import com.atlanticomnibus.progressribbon.core.ProgressMath;
+import com.atlanticomnibus.progressribbon.core.ProgressNode;
+import com.atlanticomnibus.progressribbon.core.ProgressRateEstimator;
+import com.atlanticomnibus.progressribbon.core.ProgressSource;
+import com.atlanticomnibus.progressribbon.core.ProgressTextTemplate;
+import com.atlanticomnibus.progressribbon.core.ProgressThrottle;
+import com.atlanticomnibus.progressribbon.core.RibbonStateCodec;
+import com.atlanticomnibus.progressribbon.core.ShowHideScheduler;
+
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 //import androidx.constraintlayout.widget.ConstraintSet; //In case you'd uncomment the right code in the right place (will not tell you where, hehe):
 
@@ -90,6 +109,12 @@ public class ProgressRibbon extends FrameLayout {
      */
     private static final int MAX_LEVEL = 10000;
 
+    /**
+     * <p>The internal {@link ProgressBar} always runs from 0 to this value. The actual (long) progress range
+     * of the {@link ProgressRibbon} gets scaled onto it, so huge values (e.g. byte counts) never overflow it.</p>
+     */
+    private static final int PROGRESS_BAR_RESOLUTION = ProgressMath.BASIS_POINTS;
+
     /**
      * <p>Plain ole' integers holding values described by their names</p>
      */
@@ -99,7 +124,9 @@ public class ProgressRibbon extends FrameLayout {
             ANIMATE_FADE =1,
             ANIMATE_SCALE=2,
             ANIMATE_SCALE_FADE = 3,
-            PARENT_HEIGHT_PERCENT=999;
+            PARENT_HEIGHT_PERCENT=999,
+            RENDER_COMPOUND=0,
+            RENDER_CANVAS=1;
 
     /**
      * <p>Boolean replacements. 1=true, 0=false, obviously</p>
@@ -120,7 +147,8 @@ public class ProgressRibbon extends FrameLayout {
             MARGIN_TOP=0,
             MARGIN_BOTTOM=1,
             PADDING_TOP=0,
-            PADDING_BOTTOM=1;
+            PADDING_BOTTOM=1,
+            NO_POSTED_PROGRESS=-1;
 
     /**********************************Enforcing enforcements**************************************/
 
@@ -133,6 +161,11 @@ public class ProgressRibbon extends FrameLayout {
     @Retention(RetentionPolicy.SOURCE)
     private @interface ProgressStyle{}
 
+    /** @hide */
+    @IntDef({RENDER_COMPOUND, RENDER_CANVAS})
+    @Retention(RetentionPolicy.SOURCE)
+    private @interface RenderMode{}
+
     /** @hide */
     @IntDef({FREEZE_PROGRESS, UNFREEZE_PROGRESS})
     @Retention(RetentionPolicy.SOURCE)
@@ -181,11 +214,6 @@ public class ProgressRibbon extends FrameLayout {
     @Retention(RetentionPolicy.SOURCE)
     private @interface RibbonMarginUnit{}
 
-    /** @hide */
-    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
-    @IntDef({android.R.attr.colorPrimary, android.R.attr.colorAccent, android.R.attr.textColorPrimary, android.R.attr.windowBackground})
-    @Retention(RetentionPolicy.SOURCE)
-    private @interface ValidColorAttrIds{}
 
 
     /*************************************Viewable views*******************************************/
@@ -196,6 +224,12 @@ public class ProgressRibbon extends FrameLayout {
      */
     private LinearLayout ribbonContainer;
 
+    /**
+     * <p>The looks of the background currently on {@link ProgressRibbon#ribbonContainer}, as it came from the
+     * {@link RibbonDrawableCache}. <code>null</code> if there is none yet, or it was replaced from the outside</p>
+     */
+    private RibbonDrawableCache.Key appliedBackgroundKey;
+
     /**
      * <p>{@link TextView} to display the progress text</p>
      */
@@ -206,6 +240,41 @@ public class ProgressRibbon extends FrameLayout {
      */
     private ProgressBar progressBar;
 
+    /**
+     * <p>The drawables {@link ProgressRibbon#progressBar} switches between, so that it never has to be recreated.
+     * The round ones are only loaded when first needed</p>
+     */
+    private Drawable horizontalIndeterminateDrawable,
+            horizontalProgressDrawable,
+            roundIndeterminateDrawable,
+            roundProgressDrawable;
+
+    /**
+     * <p>The style {@link ProgressRibbon#progressBar}'s drawables and size currently match</p>
+     */
+    private int appliedProgressBarStyle;
+
+    /**
+     * <p>The height limits {@link ProgressRibbon#progressBar} got from the horizontal widget style, to put back when it goes
+     * from round to flat again. The max ones are only read and used from SDK{@value Build.VERSION_CODES#Q}</p>
+     */
+    private int horizontalMinimumHeight,
+            horizontalMinHeight,
+            horizontalMaxHeight;
+
+    /**
+     * <p>Single {@link View} drawing the whole visible part of the ribbon, when in {@link ProgressRibbon#RENDER_CANVAS} mode.
+     * In that case, {@link ProgressRibbon#ribbonContainer}, {@link ProgressRibbon#progressBar} and {@link ProgressRibbon#progressTextView}
+     * are all null.</p>
+     */
+    private RibbonCanvasView ribbonCanvas;
+
+    /**
+     * <p>The visible part of the ribbon, whichever way it is rendered. Either the {@link ProgressRibbon#ribbonContainer}, or the
+     * {@link ProgressRibbon#ribbonCanvas}. Paddings, margins, elevation and such go on this</p>
+     */
+    private View ribbonSurface;
+
     /**
      * <p>The parent parent {@link ViewGroup} the XML inflated, or dynamically created (non-orphan)
      * ProgressRibbon is attached to</p>
@@ -227,6 +296,8 @@ public class ProgressRibbon extends FrameLayout {
     private boolean isDynamicallyCreated;
     //Whether the progress is "frozen (i.e. no visual updates allowed). not sure f it even makes sense ot have this
     private boolean isProgressFrozen;
+    //The progress value currently shown on the {@link ProgressBar}. Differs from {@link RibbonData#progress} when frozen
+    private long displayedProgress;
     //Just to be able to check whether it had changed. This is used when top/bottom margin are set as a %
     private int parentHeight;
 
@@ -240,11 +311,114 @@ public class ProgressRibbon extends FrameLayout {
     private boolean isShowing;
     //Failsafe to prevent changing animation settings when it's being shown
     private boolean animationInProgress;
+
+    /**
+     * <p>Show/hide animators, built once and reused, keyed by animation type and direction. See {@link ProgressRibbon#getShowHideAnimator(int, int)}</p>
+     */
+    private final SparseArray<ObjectAnimator> showHideAnimators=new SparseArray<>();
+    //The one currently running, if any, and which way it is going
+    private ObjectAnimator showHideAnimator;
+    private int showHideAnimationDirection;
+    //Layer type of the ribbon surface before an animation switched it to hardware
+    private int layerTypeBeforeAnimation;
     //To know when layout is right to left, so that cmponents can be added in the right order
     private boolean layoutIsRTL;
 
     //if, for any reason, you1d not want to XML-declared {@link ProgressRibbon} to appear until you explicitly show it...
     private boolean doNotShowOnAttachFromXML;
+    //XML-declared ribbons can put off building their views until they are first needed, see ensureRibbonBuilt()
+    private boolean lazyHierarchy;
+    //Whether the views are still waiting to be built. Until then, everything only goes into RibbonData
+    private boolean hierarchyDeferred;
+    //The pool this ribbon was obtained from, if any. It goes back there on removeDynamicRibbon()
+    private ProgressRibbonPool ownerPool;
+    //Whether the (persistent) orphan window is currently shrunk and untouchable, and what its height was before
+    private boolean windowCollapsed;
+    private int collapsedWindowHeight;
+
+
+    /*****************************Thread-safe progress slot****************************************/
+
+    /**
+     * <p>The latest values posted from any thread through {@link ProgressRibbon#postProgress(int)},
+     * {@link ProgressRibbon#postSecondaryProgress(int)} and {@link ProgressRibbon#postProgressText(String)}.
+     * Only the newest value is kept, and it gets applied on the next frame.</p>
+     */
+    private final AtomicLong postedProgress=new AtomicLong(NO_POSTED_PROGRESS);
+    private final AtomicLong postedSecondaryProgress=new AtomicLong(NO_POSTED_PROGRESS);
+    private final AtomicReference<String> postedProgressText=new AtomicReference<>();
+    //Set while a frame callback is queued, so there is never more than one waiting
+    private final AtomicBoolean progressFrameRequested=new AtomicBoolean();
+    //The posted values last applied to the widget (only touched on the UI thread)
+    private long appliedPostedProgress=NO_POSTED_PROGRESS;
+    private long appliedPostedSecondaryProgress=NO_POSTED_PROGRESS;
+
+    /**
+     * <p>The UI thread's {@link Choreographer}. Grabbed at construction time if that happens on the UI thread, because
+     * worker threads have none of their own (or a different one). A ribbon built elsewhere (see {@link AsyncRibbonFactory})
+     * gets it on the UI thread, the first time it needs it, see {@link ProgressRibbon#requestProgressFrame()}</p>
+     */
+    private volatile Choreographer choreographer=(Looper.myLooper()==Looper.getMainLooper()) ? Choreographer.getInstance() : null;
+
+    /**
+     * <p>Grabs the UI thread's {@link Choreographer} and queues the frame callback on it, for ribbons built off the UI thread.
+     * Only ever posted to the UI thread</p>
+     */
+    private final Runnable progressFrameOnUiThread=new Runnable() {
+        @Override
+        public void run() {
+            if(choreographer==null){
+                choreographer=Choreographer.getInstance();
+            }
+            choreographer.postFrameCallback(progressFrameCallback);
+        }
+    };
+
+    /**
+     * <p>Applies whatever got posted since the last frame. Created once, so posting allocates nothing</p>
+     */
+    private final Choreographer.FrameCallback progressFrameCallback=new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            progressFrameRequested.set(false);
+            applyPostedProgress();
+            sampleProgressSources();
+        }
+    };
+
+    /**
+     * <p>Optional multi-writer progress counter, summed once per frame while the {@link ProgressRibbon} is showing</p>
+     */
+    private ProgressAccumulator progressAccumulator;
+    //The progress value at the time the accumulator was set. The accumulated sum is added to this
+    private long progressAccumulatorBaseline;
+
+    /**
+     * <p>Optional source of fractional progress (like a {@link ProgressAggregator}), read once per frame while the
+     * {@link ProgressRibbon} is showing, and mapped onto min..max</p>
+     */
+    private ProgressSource progressSource;
+
+
+    /******************************Rate and remaining time*****************************************/
+
+    /**
+     * <p>Running estimate of how fast progress is made. Fed from {@link ProgressRibbon#applyProgress(long)}, on the UI thread</p>
+     */
+    private final ProgressRateEstimator progressRateEstimator=new ProgressRateEstimator();
+    //Whether the remaining time is shown after the progress text, and the whole seconds currently shown there (-1 for none)
+    private boolean showRemainingTime;
+    private long shownRemainingSeconds=-1;
+    //Reused for putting the text and the remaining time together
+    private final StringBuilder progressTextBuilder=new StringBuilder();
+
+    /**
+     * <p>Compiled progress text template, filled in whenever the displayed progress changes. See
+     * {@link ProgressRibbon#setProgressTextTemplate(String)}</p>
+     */
+    private ProgressTextTemplate progressTextTemplate;
+    //The locale the template's digits were looked up for
+    private Locale progressTextTemplateLocale;
 
 
     /*******************************Listeners that listen******************************************/
@@ -260,6 +434,124 @@ public class ProgressRibbon extends FrameLayout {
     private OnRibbonShowListener onRibbonShowListener;
     private OnRibbonHideListener onRibbonHideListener;
     private OnRibbonProgressUpdateListener onRibbonProgressUpdateListener;
+    private OnRibbonProgressRateListener onRibbonProgressRateListener;
+
+    /**
+     * <p>Any number of further listeners of each type, added through the <code>add...Listener()</code> methods, each
+     * optionally called through its own {@link Executor}. Called after the one set through the setter</p>
+     */
+    private final ListenerRegistry<OnIndeterminateStatusChangeListener> indeterminateStatusChangeListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnStartListener> startListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnStopListener> stopListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnRibbonAttachDetachListener> attachDetachListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnRibbonShowListener> showListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnRibbonHideListener> hideListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnRibbonProgressUpdateListener> progressUpdateListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnRibbonProgressRateListener> progressRateListeners=new ListenerRegistry<>();
+    private final ListenerRegistry<OnRibbonLongProgressListener> longProgressListeners=new ListenerRegistry<>();
+
+    /**
+     * <p>The events the registries above deliver. Created once, so dispatching allocates nothing (except for listeners
+     * called through an {@link Executor})</p>
+     */
+    private static final ListenerRegistry.Event<OnIndeterminateStatusChangeListener> INDETERMINATE_STATUS_EVENT=new ListenerRegistry.Event<OnIndeterminateStatusChangeListener>() {
+        @Override
+        public void deliver(OnIndeterminateStatusChangeListener listener, long isIndeterminate, long unused) {
+            listener.onRibbonIndeterminateStatusChanged(isIndeterminate!=0);
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnStartListener> PROGRESS_STARTED_EVENT=new ListenerRegistry.Event<OnStartListener>() {
+        @Override
+        public void deliver(OnStartListener listener, long startValue, long unused) {
+            listener.onRibbonProgressStarted(ProgressMath.clampToInt(startValue));
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnStopListener> PROGRESS_STOPPED_EVENT=new ListenerRegistry.Event<OnStopListener>() {
+        @Override
+        public void deliver(OnStopListener listener, long stopValue, long unused) {
+            listener.onRibbonProgressStopped(ProgressMath.clampToInt(stopValue));
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonAttachDetachListener> ATTACHED_EVENT=new ListenerRegistry.Event<OnRibbonAttachDetachListener>() {
+        @Override
+        public void deliver(OnRibbonAttachDetachListener listener, long hasViewParent, long unused) {
+            listener.onRibbonAttached(hasViewParent!=0);
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonAttachDetachListener> REMOVED_EVENT=new ListenerRegistry.Event<OnRibbonAttachDetachListener>() {
+        @Override
+        public void deliver(OnRibbonAttachDetachListener listener, long unused, long unusedToo) {
+            listener.onRibbonRemoved();
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonShowListener> SIGNALLED_TO_SHOW_EVENT=new ListenerRegistry.Event<OnRibbonShowListener>() {
+        @Override
+        public void deliver(OnRibbonShowListener listener, long showDelay, long unused) {
+            listener.onRibbonSignalledToShow((int) showDelay);
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonShowListener> SHOW_EVENT=new ListenerRegistry.Event<OnRibbonShowListener>() {
+        @Override
+        public void deliver(OnRibbonShowListener listener, long unused, long unusedToo) {
+            listener.onRibbonShow();
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonHideListener> SIGNALLED_TO_HIDE_EVENT=new ListenerRegistry.Event<OnRibbonHideListener>() {
+        @Override
+        public void deliver(OnRibbonHideListener listener, long hideDelay, long unused) {
+            listener.onRibbonSignalledToHide((int) hideDelay);
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonHideListener> HIDE_EVENT=new ListenerRegistry.Event<OnRibbonHideListener>() {
+        @Override
+        public void deliver(OnRibbonHideListener listener, long unused, long unusedToo) {
+            listener.onRibbonHide();
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonProgressUpdateListener> PROGRESS_CHANGE_EVENT=new ListenerRegistry.Event<OnRibbonProgressUpdateListener>() {
+        @Override
+        public void deliver(OnRibbonProgressUpdateListener listener, long currentValue, long unused) {
+            listener.onRibbonProgressChange(ProgressMath.clampToInt(currentValue));
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonLongProgressListener> LONG_PROGRESS_STARTED_EVENT=new ListenerRegistry.Event<OnRibbonLongProgressListener>() {
+        @Override
+        public void deliver(OnRibbonLongProgressListener listener, long startValue, long unused) {
+            listener.onRibbonProgressStarted(startValue);
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonLongProgressListener> LONG_PROGRESS_STOPPED_EVENT=new ListenerRegistry.Event<OnRibbonLongProgressListener>() {
+        @Override
+        public void deliver(OnRibbonLongProgressListener listener, long stopValue, long unused) {
+            listener.onRibbonProgressStopped(stopValue);
+        }
+    };
+
+    private static final ListenerRegistry.Event<OnRibbonLongProgressListener> LONG_PROGRESS_CHANGE_EVENT=new ListenerRegistry.Event<OnRibbonLongProgressListener>() {
+        @Override
+        public void deliver(OnRibbonLongProgressListener listener, long currentValue, long unused) {
+            listener.onRibbonProgressChange(currentValue);
+        }
+    };
+
+    //The rate travels as the raw bits of the double
+    private static final ListenerRegistry.Event<OnRibbonProgressRateListener> PROGRESS_RATE_EVENT=new ListenerRegistry.Event<OnRibbonProgressRateListener>() {
+        @Override
+        public void deliver(OnRibbonProgressRateListener listener, long rateBits, long remainingMillis) {
+            listener.onRibbonProgressRate(Double.longBitsToDouble(rateBits), remainingMillis);
+        }
+    };
 
 
     /**
@@ -283,6 +575,18 @@ public class ProgressRibbon extends FrameLayout {
         return pr;
     }
 
+    /**
+     * <p>Same as {@link ProgressRibbon#newInstance(Activity, ViewGroup)}, but with a {@link RibbonStyle} applied right away</p>
+     *
+     * @param activity The activity for context
+     * @param parentView Optional parent {@link ViewGroup}
+     * @param style The style to apply
+     * @return A new {@link ProgressRibbon} instance
+     */
+    public static ProgressRibbon newInstance(Activity activity, @Nullable ViewGroup parentView, @NonNull RibbonStyle style){
+        return new ProgressRibbon(activity, parentView, style);
+    }
+
     /*******************Dynamic constructors. Used when adding Ribbon from code********************/
 
 
@@ -358,6 +662,34 @@ public class ProgressRibbon extends FrameLayout {
     }
 
 
+    /**
+     * <p>Creates a {@link ProgressRibbon} that looks and behaves as the given {@link RibbonStyle} says, attached to a parent
+     * {@link ViewGroup}, or to the Window (orphan mode) if there is none. The style is applied in one go, with no setters
+     * to go through, so this is the cheapest way to create lots of ribbons that look the same</p>
+     *
+     * @param activity Need an activity in case it's an orphan view
+     * @param parentView Optional. If null, it will be in orphan mode, otherwise attached to the {@link ViewGroup} supplied
+     * @param style The style, see {@link RibbonStyle.Builder} and {@link RibbonStyle#fromResource(Context, int)}
+     */
+    public ProgressRibbon(Activity activity, @Nullable ViewGroup parentView, @NonNull RibbonStyle style) {
+        super(activity);
+
+        this.activity = activity;
+        progressText = "";
+        isDynamicallyCreated = true;
+
+        ribbonData= new RibbonData(activity, true);
+        copyRibbonStyle(style, true);
+
+        if(parentView!=null){
+            viewParent=parentView;
+            ribbonData.isInOrphanMode =false;
+        }
+
+        initRibbon(activity);
+    }
+
+
     /*************************Standard constructors for XML inflation******************************/
 
     public ProgressRibbon(Context context, @Nullable AttributeSet attrs) {
@@ -389,82 +721,60 @@ public class ProgressRibbon extends FrameLayout {
     /*******************************Other necessary stuff******************************************/
 
     /**
-     * <p>Gets the attributes from an XML defined {@link ProgressRibbon} </p>
+     * <p>Gets the attributes from an XML defined {@link ProgressRibbon}. The <code>style</code> attribute comes from the
+     * {@link RibbonStyle} cache, only the attributes set on the tag itself get parsed (see {@link RibbonStyle#fromAttributes(Context, AttributeSet)})</p>
      *
      * @param context The Context
      * @param attrs The attributes to get
      */
     private void getAttributes(Context context, AttributeSet attrs){
+        copyRibbonStyle(RibbonStyle.fromAttributes(context, attrs), true);
+    }
 
-        TypedArray a = context.getTheme().obtainStyledAttributes(
-                attrs,
-                R.styleable.ProgressRibbon,
-                0, 0);
-
-        try {
-            progressText=a.getString(R.styleable.ProgressRibbon_progressText);
-            ribbonData.showDelay=a.getInteger(R.styleable.ProgressRibbon_showDelay, ribbonData.DEFAULT_RIBBON_SHOW_DELAY);
-            ribbonData.hideDelay=a.getInteger(R.styleable.ProgressRibbon_hideDelay, ribbonData.DEFAULT_RIBBON_HIDE_DELAY);
-
-            ribbonData.isIndeterminate=a.getBoolean(R.styleable.ProgressRibbon_isIndeterminate, true);
-            ribbonData.min=a.getInteger(R.styleable.ProgressRibbon_min, ribbonData.DEFAULT_RIBBON_MIN);
-            ribbonData.max=a.getInteger(R.styleable.ProgressRibbon_max, ribbonData.DEFAULT_RIBBON_MAX);
-            ribbonData.progress=a.getInteger(R.styleable.ProgressRibbon_ribbonProgress, 0);
-            ribbonData.blocksUnderlying =a.getBoolean(R.styleable.ProgressRibbon_blockUnderlyingViews, false);
-            ribbonData.progressBarStyle =a.getInteger(R.styleable.ProgressRibbon_progressBarType, BAR_ROUND);
-            ribbonData.animationDuration=a.getInteger(R.styleable.ProgressRibbon_animationDuration, ribbonData.DEFAULT_ANIMATION_DURATION);
-            ribbonData.animationType=a.getInteger(R.styleable.ProgressRibbon_animationType, DO_NOT_ANIMATE);
-            ribbonData.textBesideBar =a.getBoolean(R.styleable.ProgressRibbon_textBesideProgressBar, false);
-            ribbonData.isInDialogueMode=a.getBoolean(R.styleable.ProgressRibbon_dialogueMode, false);
-            ribbonData.ribbonBorderSize=a.getDimensionPixelSize(R.styleable.ProgressRibbon_borderThickness,ribbonData.DEFAULT_RIBBON_BORDER_SIZE);
-            ribbonData.progressTextSize=a.getDimensionPixelSize(R.styleable.ProgressRibbon_progressTextSize, ribbonData.DEFAULT_RIBBON_TEXT_SIZE);
-            ribbonData.progressTextColor=a.getColor(R.styleable.ProgressRibbon_progressTextColor, ribbonData.DEFAULT_RIBBON_TEXT_COLOR);
-            ribbonData.ribbonPaddingTop =a.getDimensionPixelSize(R.styleable.ProgressRibbon_ribbonPadding, ribbonData.DEFAULT_RIBBON_PADDING);
-            ribbonData.ribbonPaddingBottom =a.getDimensionPixelSize(R.styleable.ProgressRibbon_ribbonPadding, ribbonData.DEFAULT_RIBBON_PADDING);
-            ribbonData.reportProgressAsMaxPercent=a.getBoolean(R.styleable.ProgressRibbon_reportProgressAsMaxPercent, false);
-            boolean isTransparent=a.getBoolean(R.styleable.ProgressRibbon_transparent, false);
-
-            if(!isTransparent){
-                ribbonData.ribbonBorderColor =a.getColor(R.styleable.ProgressRibbon_borderColor, ribbonData.DEFAULT_RIBBON_BORDER_COLOR);
-                ribbonData.backgroundColor=a.getColor(R.styleable.ProgressRibbon_ribbonBackgroundColor,ribbonData.DEFAULT_RIBBON_BG_COLOR);
-            } else {
-                ribbonData.ribbonBorderColor = Color.TRANSPARENT;
-                ribbonData.backgroundColor = Color.TRANSPARENT;
-            }
-
-            ribbonData.isBorderless=a.getBoolean(R.styleable.ProgressRibbon_borderless, false);
-
-            float defaultElevationPixelSize= TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, ribbonData.DEFAULT_RIBBON_BORDER_SIZE, getResources().getDisplayMetrics());
-            int elevationPixelSize= a.getDimensionPixelSize(R.styleable.ProgressRibbon_ribbonElevation, Math.round(defaultElevationPixelSize));
-            ribbonData.ribbonElevation= TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, elevationPixelSize, getResources().getDisplayMetrics());
-
-
-            /*Need the extra step here, as this is not defined as a dimension attribute, but needs to be translated, UNLESS it's explicitly zero*/
-            float rawRadius=a.getFloat(R.styleable.ProgressRibbon_borderRadius, 0.0f);
-            if(rawRadius==0.0f){
-                ribbonData.ribbonBorderRadius=ribbonData.DEFAULT_RIBBON_BORDER_RADIUS;
-            } else {
-                ribbonData.ribbonBorderRadius=TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, rawRadius, getResources().getDisplayMetrics());
-            }
-
-            if(a.hasValue(R.styleable.ProgressRibbon_ribbonMarginBottom)) {
-                ribbonData.ribbonMarginBottom = a.getDimensionPixelSize(R.styleable.ProgressRibbon_ribbonMarginBottom, ribbonData.DEFAULT_RIBBON_MARGIN);
-            } else if (a.hasValue(R.styleable.ProgressRibbon_ribbonMarginPercentBottom)){
-                ribbonData.ribbonMarginBottom = a.getInteger(R.styleable.ProgressRibbon_ribbonMarginPercentBottom, ribbonData.DEFAULT_RIBBON_MARGIN);
-                xmlMarginBottomPercentIsSet=true;
-            }
-            if(a.hasValue(R.styleable.ProgressRibbon_ribbonMarginTop)) {
-                ribbonData.ribbonMarginTop = a.getDimensionPixelSize(R.styleable.ProgressRibbon_ribbonMarginTop, ribbonData.DEFAULT_RIBBON_MARGIN);
-            } else if (a.hasValue(R.styleable.ProgressRibbon_ribbonMarginPercentTop)){
-                ribbonData.ribbonMarginTop = a.getInteger(R.styleable.ProgressRibbon_ribbonMarginPercentTop, ribbonData.DEFAULT_RIBBON_MARGIN);
-                xmlMarginTopPercentIsSet=true;
-            }
-
-            doNotShowOnAttachFromXML=a.getBoolean(R.styleable.ProgressRibbon_doNotShowOnAttach, false);
-
+    /**
+     * <p>Copies everything from a {@link RibbonStyle} into {@link RibbonData}, without touching any views</p>
+     *
+     * @param style The style
+     * @param initial Whether the ribbon is being created. Initial progress and such only get copied then
+     */
+    private void copyRibbonStyle(RibbonStyle style, boolean initial){
+        ribbonData.showDelay=style.showDelay;
+        ribbonData.hideDelay=style.hideDelay;
+        ribbonData.minimumShowTime=style.minimumShowTime;
+        ribbonData.isIndeterminate=style.isIndeterminate;
+        ribbonData.min=style.min;
+        ribbonData.max=style.max;
+        ribbonData.blocksUnderlying=style.blocksUnderlying;
+        ribbonData.progressBarStyle=style.progressBarStyle;
+        ribbonData.renderMode=style.renderMode;
+        ribbonData.animationDuration=style.animationDuration;
+        ribbonData.animationType=style.animationType;
+        ribbonData.textBesideBar=style.textBesideBar;
+        ribbonData.isInDialogueMode=style.isInDialogueMode;
+        ribbonData.ribbonBorderSize=style.borderSize;
+        ribbonData.progressTextSize=style.progressTextSize;
+        ribbonData.progressTextColor=style.progressTextColor;
+        ribbonData.ribbonPaddingTop=style.paddingTop;
+        ribbonData.ribbonPaddingBottom=style.paddingBottom;
+        ribbonData.reportProgressAsMaxPercent=style.reportProgressAsMaxPercent;
+        ribbonData.ribbonBorderColor=style.borderColor;
+        ribbonData.backgroundColor=style.backgroundColor;
+        ribbonData.isBorderless=style.isBorderless;
+        ribbonData.ribbonElevation=style.elevation;
+        ribbonData.ribbonBorderRadius=style.borderRadius;
+        ribbonData.ribbonMarginTop=style.marginTop;
+        ribbonData.ribbonMarginBottom=style.marginBottom;
+        xmlMarginTopPercentIsSet=style.marginTopIsPercent;
+        xmlMarginBottomPercentIsSet=style.marginBottomIsPercent;
+
+        if(style.progressText!=null){
+            progressText=style.progressText;
+        }
 
-        } finally {
-            a.recycle();
+        if(initial){
+            ribbonData.progress=style.progress;
+            doNotShowOnAttachFromXML=style.doNotShowOnAttach;
+            lazyHierarchy=style.lazyHierarchy;
         }
     }
 
@@ -500,14 +810,17 @@ public class ProgressRibbon extends FrameLayout {
     }
 
     /**
-     * <p>Inflates {@link ProgressRibbon} compound {@link View}s from their default layout file {@link com.atlanticomnibus.progressribbon.R.layout#progress_ribbon}</p>
+     * <p>Builds the {@link ProgressRibbon} compound {@link View}s, or leaves them for later if the ribbon is lazy</p>
      *
      * @param context Of the many meanings of the word "context", I'll let you choose the one that suits this here
      */
     private void initRibbon(Context context) {
-        LayoutInflater inflater = (LayoutInflater) context
-                .getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-        inflater.inflate(R.layout.progress_ribbon, this,true);
+        if(lazyHierarchy && !isDynamicallyCreated){
+            //Nothing to build until it's shown, or something needs the views, see ensureRibbonBuilt()
+            hierarchyDeferred=true;
+        } else {
+            buildRibbonHierarchy(context);
+        }
 
         if(isDynamicallyCreated){
             /*This should be called automatically for XML inflated stuff, but need to do it by hand if added from code*/
@@ -523,8 +836,9 @@ public class ProgressRibbon extends FrameLayout {
     protected void onFinishInflate() {
         super.onFinishInflate();
 
-        ribbonContainer=findViewById(R.id.ribbon_container);
-        progressTextView=findViewById(R.id.progress_ribbon_text);
+        if(!hierarchyDeferred) {
+            findRibbonViews();
+        }
 
         setRibbonStateChangedListenerInternal();
         setRibbonAttributes(false);
@@ -532,8 +846,110 @@ public class ProgressRibbon extends FrameLayout {
     }
 
     /**
-     * <p>As a {@link View}'s style cannot be dynamically changed, the {@link ProgressBar} element needs to be recreated
-     * when changing between flat and round styles. That being the case, it's better dynamically create them in the first place.</p>
+     * <p>Builds the views of a ribbon declared with <code>lazyHierarchy="true"</code>, if they are not built yet. Until then,
+     * the ribbon is nothing but its {@link RibbonData}: no layout is inflated, no {@link ProgressBar} created, no drawable loaded.
+     * Showing it builds everything, and so do {@link ProgressRibbon#getProgressbar()} and {@link ProgressRibbon#getProgressTextView()},
+     * as the caller wants the views themselves. Everything else, setters, progress, progress text, and {@link ProgressRibbon#setRibbonStyle(RibbonStyle)}
+     * or {@link ProgressRibbon#edit()} changes, is just stored in {@link RibbonData}, and applied along with the rest when the views are built.</p>
+     */
+    private void ensureRibbonBuilt(){
+        if(!hierarchyDeferred){
+            return;
+        }
+
+        hierarchyDeferred=false;
+        buildRibbonHierarchy(getContext());
+        findRibbonViews();
+        applyRibbonAttributes();
+    }
+
+    /**
+     * <p>Creates the visible part of the {@link ProgressRibbon} according to {@link RibbonData#renderMode}. In
+     * {@link ProgressRibbon#RENDER_COMPOUND} mode that's the usual container and text, see {@link ProgressRibbon#buildCompoundHierarchy(Context, ViewGroup)},
+     * in {@link ProgressRibbon#RENDER_CANVAS} mode a single {@link RibbonCanvasView}</p>
+     *
+     * @param context The Context
+     */
+    private void buildRibbonHierarchy(Context context){
+        if(ribbonData.renderMode==RENDER_CANVAS){
+            RibbonCanvasView canvasView=new RibbonCanvasView(context);
+            FrameLayout.LayoutParams params=new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.CENTER);
+            addView(canvasView, params);
+        } else {
+            buildCompoundHierarchy(context, this);
+        }
+    }
+
+    /**
+     * <p>Creates the very same views {@link com.atlanticomnibus.progressribbon.R.layout#progress_ribbon} describes, with the same ids,
+     * only directly in code. Inflating that layout for every ribbon meant parsing XML and creating views by reflection each time,
+     * for what is just a {@link LinearLayout} with a {@link TextView} in it. The layout file stays as the reference for what gets
+     * built here, so if one changes, so must the other.</p>
+     * <br />
+     * <p>The text is an {@link AppCompatTextView} in an {@link AppCompatActivity}, and a plain {@link TextView} anywhere else,
+     * the same as inflating the layout used to produce</p>
+     *
+     * @param context The Context
+     * @param parent The {@link FrameLayout} to add the container to, normally the ribbon itself
+     */
+    static void buildCompoundHierarchy(Context context, ViewGroup parent){
+        LinearLayout container=new LinearLayout(context);
+        container.setId(R.id.ribbon_container);
+        container.setOrientation(LinearLayout.VERTICAL);
+        container.setLayoutDirection(View.LAYOUT_DIRECTION_INHERIT);
+
+        //ProgressBar will be added here later, by initProgressbar()
+        TextView textView=isInAppCompatActivity(context) ? new AppCompatTextView(context) : new TextView(context);
+        textView.setId(R.id.progress_ribbon_text);
+        textView.setGravity(Gravity.CENTER);
+        container.addView(textView, new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.MATCH_PARENT));
+
+        parent.addView(container, new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+    }
+
+    /**
+     * <p>Inflating in an {@link AppCompatActivity} goes through its delegate's factory, which swaps in the AppCompat widgets.
+     * Its inflater is handed on to every wrapper around it, so the wrappers count as well.</p>
+     *
+     * @param context The Context the ribbon's views are created with
+     * @return Whether there is an {@link AppCompatActivity} somewhere under the context
+     */
+    private static boolean isInAppCompatActivity(Context context){
+        while(context instanceof ContextWrapper){
+            if(context instanceof AppCompatActivity){
+                return true;
+            }
+            context=((ContextWrapper) context).getBaseContext();
+        }
+        return false;
+    }
+
+    /**
+     * <p>Looks up whichever views {@link ProgressRibbon#buildRibbonHierarchy(Context)} has created</p>
+     */
+    private void findRibbonViews(){
+        ribbonContainer=findViewById(R.id.ribbon_container);
+        appliedBackgroundKey=null;
+        progressTextView=findViewById(R.id.progress_ribbon_text);
+        ribbonCanvas=null;
+
+        if(ribbonContainer==null) {
+            for (int i = 0; i < getChildCount(); i++) {
+                if (getChildAt(i) instanceof RibbonCanvasView) {
+                    ribbonCanvas = (RibbonCanvasView) getChildAt(i);
+                    break;
+                }
+            }
+        }
+
+        ribbonSurface=(ribbonCanvas!=null) ? ribbonCanvas : ribbonContainer;
+    }
+
+    /**
+     * <p>A {@link View}'s style cannot be dynamically changed, but a {@link ProgressBar}'s drawables can. So there is only ever
+     * one {@link ProgressBar}, always created in the horizontal style, and switching between flat and round, or between determinate
+     * and indeterminate, just swaps its drawables (see {@link ProgressRibbon#applyProgressBarStyle(int, boolean)}). No view is
+     * created or removed, and unless the bar changes its size (flat vs round), nothing needs to be laid out again.</p>
      *
      * @param style Style of the {@link ProgressBar} {@link ProgressRibbon#BAR_ROUND} ({@value ProgressRibbon#BAR_ROUND}), or
      * {@link ProgressRibbon#BAR_HORIZONTAL} ({@value ProgressRibbon#BAR_HORIZONTAL}) are the only accepted alues
@@ -541,45 +957,150 @@ public class ProgressRibbon extends FrameLayout {
      */
     private void initProgressbar(@ProgressStyle int style, boolean indeterminate){
 
-        if(progressBar!=null){
-            if(ribbonContainer.findViewById(PROGRESS_BAR_ID)!=null){
-                ribbonContainer.removeView(progressBar);
-                progressBar=null;
+        if(ribbonCanvas!=null){
+            //Nothing to recreate, the canvas just draws the other kind of bar
+            ribbonCanvas.setBarStyle(style, indeterminate);
+            return;
+        }
+
+        if(progressBar==null){
+            progressBar= new ProgressBar(getContext(), null, android.R.attr.progressBarStyleHorizontal);
+            //Its own drawables are the flat ones, the round ones only get loaded if ever needed
+            horizontalIndeterminateDrawable=progressBar.getIndeterminateDrawable();
+            horizontalProgressDrawable=progressBar.getProgressDrawable();
+            horizontalMinimumHeight=progressBar.getMinimumHeight();
+            if(Build.VERSION.SDK_INT>=Build.VERSION_CODES.Q){
+                horizontalMinHeight=progressBar.getMinHeight();
+                horizontalMaxHeight=progressBar.getMaxHeight();
+            }
+            appliedProgressBarStyle=BAR_HORIZONTAL;
+
+            progressBar.setMax(PROGRESS_BAR_RESOLUTION);
+            progressBar.setLayoutParams(createProgressBarLayoutParams(BAR_HORIZONTAL));
+            progressBar.setId(PROGRESS_BAR_ID);
+
+            ribbonContainer.addView(progressBar, 0);
+        }
+
+        applyProgressBarStyle(style, indeterminate);
+    }
+
+    /**
+     * <p>Makes the one and only {@link ProgressBar} look like the given style, by swapping in the matching drawables. Only
+     * touches the layout parameters when the style actually changes, and only (un)sets indeterminate if that changes.</p>
+     *
+     * @param style {@link ProgressRibbon#BAR_ROUND} or {@link ProgressRibbon#BAR_HORIZONTAL}
+     * @param indeterminate Whether it should be indeterminate
+     */
+    private void applyProgressBarStyle(@ProgressStyle int style, boolean indeterminate){
+        if(style!=appliedProgressBarStyle){
+            if(style==BAR_ROUND){
+                if(roundIndeterminateDrawable==null){
+                    loadRoundProgressBarDrawables();
+                }
+                progressBar.setIndeterminateDrawable(roundIndeterminateDrawable);
+                progressBar.setProgressDrawable(roundProgressDrawable);
+                applyProgressBarHeightLimits(getRoundBarSize(), getRoundBarSize(), getRoundBarSize());
+            } else {
+                progressBar.setIndeterminateDrawable(horizontalIndeterminateDrawable);
+                progressBar.setProgressDrawable(horizontalProgressDrawable);
+                applyProgressBarHeightLimits(horizontalMinimumHeight, horizontalMinHeight, horizontalMaxHeight);
+            }
+
+            //Different size, so this one does need a layout pass
+            progressBar.setLayoutParams(createProgressBarLayoutParams(style));
+            appliedProgressBarStyle=style;
+            applyProgressBarLayoutDirection();
+        }
+
+        if(progressBar.isIndeterminate()!=indeterminate){
+            progressBar.setIndeterminate(indeterminate);
+        }
+    }
+
+    /**
+     * <p>The bar is always created in the horizontal style, so the round one inherits its fixed (and flat) height limits.
+     * These put the ones of the round style in place, or the horizontal ones back.</p>
+     *
+     * @param minimumHeight The {@link View}'s minimum height
+     * @param minHeight The {@link ProgressBar}'s own minimum height, only used from SDK{@value Build.VERSION_CODES#Q}
+     * @param maxHeight The {@link ProgressBar}'s own maximum height, only used from SDK{@value Build.VERSION_CODES#Q}
+     */
+    private void applyProgressBarHeightLimits(int minimumHeight, int minHeight, int maxHeight){
+        progressBar.setMinimumHeight(minimumHeight);
+        if(Build.VERSION.SDK_INT>=Build.VERSION_CODES.Q){
+            //In this order, so that min never ends up above max in between
+            if(minHeight>progressBar.getMaxHeight()){
+                progressBar.setMaxHeight(maxHeight);
+                progressBar.setMinHeight(minHeight);
+            } else {
+                progressBar.setMinHeight(minHeight);
+                progressBar.setMaxHeight(maxHeight);
             }
         }
+    }
+
+    /**
+     * <p>The horizontal widget style also comes with <code>mirrorForRtl</code>, which has no setter. A round bar was never mirrored
+     * (neither its ring, nor the secondary progress drawn on it), so instead of mirroring, it's always laid out LTR. Nothing
+     * else in the {@link ProgressBar} depends on its layout direction. A flat bar follows the ribbon, as before.</p>
+     */
+    private void applyProgressBarLayoutDirection(){
+        if(appliedProgressBarStyle==BAR_ROUND){
+            progressBar.setLayoutDirection(LAYOUT_DIRECTION_LTR);
+        } else {
+            progressBar.setLayoutDirection(layoutIsRTL ? LAYOUT_DIRECTION_RTL : LAYOUT_DIRECTION_LTR);
+        }
+    }
+
+    /**
+     * <p>Loads the drawables of the round style. The spinner is whatever the theme's round {@link ProgressBar} would use, the
+     * determinate one is our own {@link com.atlanticomnibus.progressribbon.R.drawable#circular_determinate_progressbar}</p>
+     */
+    private void loadRoundProgressBarDrawables(){
+        TypedArray a=getContext().obtainStyledAttributes(null, new int[]{android.R.attr.indeterminateDrawable}, android.R.attr.progressBarStyle, 0);
+        try {
+            roundIndeterminateDrawable=a.getDrawable(0);
+        } finally {
+            a.recycle();
+        }
+
+        if(roundIndeterminateDrawable==null){
+            //Can't really happen, but an odd theme is better off with a flat spinner than a crash
+            roundIndeterminateDrawable=horizontalIndeterminateDrawable;
+        }
+
+        roundProgressDrawable=ResourcesCompat.getDrawable(getResources(), R.drawable.circular_determinate_progressbar, getContext().getTheme());
+    }
 
+    /**
+     * @param style {@link ProgressRibbon#BAR_ROUND} or {@link ProgressRibbon#BAR_HORIZONTAL}
+     * @return New layout parameters for the {@link ProgressBar} in the given style
+     */
+    private LinearLayout.LayoutParams createProgressBarLayoutParams(@ProgressStyle int style){
         LinearLayout.LayoutParams params;
-        int circularSize=(int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 48, getResources().getDisplayMetrics());
-        int circularMargin=(int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 24, getResources().getDisplayMetrics());
 
         if(style==BAR_HORIZONTAL){
             //Horizontal bars are straighforward
-            progressBar= new ProgressBar(getContext(), null, android.R.attr.progressBarStyleHorizontal);
             params= new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT);
-            params.gravity=Gravity.CENTER;
         } else {
-
-            if(indeterminate){
-                progressBar= new ProgressBar(getContext(), null, android.R.attr.progressBarStyle);
-            } else {
-                //Curcular determinate bars will be set as horizontal with a special drawable applied to them
-                progressBar= new ProgressBar(getContext(), null, android.R.attr.progressBarStyleHorizontal);
-                progressBar.setProgressDrawable(ResourcesCompat.getDrawable(getResources(), R.drawable.circular_determinate_progressbar, getContext().getTheme()));
-            }
+            int circularSize=getRoundBarSize();
+            int circularMargin=(int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 24, getResources().getDisplayMetrics());
 
             params=new LinearLayout.LayoutParams(circularSize, circularSize);
-            params.gravity=Gravity.CENTER;
             params.rightMargin=circularMargin;
             params.leftMargin=circularMargin;
         }
 
-        progressBar.setMax(ribbonData.max);
-        progressBar.setLayoutParams(params);
-        progressBar.setIndeterminate(indeterminate);
-        progressBar.setId(PROGRESS_BAR_ID);
-
-        ribbonContainer.addView(progressBar, 0);
+        params.gravity=Gravity.CENTER;
+        return params;
+    }
 
+    /**
+     * @return The width and height of the round {@link ProgressBar} in pixels
+     */
+    private int getRoundBarSize(){
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 48, getResources().getDisplayMetrics());
     }
 
     /**
@@ -589,77 +1110,162 @@ public class ProgressRibbon extends FrameLayout {
      */
     private void setRibbonStateChangedListenerInternal(){
         if(ribbonStateChangeListener==null){
-            ribbonStateChangeListener=new RibbonStateChangeListener() {
-                @Override
-                public void onRibbonSignalledToShow(int showDelay) {
-                    if(onRibbonShowListener !=null) {
-                        onRibbonShowListener.onRibbonSignalledToShow(showDelay);
-                    }
-                }
+            ribbonStateChangeListener=new InternalStateChangeListener();
+        }
+    }
 
-                @Override
-                public void onRibbonShow() {
-                    if(onRibbonShowListener !=null) {
-                        onRibbonShowListener.onRibbonShow();
-                    }
-                }
+    /**
+     * <p>The default {@link RibbonStateChangeListener}, calling the set and added listeners. Progress reaches it as a long
+     * (see {@link ProgressRibbon#notifyProgressChange(long)}), so only the int listeners ever see a clamped value</p>
+     */
+    private final class InternalStateChangeListener implements RibbonStateChangeListener {
+        @Override
+        public void onRibbonSignalledToShow(int showDelay) {
+            if(onRibbonShowListener !=null) {
+                onRibbonShowListener.onRibbonSignalledToShow(showDelay);
+            }
+            showListeners.dispatch(SIGNALLED_TO_SHOW_EVENT, showDelay, 0);
+        }
 
-                @Override
-                public void onRibbonIndeterminateStatusChanged(boolean ribbonIsIndeternimate) {
-                    if(onIndeterminateStatusChangeListener !=null){
-                        onIndeterminateStatusChangeListener.onRibbonIndeterminateStatusChanged(ribbonIsIndeternimate);
-                    }
-                }
+        @Override
+        public void onRibbonShow() {
+            if(onRibbonShowListener !=null) {
+                onRibbonShowListener.onRibbonShow();
+            }
+            showListeners.dispatch(SHOW_EVENT, 0, 0);
+        }
 
-                @Override
-                public void onRibbonProgressStarted(int startValue) {
-                    if(onStartListener!=null){
-                        onStartListener.onRibbonProgressStarted(startValue);
-                    }
-                }
+        @Override
+        public void onRibbonIndeterminateStatusChanged(boolean ribbonIsIndeternimate) {
+            if(onIndeterminateStatusChangeListener !=null){
+                onIndeterminateStatusChangeListener.onRibbonIndeterminateStatusChanged(ribbonIsIndeternimate);
+            }
+            indeterminateStatusChangeListeners.dispatch(INDETERMINATE_STATUS_EVENT, ribbonIsIndeternimate ? 1 : 0, 0);
+        }
 
-                @Override
-                public void onRibbonProgressStopped(int stopValue) {
-                    if(onStopListener!=null){
-                        onStopListener.onRibbonProgressStopped(stopValue);
-                    }
-                }
+        @Override
+        public void onRibbonProgressStarted(int startValue) {
+            onProgressStarted(startValue);
+        }
 
-                @Override
-                public void onRibbonProgressChange(int currentValue) {
-                    if(onRibbonProgressUpdateListener !=null){
-                        onRibbonProgressUpdateListener.onRibbonProgressChange(currentValue);
-                    }
-                }
+        @Override
+        public void onRibbonProgressStopped(int stopValue) {
+            onProgressStopped(stopValue);
+        }
 
-                @Override
-                public void onRibbonSignalledToHide(int hideDelay) {
-                    if(onRibbonHideListener !=null){
-                        onRibbonHideListener.onRibbonSignalledToHide(hideDelay);
-                    }
-                }
+        @Override
+        public void onRibbonProgressChange(int currentValue) {
+            onProgressChange(currentValue);
+        }
 
-                @Override
-                public void onRibbonHide() {
-                    if(onRibbonHideListener !=null){
-                        onRibbonHideListener.onRibbonHide();
-                    }
-                }
+        /**
+         * <p>The long versions of the three above. The set listeners speak int, so they get the clamped value, the
+         * added ones get the value as it is, and so do their throttles. So do {@link OnRibbonLongProgressListener}s</p>
+         */
+        void onProgressStarted(long startValue) {
+            if(onStartListener!=null){
+                onStartListener.onRibbonProgressStarted(ProgressMath.clampToInt(startValue));
+            }
+            startListeners.dispatch(PROGRESS_STARTED_EVENT, startValue, 0);
+            longProgressListeners.dispatch(LONG_PROGRESS_STARTED_EVENT, startValue, 0);
+        }
 
-                @Override
-                public void onRibbonAttached(boolean hasViewParent) {
-                    if(onRibbonAttachDetachListener !=null){
-                        onRibbonAttachDetachListener.onRibbonAttached(hasViewParent);
-                    }
-                }
+        void onProgressStopped(long stopValue) {
+            flushThrottledProgress();
+            if(onStopListener!=null){
+                onStopListener.onRibbonProgressStopped(ProgressMath.clampToInt(stopValue));
+            }
+            stopListeners.dispatch(PROGRESS_STOPPED_EVENT, stopValue, 0);
+            longProgressListeners.dispatch(LONG_PROGRESS_STOPPED_EVENT, stopValue, 0);
+        }
 
-                @Override
-                public void onRibbonRemoved() {
-                    if(onRibbonAttachDetachListener !=null){
-                        onRibbonAttachDetachListener.onRibbonRemoved();
-                    }
-                }
-            };
+        void onProgressChange(long currentValue) {
+            if(onRibbonProgressUpdateListener !=null){
+                onRibbonProgressUpdateListener.onRibbonProgressChange(ProgressMath.clampToInt(currentValue));
+            }
+            //The final value is flagged, so throttled listeners get it too
+            long isFinal=ribbonData.progress>=ribbonData.max ? 1 : 0;
+            progressUpdateListeners.dispatch(PROGRESS_CHANGE_EVENT, currentValue, isFinal);
+            longProgressListeners.dispatch(LONG_PROGRESS_CHANGE_EVENT, currentValue, isFinal);
+        }
+
+        @Override
+        public void onRibbonSignalledToHide(int hideDelay) {
+            if(onRibbonHideListener !=null){
+                onRibbonHideListener.onRibbonSignalledToHide(hideDelay);
+            }
+            hideListeners.dispatch(SIGNALLED_TO_HIDE_EVENT, hideDelay, 0);
+        }
+
+        @Override
+        public void onRibbonHide() {
+            if(onRibbonHideListener !=null){
+                onRibbonHideListener.onRibbonHide();
+            }
+            hideListeners.dispatch(HIDE_EVENT, 0, 0);
+        }
+
+        @Override
+        public void onRibbonAttached(boolean hasViewParent) {
+            if(onRibbonAttachDetachListener !=null){
+                onRibbonAttachDetachListener.onRibbonAttached(hasViewParent);
+            }
+            attachDetachListeners.dispatch(ATTACHED_EVENT, hasViewParent ? 1 : 0, 0);
+        }
+
+        @Override
+        public void onRibbonRemoved() {
+            if(onRibbonAttachDetachListener !=null){
+                onRibbonAttachDetachListener.onRibbonRemoved();
+            }
+            attachDetachListeners.dispatch(REMOVED_EVENT, 0, 0);
+        }
+    }
+
+    /**
+     * <p>The task is over, one way or another, so throttled progress listeners get the last value they were held back
+     * from, if any. Without this, a task stopping short of max would leave them on a stale value</p>
+     */
+    private void flushThrottledProgress(){
+        progressUpdateListeners.flush(PROGRESS_CHANGE_EVENT, 0);
+    }
+
+    /**
+     * <p>Progress started, as a long. A custom {@link RibbonStateChangeListener} only speaks int, so it gets the clamped value</p>
+     *
+     * @param value The progress value
+     */
+    private void notifyProgressStarted(long value){
+        if(ribbonStateChangeListener instanceof InternalStateChangeListener){
+            ((InternalStateChangeListener) ribbonStateChangeListener).onProgressStarted(value);
+        } else if(ribbonStateChangeListener!=null){
+            ribbonStateChangeListener.onRibbonProgressStarted(ProgressMath.clampToInt(value));
+        }
+    }
+
+    /**
+     * <p>Progress stopped, as a long, see {@link ProgressRibbon#notifyProgressStarted(long)}</p>
+     *
+     * @param value The progress value
+     */
+    private void notifyProgressStopped(long value){
+        if(ribbonStateChangeListener instanceof InternalStateChangeListener){
+            ((InternalStateChangeListener) ribbonStateChangeListener).onProgressStopped(value);
+        } else if(ribbonStateChangeListener!=null){
+            ribbonStateChangeListener.onRibbonProgressStopped(ProgressMath.clampToInt(value));
+        }
+    }
+
+    /**
+     * <p>Progress changed, as a long, see {@link ProgressRibbon#notifyProgressStarted(long)}</p>
+     *
+     * @param value The progress value
+     */
+    private void notifyProgressChange(long value){
+        if(ribbonStateChangeListener instanceof InternalStateChangeListener){
+            ((InternalStateChangeListener) ribbonStateChangeListener).onProgressChange(value);
+        } else if(ribbonStateChangeListener!=null){
+            ribbonStateChangeListener.onRibbonProgressChange(ProgressMath.clampToInt(value));
         }
     }
 
@@ -672,11 +1278,47 @@ public class ProgressRibbon extends FrameLayout {
      */
     private void setRibbonAttributes(boolean fromRestoreState){
 
+        if(fromRestoreState && !hierarchyDeferred && ribbonData.renderMode!=getBuiltRenderMode()){
+            //Restored a different render mode, than what was built by the constructor
+            rebuildRibbonHierarchy();
+        }
+
         //Laíyout parameters will be set first
         if(isDynamicallyCreated){
             setLayoutParamsInternal();
         }
 
+        if(hierarchyDeferred){
+            //Nothing to apply to yet, but the scheduler has to know, in case hiding comes before showing
+            showHideScheduler.setMinimumShowTime(ribbonData.minimumShowTime);
+        } else {
+            applyRibbonAttributes();
+        }
+
+        //If coming from state restore, we need to re-show the ribbon, without any applicable delay
+        if(fromRestoreState && isShowing){
+            showNoDelay();
+        } else if(!isDynamicallyCreated && !doNotShowOnAttachFromXML) {
+            /**
+             * This is so that XML added ribbon can be automatically shown after setup is complete
+             * If {@link ProgressRibbon#doNotShowOnAttachFromXML} is true, the ribbon never ghets aut-shown,
+             * and must be shown from code
+             */
+            show();
+        } else if (!isDynamicallyCreated && doNotShowOnAttachFromXML){
+            //XML added ribbon should be hidden under all circumstances when {@link ProgressRibbon#doNotShowOnAttachFromXML} is true
+            hideNoDelay();
+        }
+    }
+
+    /**
+     * <p>Applies everything stored in {@link RibbonData} to the views, without showing or hiding anything. Used for the initial
+     * setup, and whenever the views have to be recreated (e.g. when changing {@link RibbonData#renderMode})</p>
+     */
+    private void applyRibbonAttributes(){
+
+        showHideScheduler.setMinimumShowTime(ribbonData.minimumShowTime);
+
         //Create a ProgressBar
         initProgressbar(ribbonData.progressBarStyle, ribbonData.isIndeterminate);
         setBackgroundColor(getResources().getColor(android.R.color.transparent));
@@ -686,9 +1328,11 @@ public class ProgressRibbon extends FrameLayout {
         setProgressTextSize(TypedValue.COMPLEX_UNIT_PX, ribbonData.progressTextSize);
         setRibbonTextPosition(ribbonData.textBesideBar ? TEXT_BESIDE_BAR:TEXT_UNDER_BAR);
 
-        //Min and max values for the progressbar, obviously
-        setMin(ribbonData.min);
-        setMax(ribbonData.max);
+        /**
+         * Min and max values for the progressbar, obviously. Not through setMin(), as that also resets the progress,
+         * which would throw away anything set on a lazy ribbon before it was built. Progress gets applied below anyway
+         */
+        applyRange(ribbonData.min, ribbonData.max);
 
 
         /**
@@ -708,15 +1352,18 @@ public class ProgressRibbon extends FrameLayout {
             setRibbonPadding(PADDING_BOTTOM, TypedValue.COMPLEX_UNIT_PX, ribbonData.ribbonPaddingBottom);
         }
 
+        //Percentages are stored as they are, so they go back in as percentages
+        int marginUnit=ribbonData.marginIsPercentage ? PARENT_HEIGHT_PERCENT : TypedValue.COMPLEX_UNIT_PX;
+
         if(ribbonData.ribbonMarginTop>0){
             if(!xmlMarginTopPercentIsSet) {
-                setRibbonMarginTop(TypedValue.COMPLEX_UNIT_PX, ribbonData.ribbonMarginTop);
+                setRibbonMarginTop(marginUnit, ribbonData.ribbonMarginTop);
             }
         }
 
         if(ribbonData.ribbonMarginBottom>0){
             if(!xmlMarginBottomPercentIsSet){
-                setRibbonMarginBottom(TypedValue.COMPLEX_UNIT_PX, ribbonData.ribbonMarginBottom);
+                setRibbonMarginBottom(marginUnit, ribbonData.ribbonMarginBottom);
             }
         }
 
@@ -729,13 +1376,14 @@ public class ProgressRibbon extends FrameLayout {
         }
 
         //Set various progress related things, like progress value, text and text colour
-        progressBar.setProgress(ribbonData.progress);
-        progressTextView.setText(progressText);
+        setBarProgress(ribbonData.progress, false);
+        setBarSecondaryProgress();
+        setText(progressText);
         setProgressTextColour(ribbonData.progressTextColor);
 
 
         //The Ribbon itself always blocks touches
-        ribbonContainer.setOnTouchListener(new OnTouchListener() {
+        ribbonSurface.setOnTouchListener(new OnTouchListener() {
             @Override
             public boolean onTouch(View v, MotionEvent event) {
                 return true;
@@ -748,21 +1396,39 @@ public class ProgressRibbon extends FrameLayout {
         if(ribbonData.isBorderless){
             setRibbonBorderless();
         }
+    }
 
-        //If coming from state restore, we need to re-show the ribbon, without any applicable delay
-        if(fromRestoreState && isShowing){
-            showNoDelay();
-        } else if(!isDynamicallyCreated && !doNotShowOnAttachFromXML) {
-            /**
-             * This is so that XML added ribbon can be automatically shown after setup is complete
-             * If {@link ProgressRibbon#doNotShowOnAttachFromXML} is true, the ribbon never ghets aut-shown,
-             * and must be shown from code
-             */
-            show();
-        } else if (!isDynamicallyCreated && doNotShowOnAttachFromXML){
-            //XML added ribbon should be hidden under all circumstances when {@link ProgressRibbon#doNotShowOnAttachFromXML} is true
-            hideNoDelay();
+    /**
+     * @return The render mode of the views that currently exist
+     */
+    private int getBuiltRenderMode(){
+        return (ribbonCanvas!=null) ? RENDER_CANVAS : RENDER_COMPOUND;
+    }
+
+    /**
+     * <p>Throws away the visible part of the {@link ProgressRibbon}, and builds it up again according to {@link RibbonData#renderMode}.
+     * Does not apply any attributes, that's up to the caller</p>
+     */
+    private void rebuildRibbonHierarchy(){
+        if(showHideAnimator!=null){
+            showHideAnimator.cancel();
         }
+
+        if(ribbonSurface!=null){
+            removeView(ribbonSurface);
+        }
+
+        ribbonContainer=null;
+        progressTextView=null;
+        progressBar=null;
+        horizontalIndeterminateDrawable=null;
+        horizontalProgressDrawable=null;
+        roundIndeterminateDrawable=null;
+        roundProgressDrawable=null;
+        ribbonCanvas=null;
+
+        buildRibbonHierarchy(getContext());
+        findRibbonViews();
     }
 
     /**
@@ -820,6 +1486,7 @@ public class ProgressRibbon extends FrameLayout {
                     PixelFormat.TRANSLUCENT);
 
             setLayoutParams(params);
+            windowCollapsed=false;
             ribbonData.blocksUnderlying =true;
             ribbonData.isInOrphanMode =true;
         }
@@ -852,19 +1519,25 @@ public class ProgressRibbon extends FrameLayout {
 
     /**
      * <p>Exposes the internal {@link ProgressBar} widget, to set or whatever is not exposed explicitly in the main widget</p>
+     * <br />
+     * <p>There's no {@link ProgressBar} in {@link ProgressRibbon#RENDER_CANVAS} mode, so this will return null</p>
      *
-     * @return The dynamically created {@link ProgressBar} widget that is part of the compound layout
+     * @return The dynamically created {@link ProgressBar} widget that is part of the compound layout, or null
      */
     public ProgressBar getProgressbar(){
+        ensureRibbonBuilt();
         return progressBar;
     }
 
     /**
      * <p>Exposes the internal {@link TextView} holding the progress text to allow fine settings manipulation</p>
+     * <br />
+     * <p>There's no {@link TextView} in {@link ProgressRibbon#RENDER_CANVAS} mode, so this will return null</p>
      *
-     * @return The {@link TextView} widget that is part of the compound layout
+     * @return The {@link TextView} widget that is part of the compound layout, or null
      */
     public TextView getProgressTextView(){
+        ensureRibbonBuilt();
         return progressTextView;
     }
 
@@ -949,7 +1622,6 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     private ProgressRibbon setRibbonPadding(@RibbonPaddingPosition int position, @ValidSizeUnit int unit, @IntRange(from=0) int padding){
-
         padding=(int) TypedValue.applyDimension(unit, padding, getResources().getDisplayMetrics());
 
         if(position==PADDING_BOTTOM){
@@ -958,10 +1630,24 @@ public class ProgressRibbon extends FrameLayout {
             ribbonData.ribbonPaddingTop=padding;
         }
 
-        ribbonContainer.setPadding(ribbonContainer.getPaddingLeft(), ribbonData.ribbonPaddingBottom, ribbonContainer.getPaddingRight(), ribbonData.ribbonPaddingBottom);
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
+
+        applyRibbonPadding();
         return this;
     }
 
+    /**
+     * <p>Puts the paddings from {@link RibbonData} on the visible part. The sides are padded by the border in dialogue mode,
+     * top and bottom by whatever was set</p>
+     */
+    private void applyRibbonPadding(){
+        int sidePadding=ribbonData.isInDialogueMode ? ribbonData.ribbonBorderSize : 0;
+        ribbonSurface.setPadding(sidePadding, ribbonData.ribbonPaddingTop, sidePadding, ribbonData.ribbonPaddingBottom);
+    }
+
     /**
      * <p>Get the {@link ProgressRibbon}'s internal paddings, both bottom and top in {@link TypedValue#COMPLEX_UNIT_DIP}, as an integer array</p>
      *
@@ -1078,6 +1764,17 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     private ProgressRibbon setRibbonVerticalMargin(@RibbonMarginPosition int position, @RibbonMarginUnit int unit, @IntRange(from=0) int margin){
+        if(hierarchyDeferred){
+            //Stored the same way as below, percentages as they are, and applied when the views are built
+            ribbonData.marginIsPercentage=(unit==PARENT_HEIGHT_PERCENT);
+            int value=ribbonData.marginIsPercentage ? margin : (int) TypedValue.applyDimension(unit, margin, getResources().getDisplayMetrics());
+            if(position==MARGIN_TOP){
+                ribbonData.ribbonMarginTop=value;
+            } else {
+                ribbonData.ribbonMarginBottom=value;
+            }
+            return this;
+        }
 
         DisplayMetrics metrics = new DisplayMetrics();
         int marginTop = 0;
@@ -1118,7 +1815,7 @@ public class ProgressRibbon extends FrameLayout {
             }
         }
 
-        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) ribbonContainer.getLayoutParams();
+        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) ribbonSurface.getLayoutParams();
 
         if(ribbonData.isInOrphanMode && !ribbonData.blocksUnderlying) {
             params.bottomMargin=0;
@@ -1199,6 +1896,10 @@ public class ProgressRibbon extends FrameLayout {
      */
     public ProgressRibbon setRibbonInDialogueMode(boolean isInDialogueMode){
         ribbonData.isInDialogueMode=isInDialogueMode;
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
         return setRibbonBorders();
     }
 
@@ -1218,6 +1919,10 @@ public class ProgressRibbon extends FrameLayout {
      */
     public ProgressRibbon setRibbonBorderSize(@IntRange(from=0) int borderSize){
         ribbonData.ribbonBorderSize=Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, borderSize, getResources().getDisplayMetrics()));
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
         return setRibbonBorderSize();
     }
 
@@ -1239,6 +1944,10 @@ public class ProgressRibbon extends FrameLayout {
      */
      public ProgressRibbon setRibbonBorderSize(@ValidSizeUnit int unit, @IntRange(from=0) int borderSize){
         ribbonData.ribbonBorderSize=Math.round(TypedValue.applyDimension(unit, borderSize, getResources().getDisplayMetrics()));
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
         return setRibbonBorderSize();
      }
 
@@ -1248,19 +1957,10 @@ public class ProgressRibbon extends FrameLayout {
      */
     private ProgressRibbon setRibbonBorderSize(){
 
-        int sidePadding;
-        if(ribbonData.isInDialogueMode){
-            ((GradientDrawable) ribbonContainer.getBackground()).setStroke(ribbonData.ribbonBorderSize, ribbonData.ribbonBorderColor);
-            sidePadding=ribbonData.ribbonBorderSize;
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setBorderSize(ribbonData.ribbonBorderSize);
         } else {
-            /**
-             * Need to recreate this, otherwise "hot-swappnig" size has no effect. It's not a realistic situation, but still, i shold work.
-             */
-            LayerDrawable bg= (LayerDrawable) ContextCompat.getDrawable(getContext(), R.drawable.ribbon_default_bg);
-            bg.setLayerInset(1, 0,ribbonData.ribbonBorderSize,0,ribbonData.ribbonBorderSize);
-            ribbonContainer.setBackground(bg);
-            sidePadding=0;
-
+            updateRibbonBackground();
         }
 
         if(ribbonData.ribbonBorderSize==0){
@@ -1273,7 +1973,7 @@ public class ProgressRibbon extends FrameLayout {
             setBorderColor(ribbonData.backgroundColor);
         }
 
-        ribbonContainer.setPadding(sidePadding, ribbonData.ribbonPaddingTop, sidePadding, ribbonData.ribbonPaddingBottom);
+        applyRibbonPadding();
 
         return this;
     }
@@ -1295,27 +1995,54 @@ public class ProgressRibbon extends FrameLayout {
      */
     public ProgressRibbon setRibbonBorderColor(@ColorInt int color){
         ribbonData.ribbonBorderColor =color;
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
         return setBorderColor(ribbonData.ribbonBorderColor);
     }
 
     /**
      * <p>Internal method to set the ribbons border color for real. Don't ask why this is needed, I have no idea.
      * Might have had plans for multiple public methods, dunno.</p>
+     * <br />
+     * <p>In compound mode, the colour comes from {@link RibbonData} anyway (see {@link ProgressRibbon#updateRibbonBackground()})</p>
      *
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     private ProgressRibbon setBorderColor(@ColorInt int color){
-        if(ribbonData.isInDialogueMode){
-            GradientDrawable bg = (GradientDrawable) ribbonContainer.getBackground();
-            bg.setStroke(ribbonData.ribbonBorderSize, color);
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setBorderColor(color);
         } else {
-            LayerDrawable bg= (LayerDrawable) ribbonContainer.getBackground();
-            ((GradientDrawable)bg.getDrawable(0)).setColor(color);
+            updateRibbonBackground();
         }
 
         return this;
     }
 
+    /**
+     * <p>Puts the background matching the current looks on the compound mode ribbon. The drawables come from the
+     * process-wide {@link RibbonDrawableCache}, so ribbons that look the same share their drawable state, and nothing is
+     * inflated unless the looks are new. Shared drawables must never be changed in place, so any change in looks
+     * means a different drawable. Does nothing if the looks stayed the same.</p>
+     */
+    private void updateRibbonBackground(){
+        if(ribbonCanvas!=null || ribbonContainer==null){
+            return;
+        }
+
+        //Without a border, the border is painted in the background colour, as the drawable may still show a sliver of it
+        int borderColor=(ribbonData.ribbonBorderSize==0) ? ribbonData.backgroundColor : ribbonData.ribbonBorderColor;
+
+        RibbonDrawableCache.Key key=RibbonDrawableCache.keyFor(getContext(), ribbonData.isInDialogueMode,
+                ribbonData.backgroundColor, borderColor, ribbonData.ribbonBorderSize, ribbonData.ribbonBorderRadius);
+
+        if(!key.equals(appliedBackgroundKey)){
+            appliedBackgroundKey=key;
+            ribbonContainer.setBackground(RibbonDrawableCache.obtain(getContext(), key));
+        }
+    }
+
     /**
      * <p>Get the border colour as a {@link ColorInt}</p>
      *
@@ -1349,7 +2076,15 @@ public class ProgressRibbon extends FrameLayout {
      */
     @Override
     public void setBackground(Drawable background) {
-        ribbonContainer.setBackground(background);
+        /**
+         * This can get called (e.g. by setBackgroundColor()) before there's anything to set it on.
+         * Whatever it is, it's going to be overridden anyway
+         */
+        if(ribbonSurface!=null) {
+            ribbonSurface.setBackground(background);
+            //Not one from the cache any more, so whatever the looks are next time, it has to be replaced
+            appliedBackgroundKey=null;
+        }
     }
 
     /**
@@ -1362,6 +2097,10 @@ public class ProgressRibbon extends FrameLayout {
      */
     public ProgressRibbon setRibbonBackgroundColor(@ColorInt int color){
         ribbonData.backgroundColor=color;
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
         return setRibbonBackgroundColor();
     }
 
@@ -1371,20 +2110,13 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     private ProgressRibbon setRibbonBackgroundColor(){
-        Drawable bg= ribbonContainer.getBackground();
-
-        if(ribbonData.isInDialogueMode) {
-            ((GradientDrawable)bg).setColor(ribbonData.backgroundColor);
-            ribbonContainer.setBackground(bg);
-        } else {
-            /**
-             * That's one ugly casting there, but at least we don't have to create two extra Objects just to change colour.
-             * maybe that would have been better, i know, but I wanted to show off my casting skillz, hehe.
-             */
-            ((GradientDrawable) ((InsetDrawable) ((LayerDrawable) bg).getDrawable(1)).getDrawable()).setColor(ribbonData.backgroundColor);
-
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setRibbonBackgroundColor(ribbonData.backgroundColor);
+            return this;
         }
 
+        updateRibbonBackground();
+
         return this;
     }
 
@@ -1407,10 +2139,9 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     public ProgressRibbon setRibbonBorderRadius(@FloatRange(from=0.0f) float radius){
-
         ribbonData.ribbonBorderRadius= TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, radius, getResources().getDisplayMetrics());
 
-        if(ribbonData.isInDialogueMode) {
+        if(ribbonData.isInDialogueMode && !hierarchyDeferred) {
             setRibbonBorderRadius();
         }
         return this;
@@ -1432,9 +2163,11 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     private ProgressRibbon setRibbonBorderRadius(){
-        if(ribbonData.isInDialogueMode){
-            GradientDrawable bg = (GradientDrawable) ribbonContainer.getBackground();
-            bg.setCornerRadius(ribbonData.ribbonBorderRadius);
+        if(ribbonCanvas!=null){
+            //The canvas clips nothing, it just draws the rounded corners
+            ribbonCanvas.setCornerRadius(ribbonData.isInDialogueMode ? ribbonData.ribbonBorderRadius : 0.0f);
+        } else if(ribbonData.isInDialogueMode){
+            updateRibbonBackground();
 
             /**
              * On pre-Lollipop devices too big radius can cause overlap with bar style view, a larger top padding is advisable
@@ -1459,24 +2192,27 @@ public class ProgressRibbon extends FrameLayout {
     private ProgressRibbon setRibbonBorders(){
 
         int ribbonSidePadding=0;
-        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) ribbonContainer.getLayoutParams();
+        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) ribbonSurface.getLayoutParams();
+
+        if(ribbonCanvas!=null){
+            //No drawables here, the canvas draws both kinds of background by itself, as long as it has none set
+            ribbonCanvas.setBackground(null);
+            ribbonCanvas.setDialogueMode(ribbonData.isInDialogueMode);
+        }
 
         if(ribbonData.isInDialogueMode){
-            GradientDrawable bg = (GradientDrawable) ContextCompat.getDrawable(getContext(), R.drawable.ribbon_dialogue_bg);
-            ribbonContainer.setBackground(bg);
             int sideMargin=(int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16, getResources().getDisplayMetrics());
             params.leftMargin=sideMargin;
             params.rightMargin=sideMargin;
             ribbonSidePadding=ribbonData.ribbonBorderSize;
-            ribbonContainer.invalidate();
+            ribbonSurface.invalidate();
         } else {
-            LayerDrawable bg= (LayerDrawable) ContextCompat.getDrawable(getContext(), R.drawable.ribbon_default_bg);
-            ribbonContainer.setBackground(bg);
             params.leftMargin=0;
             params.rightMargin=0;
         }
 
-        ribbonContainer.setPadding(ribbonSidePadding, ribbonContainer.getPaddingTop(), ribbonSidePadding, ribbonContainer.getPaddingBottom());
+        ribbonSurface.setPadding(ribbonSidePadding, ribbonSurface.getPaddingTop(), ribbonSidePadding, ribbonSurface.getPaddingBottom());
+        //In compound mode, this puts the (cached) background for the mode on, the rest only does something if the looks changed
         setBorderColor(ribbonData.ribbonBorderColor);
         setRibbonBackgroundColor();
         setRibbonBorderSize();
@@ -1495,10 +2231,14 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     public ProgressRibbon setRibbonTransparent(){
-
         ribbonData.ribbonBorderColor = Color.TRANSPARENT;
         ribbonData.backgroundColor = Color.TRANSPARENT;
 
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
+
         return setRibbonBorders();
     }
 
@@ -1518,6 +2258,11 @@ public class ProgressRibbon extends FrameLayout {
     public ProgressRibbon setRibbonBorderless(){
         ribbonData.ribbonBorderSize=0;
 
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
+
         return setRibbonBorderSize();
     }
 
@@ -1538,7 +2283,16 @@ public class ProgressRibbon extends FrameLayout {
      */
     public ProgressRibbon setProgressTextColour(@ColorInt int color){
         ribbonData.progressTextColor = color;
-        progressTextView.setTextColor(color);
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
+
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setTextColor(color);
+        } else {
+            progressTextView.setTextColor(color);
+        }
         return this;
     }
 
@@ -1562,9 +2316,7 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     public ProgressRibbon setProgressTextSize(int textSize){
-        ribbonData.progressTextSize = Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, textSize, getResources().getDisplayMetrics()));
-        progressTextView.setTextSize(TypedValue.COMPLEX_UNIT_SP, textSize);
-        return this;
+        return setProgressTextSize(TypedValue.COMPLEX_UNIT_SP, textSize);
     }
 
     /**
@@ -1583,8 +2335,19 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     public ProgressRibbon setProgressTextSize(@ValidSizeUnit int unit, float textSize){
-        progressTextView.setTextSize(unit, textSize);
-        ribbonData.progressTextSize=Math.round(progressTextView.getTextSize());
+        if(hierarchyDeferred){
+            //The same px value the views would end up with, applied when they are built
+            ribbonData.progressTextSize=Math.round(TypedValue.applyDimension(unit, textSize, getResources().getDisplayMetrics()));
+            return this;
+        }
+
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setTextSize(TypedValue.applyDimension(unit, textSize, getResources().getDisplayMetrics()));
+            ribbonData.progressTextSize=Math.round(ribbonCanvas.getTextSize());
+        } else {
+            progressTextView.setTextSize(unit, textSize);
+            ribbonData.progressTextSize = Math.round(progressTextView.getTextSize());
+        }
         return this;
     }
 
@@ -1624,14 +2387,12 @@ public class ProgressRibbon extends FrameLayout {
      */
     private ProgressRibbon setFrozenState(@ProgressFrozen int frozenState){
         this.isProgressFrozen = (frozenState>0);
-        if(ribbonStateChangeListener !=null) {
-            if (isProgressFrozen) {
-                if (ribbonData.progress < ribbonData.max) {
-                    ribbonStateChangeListener.onRibbonProgressStopped(ribbonData.progress);
-                }
-            } else if (ribbonData.progress >= ribbonData.min) {
-                ribbonStateChangeListener.onRibbonProgressStarted(ribbonData.progress);
+        if (isProgressFrozen) {
+            if (ribbonData.progress < ribbonData.max) {
+                notifyProgressStopped(ribbonData.progress);
             }
+        } else if (ribbonData.progress >= ribbonData.min) {
+            notifyProgressStarted(ribbonData.progress);
         }
         return this;
     }
@@ -1664,6 +2425,7 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     public ProgressRibbon setProgressText(String progressText){
+        progressTextTemplate=null;
         return setText(progressText);
     }
 
@@ -1675,7 +2437,98 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     public ProgressRibbon setProgressText(@StringRes int resId){
-        return setText(getContext().getString(resId));
+        return setProgressText(getContext().getString(resId));
+    }
+
+    /**
+     * <p>Sets a template for the progress text, filled in with the current values whenever the displayed progress
+     * changes, e.g. <code>"{percent}% ({progress:MB} of {max:MB} MB)"</code>. Placeholders are <code>{percent}</code>,
+     * <code>{progress}</code>, <code>{max}</code>, <code>{rate}</code> (per second) and <code>{eta}</code>, and
+     * <code>{progress}</code>, <code>{max}</code> and <code>{rate}</code> can be shown in <code>KB</code>, <code>MB</code>
+     * or <code>GB</code> (see {@link ProgressTextTemplate}).</p>
+     * <br />
+     * <p>The pattern is parsed once, and the text is written into a reused char array, with the digits of the current
+     * locale, and handed to the {@link TextView} as it is, so a steady stream of progress updates makes no garbage, and
+     * nothing happens at all if the text comes out the same. Setting a plain progress text turns the template off.
+     * The template is not part of the saved state, so set it again when the {@link ProgressRibbon} is recreated.</p>
+     *
+     * @param pattern The template, or <code>null</code> to turn it off
+     * @return The {@link ProgressRibbon} object, for method chaining
+     * @throws IllegalArgumentException if there is something in the pattern that cannot be filled in
+     */
+    public ProgressRibbon setProgressTextTemplate(@Nullable String pattern){
+        if(pattern==null){
+            progressTextTemplate=null;
+        } else {
+            progressTextTemplate=new ProgressTextTemplate(pattern);
+            progressTextTemplateLocale=null;
+            renderProgressTextTemplate();
+        }
+        displayProgressText();
+        return this;
+    }
+
+    /**
+     * <p>Returns the pattern set through {@link ProgressRibbon#setProgressTextTemplate(String)}</p>
+     *
+     * @return The pattern, or <code>null</code> if the progress text is not templated
+     */
+    @Nullable
+    public String getProgressTextTemplate(){
+        return (progressTextTemplate==null) ? null : progressTextTemplate.getPattern();
+    }
+
+    /**
+     * <p>Fills in the template with the current values, and puts it on the views if the text changed</p>
+     */
+    private void renderProgressTextTemplate(){
+        ProgressTextTemplate template=progressTextTemplate;
+        if(template==null){
+            return;
+        }
+
+        Locale locale=getCurrentLocale();
+        if(locale!=progressTextTemplateLocale){
+            //Only looked up again when the configuration brings a new locale
+            progressTextTemplateLocale=locale;
+            DecimalFormatSymbols symbols=DecimalFormatSymbols.getInstance(locale);
+            template.setDigits(symbols.getZeroDigit(), symbols.getDecimalSeparator());
+        }
+
+        if(template.update(displayedProgress, ribbonData.min, ribbonData.max, progressRateEstimator.getRate(),
+                progressRateEstimator.getRemainingMillis(ribbonData.max))){
+            pushTemplateText(template);
+        }
+    }
+
+    /**
+     * <p>Hands the template's chars to the views. No {@link String}, and no invalidation of the whole
+     * {@link ProgressRibbon}, the text view takes care of itself</p>
+     *
+     * @param template The template to show
+     */
+    private void pushTemplateText(ProgressTextTemplate template){
+        if(hierarchyDeferred){
+            return;
+        }
+
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setText(template.getChars(), 0, template.getLength());
+        } else {
+            progressTextView.setText(template.getChars(), 0, template.getLength());
+        }
+    }
+
+    /**
+     * @return The primary locale of the current configuration. Does not allocate
+     */
+    @SuppressWarnings("deprecation")
+    private Locale getCurrentLocale(){
+        Configuration configuration=getResources().getConfiguration();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N){
+            return configuration.getLocales().get(0);
+        }
+        return configuration.locale;
     }
 
     /**
@@ -1689,17 +2542,77 @@ public class ProgressRibbon extends FrameLayout {
      */
     private ProgressRibbon setText(String text){
         progressText=text;
-        progressTextView.setText(progressText);
-        invalidate();
+        displayProgressText();
         return this;
     }
 
+    /**
+     * <p>Puts {@link ProgressRibbon#progressText} on the views, followed by the remaining time, if that is to be shown</p>
+     */
+    private void displayProgressText(){
+        if(hierarchyDeferred){
+            //It's put on the views when they're built
+            return;
+        }
+
+        if(progressTextTemplate!=null){
+            pushTemplateText(progressTextTemplate);
+            return;
+        }
+
+        String text=progressText;
+
+        if(showRemainingTime && shownRemainingSeconds>=0){
+            progressTextBuilder.setLength(0);
+            if(text!=null && text.length()>0){
+                progressTextBuilder.append(text).append(" \u00b7 ");
+            }
+            appendDuration(progressTextBuilder, shownRemainingSeconds);
+            text=progressTextBuilder.toString();
+        }
+
+        if(ribbonCanvas!=null){
+            //Only asks for a new layout pass if the text's height changes
+            ribbonCanvas.setText(text);
+        } else {
+            progressTextView.setText(text);
+            invalidate();
+        }
+    }
+
+    /**
+     * <p>Appends a duration as <code>m:ss</code>, or <code>h:mm:ss</code> from an hour up</p>
+     *
+     * @param builder Where to append it
+     * @param totalSeconds The duration in seconds
+     */
+    private static void appendDuration(StringBuilder builder, long totalSeconds){
+        long hours=totalSeconds/3600;
+        long minutes=(totalSeconds/60)%60;
+        long seconds=totalSeconds%60;
+
+        if(hours>0){
+            builder.append(hours).append(':');
+            if(minutes<10){
+                builder.append('0');
+            }
+        }
+        builder.append(minutes).append(':');
+        if(seconds<10){
+            builder.append('0');
+        }
+        builder.append(seconds);
+    }
+
     /**
      * <p>Get the currently set progress text from the {@link ProgressRibbon} as a {@link String} </p>
      *
      * @return the progress text from underneath the {@link ProgressBar} as a {@link String}
      */
     public String getProgressText(){
+        if(progressTextTemplate!=null){
+            return progressTextTemplate.toString();
+        }
         return progressText;
     }
 
@@ -1740,6 +2653,13 @@ public class ProgressRibbon extends FrameLayout {
                     WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
                     PixelFormat.TRANSLUCENT);
 
+            if(windowCollapsed){
+                //A hidden persistent window stays out of the way, the new height only applies once shown again
+                collapsedWindowHeight=params.height;
+                params.height=0;
+                params.flags|=WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+            }
+
             if(getWindowToken() != null) {
                 activity.getWindowManager().updateViewLayout(this, params);
             } else {
@@ -1759,6 +2679,43 @@ public class ProgressRibbon extends FrameLayout {
         return ribbonData.blocksUnderlying;
     }
 
+    /**
+     * <p>Only for orphan {@link ProgressRibbon}s (attached to the window, with no parent {@link ViewGroup}). Normally, the
+     * window is removed and added again every time the ribbon shows, which means a round trip to the window manager, and a brand new
+     * surface every time. When set to true, the window stays attached after the first show, and hiding just makes it invisible,
+     * zero height and untouchable (with {@link WindowManager.LayoutParams#FLAG_NOT_TOUCHABLE}), which is a lot cheaper for ribbons that show up
+     * many times.</p>
+     * <br />
+     * <p>The window only goes away with {@link ProgressRibbon#removeDynamicRibbon()}, so make sure to call that at the latest when the {@link Activity}
+     * is destroyed, or it will be leaked</p>
+     *
+     * @param keepWindowAttached Whether to keep the window between shows
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setKeepWindowAttached(boolean keepWindowAttached){
+        ribbonData.keepWindowAttached=keepWindowAttached;
+
+        if(!keepWindowAttached){
+            if(windowCollapsed && getParent()!=null && !(getParent() instanceof ViewGroup)){
+                //Hidden right now, so the window has no reason to stay
+                activity.getWindowManager().removeViewImmediate(this);
+            }
+            setOrphanWindowCollapsed(false);
+        } else if(!isShowing){
+            collapsePersistentWindow();
+        }
+        return this;
+    }
+
+    /**
+     * <p>Check whether an orphan {@link ProgressRibbon} keeps its window between shows</p>
+     *
+     * @return Whether the window is kept attached between shows
+     */
+    public boolean willKeepWindowAttached(){
+        return ribbonData.keepWindowAttached;
+    }
+
 
     /**
      * <p>This one will summon the dark... Oh wait that's not it This one will, your guess was right, set the Ribbons elevation. Magic.</p>
@@ -1795,236 +2752,713 @@ public class ProgressRibbon extends FrameLayout {
      * @return The {@link ProgressRibbon} object, for method chaining
      */
     private ProgressRibbon setRibbonElevationInternal(@FloatRange(from = 0) float elevation){
-
         ribbonData.ribbonElevation=elevation;
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
 
+        applyRibbonElevation();
+
+        requestLayout();
+        return this;
+    }
+
+    /**
+     * <p>Puts the elevation from {@link RibbonData} on the visible part, whatever the SDK version</p>
+     */
+    private void applyRibbonElevation(){
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            ribbonContainer.setElevation(ribbonData.ribbonElevation);
+            ribbonSurface.setElevation(ribbonData.ribbonElevation);
         } else {
-            ViewCompat.setElevation(ribbonContainer, ribbonData.ribbonElevation);
+            ViewCompat.setElevation(ribbonSurface, ribbonData.ribbonElevation);
         }
+    }
 
-        requestLayout();
+
+    /**
+     * <p>Gets the currently set elevation of the {@link ProgressRibbon}</p>
+     *
+     * @return the elevation
+     */
+    @Override
+    public float getElevation() {
+        return ribbonData.ribbonElevation;
+    }
+
+    /**
+     * Simmply read  the default layout configuration from the system. and
+     * @return the default layout configuration from the system.
+     */
+    private int getConfigLayoutDirection(){
+        final Configuration config = getResources().getConfiguration();
+        return config.getLayoutDirection();
+    }
+
+    /**
+     * <p>Sets the layout direction same as with every wiew, {@link View#LAYOUT_DIRECTION_LTR}, {@link View#LAYOUT_DIRECTION_RTL},
+     * {@link View#LAYOUT_DIRECTION_INHERIT}, or {@link View#LAYOUT_DIRECTION_LOCALE}. In the latter two
+     * cases it works differently, as it will not really traverse the view-tree to find one that is explicitly set
+     * (as in {@link View#LAYOUT_DIRECTION_INHERIT}), but checks the layout direction in the configuraton (i.e. what is the basic system setting), and apply
+     * it to the view. This breaks proper inheritence, but since we are not necessarily attached yet, and needed a sane default, it's what it is for now.</p>
+     *
+     * @param layoutDirection the layout direction. Only {@link View#LAYOUT_DIRECTION_LTR} and {@link View#LAYOUT_DIRECTION_RTL} do anything meaningful for now
+     */
+    @Override
+    public void setLayoutDirection(int layoutDirection) {
+        //ToDo this needs attention
+        super.setLayoutDirection(layoutDirection);
+
+        if(layoutDirection==LAYOUT_DIRECTION_INHERIT || layoutDirection==LAYOUT_DIRECTION_LOCALE){
+            layoutDirection = getConfigLayoutDirection();
+        }
+
+        layoutIsRTL=(layoutDirection==LAYOUT_DIRECTION_RTL);
+        int childLayoutDirection=layoutIsRTL ? LAYOUT_DIRECTION_RTL : LAYOUT_DIRECTION_LTR;
+
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setLayoutDirection(childLayoutDirection);
+        } else if(!hierarchyDeferred) {
+            applyProgressBarLayoutDirection();
+            progressTextView.setLayoutDirection(childLayoutDirection);
+        }
+    }
+
+    /**
+     * <p>Shortcut that tells you whether the layout of the ribbon is set to RTL in a convenient boolean format</p>
+     * @return <code>true</code> layout is {@link View#LAYOUT_DIRECTION_RTL}, false otherwise
+     */
+    public boolean getLayoutIsRTL(){
+        return layoutIsRTL;
+
+    }
+
+    /**
+     * <p>Sets the {@link RibbonData#min} value of the Ribbon in an SDK independent manner, that also shows
+     * on the {@link ProgressBar}'s status.</p>
+     * <br />
+     * <p>{@link ProgressBar#setMin(int)} can only be used from upwards of SDK{@value Build.VERSION_CODES#O},
+     * <em>and</em> in a not very sensible manner either (i.e. the bar gets a minimum value, but the progress
+     * drawable does not reflect this value).</p>
+     * <br />
+     * <p>In {@link ProgressRibbon}, the {@link RibbonData#min} value gets applied to the {@link ProgressBar}'s {@klink Drawable} as well.
+     * Progress will start from the visually represented {@link RibbonData#min}, instead of starting from an empty bar.)
+     * Any progress applied to the {@link ProgressRibbon} that is below {@link RibbonData#min}, will be ignored.</p>
+     *
+     * @param min the minimum value for the determinate {@link ProgressRibbon}
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setMin(@IntRange(from=0) int min){
+        return setMin((long) min);
+    }
+
+    /**
+     * <p>Same as {@link ProgressRibbon#setMin(int)}, but takes a long, for progress counted in big numbers (like bytes)</p>
+     *
+     * @param min the minimum value for the determinate {@link ProgressRibbon}
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setMin(@IntRange(from=0) long min){
+        postedProgress.set(NO_POSTED_PROGRESS);
+        appliedPostedProgress=NO_POSTED_PROGRESS;
+        ribbonData.min=min;
+        ribbonData.progress=min;
+        setBarProgress(min, false);
         return this;
     }
 
+    /**
+     * <p>Returns the current value of the {@link ProgressRibbon} minimum value</p>
+     * <br />
+     * <p>Values that do not fit in an int are clamped, use {@link ProgressRibbon#getMinLong()} for those</p>
+     *
+     * @return the current value of min
+     */
+    public int getMin(){
+        return ProgressMath.clampToInt(ribbonData.min);
+    }
+
+    /**
+     * <p>Returns the current value of the {@link ProgressRibbon} minimum value as a long</p>
+     *
+     * @return the current value of min
+     */
+    public long getMinLong(){
+        return ribbonData.min;
+    }
+
+    /**
+     * <p>Sets the maximum value of the {@link ProgressRibbon} (in determinate mode). Works the same as
+     * {@link ProgressBar#setMax(int)}</p>
+     *
+     * @param max the maximum value of the {@link ProgressRibbon} in determinate mode
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setMax(@IntRange(from=0)int max){
+        return setMax((long) max);
+    }
+
+    /**
+     * <p>Same as {@link ProgressRibbon#setMax(int)}, but takes a long, so e.g. the size of a download can be
+     * set in bytes, without dividing it first</p>
+     *
+     * @param max the maximum value of the {@link ProgressRibbon} in determinate mode
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setMax(@IntRange(from=0) long max){
+        applyRange(ribbonData.min, max);
+        return this;
+    }
+
+    /**
+     * <p>Internal method to put a new range on the bar, leaving {@link RibbonData#progress} and any posted progress
+     * alone. Max can't be less than min, it's bumped up to it if it is.</p>
+     *
+     * @param min The new {@link RibbonData#min}
+     * @param max The new {@link RibbonData#max}
+     */
+    private void applyRange(long min, long max){
+        ribbonData.min=min;
+
+        if(max>=min) {
+            ribbonData.max = max;
+        } else {
+            ribbonData.max=min;
+        }
+
+        //The bar's own range never changes, but what's on it has to be rescaled
+        setBarProgress(displayedProgress, false);
+        if(!isProgressFrozen){
+            setBarSecondaryProgress();
+        }
+    }
+
+    /**
+     * <p>Returns the maximum value of a determinate {@link ProgressRibbon} as an int</p>
+     * <br />
+     * <p>Values that do not fit in an int are clamped, use {@link ProgressRibbon#getMaxLong()} for those</p>
+     *
+     * @return The maximum value of a determinate {@link ProgressRibbon} as an int
+     */
+    public int getMax(){
+        return ProgressMath.clampToInt(ribbonData.max);
+    }
+
+    /**
+     * <p>Returns the maximum value of a determinate {@link ProgressRibbon} as a long</p>
+     *
+     * @return The maximum value of a determinate {@link ProgressRibbon} as a long
+     */
+    public long getMaxLong(){
+        return ribbonData.max;
+    }
+
+    /**
+     * <p>Internal method to put a progress value on the {@link ProgressBar}, scaled to its internal
+     * {@link ProgressRibbon#PROGRESS_BAR_RESOLUTION}. As before, the bar itself spans <code>0..max</code>, so
+     * {@link RibbonData#min} shows up as a partially filled bar.</p>
+     *
+     * @param progress the raw progress value
+     * @param animate whether to animate the change (only possible from SDK{@value Build.VERSION_CODES#N})
+     */
+    private void setBarProgress(long progress, boolean animate){
+        displayedProgress=progress;
+        if(hierarchyDeferred){
+            return;
+        }
+
+        int level=ProgressMath.scale(progress, 0, ribbonData.max, PROGRESS_BAR_RESOLUTION);
+
+        if(ribbonCanvas!=null){
+            //A plain invalidate, the canvas does not need measuring for this
+            ribbonCanvas.setProgressLevel(level);
+        } else if (animate && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            progressBar.setProgress(level, true);
+        } else {
+            progressBar.setProgress(level);
+        }
+
+        renderProgressTextTemplate();
+    }
+
+    /**
+     * <p>Sets the progress of the determinate {@link ProgressBar} to the specified value.</p>
+     * <br />
+     * <p>It will check if the progress exceeds {@link RibbonData#min} and sets the progress value it does.
+     * (If the progress value is below the minimum,it will be ignored.) It will then check if the progress
+     * is frozen before visually the value to the widget too.</p>
+     * <br />
+     * <p>Also calls the appropriate listeners, if they exist.</p>
+     * <br />
+     * <p>Must be called from the UI thread. From any other thread, use {@link ProgressRibbon#postProgress(int)} instead.
+     * Any value posted earlier will be discarded.</p>
+     *
+     * @param progress the int value to set as progress
+     */
+    public void setProgress(@IntRange(from=0) int progress){
+        setProgress((long) progress);
+    }
+
+    /**
+     * <p>Same as {@link ProgressRibbon#setProgress(int)}, but takes a long, so raw byte counters can be fed in
+     * as they are. The value is scaled onto the {@link ProgressBar} internally.</p>
+     *
+     * @param progress the long value to set as progress
+     */
+    public void setProgress(@IntRange(from=0) long progress){
+        postedProgress.set(NO_POSTED_PROGRESS);
+        appliedPostedProgress=NO_POSTED_PROGRESS;
+        applyProgress(progress);
+    }
+
+    /**
+     * <p>Internal method that actually applies the progress, either set directly or posted from another thread</p>
+     *
+     * @param progress the long value to set as progress
+     */
+    private void applyProgress(long progress){
+
+        //Before the bar moves, so a progress text template gets the latest rate
+        updateProgressRate(Math.max(progress, ribbonData.min));
+
+        if(progress==ribbonData.min){
+            notifyProgressStarted(progress);
+        }
+
+        if(progress>ribbonData.min) {
+            ribbonData.progress = progress;
+
+            if(!isProgressFrozen) {
+
+                //Make it look nice if the device is new enough
+                setBarProgress(progress, true);
+
+                notifyProgressChange(ribbonData.progress);
+            }
+
+        } else {
+            ribbonData.progress = ribbonData.min;
+            setBarProgress(ribbonData.progress, false);
+        }
+
+        if(ribbonData.progress==ribbonData.max){
+            notifyProgressStopped(ribbonData.progress);
+        }
+    }
+
+
+    /**
+     * <p>Set the seconrady progress for the {@link ProgressRibbon},</p>
+     * <br />
+     * <p>Must be called from the UI thread. From any other thread, use {@link ProgressRibbon#postSecondaryProgress(int)} instead.</p>
+     *
+     * @param secondaryProgress the secondary progress value as an int
+     */
+    public void setSecondaryProgress(@IntRange(from=0) int secondaryProgress){
+        setSecondaryProgress((long) secondaryProgress);
+    }
+
+    /**
+     * <p>Same as {@link ProgressRibbon#setSecondaryProgress(int)}, but takes a long</p>
+     *
+     * @param secondaryProgress the secondary progress value as a long
+     */
+    public void setSecondaryProgress(@IntRange(from=0) long secondaryProgress){
+        postedSecondaryProgress.set(NO_POSTED_PROGRESS);
+        appliedPostedSecondaryProgress=NO_POSTED_PROGRESS;
+        applySecondaryProgress(secondaryProgress);
+    }
+
+    /**
+     * <p>Internal method that actually applies the secondary progress, either set directly or posted from another thread</p>
+     *
+     * @param secondaryProgress the secondary progress value as a long
+     */
+    private void applySecondaryProgress(long secondaryProgress){
+
+        if (secondaryProgress > ribbonData.min) {
+            ribbonData.secondaryProgress = secondaryProgress;
+        } else {
+            ribbonData.secondaryProgress = ribbonData.min;
+        }
+
+        if (!isProgressFrozen) {
+            setBarSecondaryProgress();
+        }
+    }
+
+    /**
+     * <p>Internal method to put {@link RibbonData#secondaryProgress} on the {@link ProgressBar}, scaled to
+     * its internal range</p>
+     */
+    private void setBarSecondaryProgress(){
+        if(hierarchyDeferred){
+            return;
+        }
+
+        if(ribbonCanvas!=null){
+            //Same scaling as below, for both bar types
+            if (ribbonData.progressBarStyle == BAR_HORIZONTAL) {
+                ribbonCanvas.setSecondaryProgressLevel(ProgressMath.scale(ribbonData.secondaryProgress, 0, ribbonData.max, PROGRESS_BAR_RESOLUTION));
+            } else {
+                ribbonCanvas.setSecondaryProgressLevel(ProgressMath.scale(ribbonData.secondaryProgress, ribbonData.min, ribbonData.max, MAX_LEVEL));
+            }
+        } else if (ribbonData.progressBarStyle == BAR_HORIZONTAL) {
+            progressBar.setSecondaryProgress(ProgressMath.scale(ribbonData.secondaryProgress, 0, ribbonData.max, PROGRESS_BAR_RESOLUTION));
+
+        } else {
+            /**
+             * The {@link ProgressRibbon} class does not know about our special {@link Drawable}
+             * and will not recognise the levels set in it even with the right ids, so we need
+             * to get creative here
+             */
+            updateCircularSecondaryProgress();
+        }
+    }
+
+    /**
+     * <p>This internal method will correctly apply the secondary progress to our special round drawable</p>
+     */
+    private synchronized void updateCircularSecondaryProgress(){
+        Drawable d = progressBar.getProgressDrawable();
+
+        if (d instanceof LayerDrawable) {
+            d = ((LayerDrawable) d).findDrawableByLayerId(R.id.secondaryProgress);
+        }
+
+        if (d != null) {
+            d.setLevel(ProgressMath.scale(ribbonData.secondaryProgress, ribbonData.min, ribbonData.max, MAX_LEVEL));
+        } else {
+            invalidate();
+        }
+
+    }
+
+    /**
+     * <p>Thread-safe version of {@link ProgressRibbon#setProgress(int)}. It can be called from any thread, as often as you like.</p>
+     * <br />
+     * <p>Nothing is applied right away. Only the latest value is kept, and it gets applied on the UI thread
+     * once per frame at most, so hammering this from a worker does not flood the main looper. Posted values
+     * can only move the progress forward, so updates arriving out of order (e.g. from a thread pool) will
+     * never make the bar jump backwards. Calling {@link ProgressRibbon#setProgress(int)} or {@link ProgressRibbon#setMin(int)}
+     * starts over.</p>
+     *
+     * @param progress the int value to set as progress
+     */
+    public void postProgress(@IntRange(from=0) int progress){
+        postProgress((long) progress);
+    }
+
+    /**
+     * <p>Same as {@link ProgressRibbon#postProgress(int)}, but takes a long</p>
+     *
+     * @param progress the long value to set as progress
+     */
+    public void postProgress(@IntRange(from=0) long progress){
+        if(offerPostedValue(postedProgress, progress)){
+            requestProgressFrame();
+        }
+    }
+
+    /**
+     * <p>Thread-safe version of {@link ProgressRibbon#setSecondaryProgress(int)}. Works exactly like
+     * {@link ProgressRibbon#postProgress(int)}, but for the secondary progress</p>
+     *
+     * @param secondaryProgress the secondary progress value as an int
+     */
+    public void postSecondaryProgress(@IntRange(from=0) int secondaryProgress){
+        postSecondaryProgress((long) secondaryProgress);
+    }
 
     /**
-     * <p>Gets the currently set elevation of the {@link ProgressRibbon}</p>
+     * <p>Same as {@link ProgressRibbon#postSecondaryProgress(int)}, but takes a long</p>
      *
-     * @return the elevation
+     * @param secondaryProgress the secondary progress value as a long
      */
-    @Override
-    public float getElevation() {
-        return ribbonData.ribbonElevation;
+    public void postSecondaryProgress(@IntRange(from=0) long secondaryProgress){
+        if(offerPostedValue(postedSecondaryProgress, secondaryProgress)){
+            requestProgressFrame();
+        }
     }
 
     /**
-     * Simmply read  the default layout configuration from the system. and
-     * @return the default layout configuration from the system.
+     * <p>Thread-safe version of {@link ProgressRibbon#setProgressText(String)}. Only the latest text posted
+     * before the next frame will be shown</p>
+     *
+     * @param progressText The text {@link String} to be set
      */
-    private int getConfigLayoutDirection(){
-        final Configuration config = getResources().getConfiguration();
-        return config.getLayoutDirection();
+    public void postProgressText(String progressText){
+        postedProgressText.set(progressText==null ? "" : progressText);
+        requestProgressFrame();
     }
 
     /**
-     * <p>Sets the layout direction same as with every wiew, {@link View#LAYOUT_DIRECTION_LTR}, {@link View#LAYOUT_DIRECTION_RTL},
-     * {@link View#LAYOUT_DIRECTION_INHERIT}, or {@link View#LAYOUT_DIRECTION_LOCALE}. In the latter two
-     * cases it works differently, as it will not really traverse the view-tree to find one that is explicitly set
-     * (as in {@link View#LAYOUT_DIRECTION_INHERIT}), but checks the layout direction in the configuraton (i.e. what is the basic system setting), and apply
-     * it to the view. This breaks proper inheritence, but since we are not necessarily attached yet, and needed a sane default, it's what it is for now.</p>
+     * <p>Stores a posted value in its slot, unless a larger one is already in there</p>
      *
-     * @param layoutDirection the layout direction. Only {@link View#LAYOUT_DIRECTION_LTR} and {@link View#LAYOUT_DIRECTION_RTL} do anything meaningful for now
-     */
-    @Override
-    public void setLayoutDirection(int layoutDirection) {
-        //ToDo this needs attention
-        super.setLayoutDirection(layoutDirection);
+     * @param slot The slot to store the value in
+     * @param value The posted value
+     * @return <code>true</code> if the value was stored, <code>false</code> if it was stale
+     */
+    private static boolean offerPostedValue(AtomicLong slot, long value){
+        long current;
+        do {
+            current=slot.get();
+            if(value<=current){
+                return false;
+            }
+        } while(!slot.compareAndSet(current, value));
+        return true;
+    }
 
-        if(layoutDirection==LAYOUT_DIRECTION_INHERIT || layoutDirection==LAYOUT_DIRECTION_LOCALE){
-            layoutDirection = getConfigLayoutDirection();
-        }
+    /**
+     * <p>Makes sure the posted values get applied on the next frame. Only one frame callback is ever queued</p>
+     */
+    private void requestProgressFrame(){
+        if(progressFrameRequested.compareAndSet(false, true)){
+            Choreographer uiChoreographer=choreographer;
 
-        if(layoutDirection==LAYOUT_DIRECTION_RTL){
-            layoutIsRTL=true;
-            progressBar.setLayoutDirection(LAYOUT_DIRECTION_RTL);
-            progressTextView.setLayoutDirection(LAYOUT_DIRECTION_RTL);
-        } else {
-            layoutIsRTL=false;
-            progressBar.setLayoutDirection(LAYOUT_DIRECTION_LTR);
-            progressTextView.setLayoutDirection(LAYOUT_DIRECTION_LTR);
+            if(uiChoreographer!=null){
+                uiChoreographer.postFrameCallback(progressFrameCallback);
+            } else {
+                showHideHandler.post(progressFrameOnUiThread);
+            }
         }
     }
 
     /**
-     * <p>Shortcut that tells you whether the layout of the ribbon is set to RTL in a convenient boolean format</p>
-     * @return <code>true</code> layout is {@link View#LAYOUT_DIRECTION_RTL}, false otherwise
+     * <p>Applies the values posted since the last frame, if there were any. Always runs on the UI thread</p>
      */
-    public boolean getLayoutIsRTL(){
-        return layoutIsRTL;
+    private void applyPostedProgress(){
+        long progress=postedProgress.get();
+        if(progress!=NO_POSTED_PROGRESS && progress!=appliedPostedProgress){
+            appliedPostedProgress=progress;
+            applyProgress(progress);
+        }
 
+        long secondaryProgress=postedSecondaryProgress.get();
+        if(secondaryProgress!=NO_POSTED_PROGRESS && secondaryProgress!=appliedPostedSecondaryProgress){
+            appliedPostedSecondaryProgress=secondaryProgress;
+            applySecondaryProgress(secondaryProgress);
+        }
+
+        String text=postedProgressText.getAndSet(null);
+        if(text!=null){
+            setProgressText(text);
+        }
     }
 
     /**
-     * <p>Sets the {@link RibbonData#min} value of the Ribbon in an SDK independent manner, that also shows
-     * on the {@link ProgressBar}'s status.</p>
-     * <br />
-     * <p>{@link ProgressBar#setMin(int)} can only be used from upwards of SDK{@value Build.VERSION_CODES#O},
-     * <em>and</em> in a not very sensible manner either (i.e. the bar gets a minimum value, but the progress
-     * drawable does not reflect this value).</p>
+     * <p>Sets a {@link ProgressAccumulator} that any number of threads can increment in parallel. While the
+     * {@link ProgressRibbon} is showing, the accumulated sum is read once per frame, added to the progress value
+     * the {@link ProgressRibbon} had when the accumulator was set, and applied as progress.</p>
      * <br />
-     * <p>In {@link ProgressRibbon}, the {@link RibbonData#min} value gets applied to the {@link ProgressBar}'s {@klink Drawable} as well.
-     * Progress will start from the visually represented {@link RibbonData#min}, instead of starting from an empty bar.)
-     * Any progress applied to the {@link ProgressRibbon} that is below {@link RibbonData#min}, will be ignored.</p>
+     * <p>Pass <code>null</code> to stop following the accumulator. Setting one stops following any
+     * {@link ProgressSource} set through {@link ProgressRibbon#setProgressSource(ProgressSource)}</p>
      *
-     * @param min the minimum value for the determinate {@link ProgressRibbon}
+     * @param accumulator The {@link ProgressAccumulator} to follow, or <code>null</code>
      * @return The {@link ProgressRibbon} object, for method chaining
      */
-    public ProgressRibbon setMin(@IntRange(from=0) int min){
-        ribbonData.min=min;
-        ribbonData.progress=min;
-        progressBar.setProgress(min);
+    public ProgressRibbon setProgressAccumulator(@Nullable ProgressAccumulator accumulator){
+        progressAccumulator=accumulator;
+        progressAccumulatorBaseline=ribbonData.progress;
+        if(accumulator!=null){
+            progressSource=null;
+        }
+        requestProgressSampling();
         return this;
     }
 
     /**
-     * <p>Returns the current value of the {@link ProgressRibbon} minimum value</p>
+     * <p>Creates a new {@link ProgressAccumulator}, and sets it on the {@link ProgressRibbon} straight away</p>
      *
-     * @return the current value of min
+     * @return The new {@link ProgressAccumulator}, ready to be handed out to the worker threads
      */
-    public int getMin(){
-        return ribbonData.min;
+    public ProgressAccumulator newProgressAccumulator(){
+        ProgressAccumulator accumulator=new ProgressAccumulator();
+        setProgressAccumulator(accumulator);
+        return accumulator;
     }
 
     /**
-     * <p>Sets the maximum value of the {@link ProgressRibbon} (in determinate mode). Works the same as
-     * {@link ProgressBar#setMax(int)}</p>
+     * <p>Returns the {@link ProgressAccumulator} currently followed, if there is any</p>
      *
-     * @param max the maximum value of the {@link ProgressRibbon} in determinate mode
+     * @return The {@link ProgressAccumulator}, or <code>null</code>
+     */
+    @Nullable
+    public ProgressAccumulator getProgressAccumulator(){
+        return progressAccumulator;
+    }
+
+    /**
+     * <p>Sets a {@link ProgressSource} to follow, typically a {@link ProgressAggregator} combining the progress of many
+     * tasks, or a {@link ProgressNode} (the root of a tree of nested phases, or any subtree of it). While the
+     * {@link ProgressRibbon} is showing, the source is read once per frame, and its fraction is mapped onto the min..max
+     * range of the {@link ProgressRibbon}, so the range does not have to match the work in any way. The bar is only
+     * touched when the mapped value actually changes.</p>
+     * <br />
+     * <p>Pass <code>null</code> to stop following the source. Setting one stops following any
+     * {@link ProgressAccumulator} set through {@link ProgressRibbon#setProgressAccumulator(ProgressAccumulator)}</p>
+     *
+     * @param source The {@link ProgressSource} to follow, or <code>null</code>
      * @return The {@link ProgressRibbon} object, for method chaining
      */
-    public ProgressRibbon setMax(@IntRange(from=0)int max){
-        if(max>=ribbonData.min) {
-            ribbonData.max = max;
-        } else {
-            ribbonData.max=ribbonData.min;
+    public ProgressRibbon setProgressSource(@Nullable ProgressSource source){
+        progressSource=source;
+        if(source!=null){
+            progressAccumulator=null;
         }
-        progressBar.setMax(ribbonData.max);
+        requestProgressSampling();
         return this;
     }
 
     /**
-     * <p>Returns the maximum value of a determinate {@link ProgressRibbon} as an int</p>
+     * <p>Creates a new {@link ProgressAggregator}, and sets it on the {@link ProgressRibbon} as its
+     * {@link ProgressSource} straight away</p>
      *
-     * @return The maximum value of a determinate {@link ProgressRibbon} as an int
+     * @return The new {@link ProgressAggregator}, ready for tasks to be added
      */
-    public int getMax(){
-        return ribbonData.max;
+    public ProgressAggregator newProgressAggregator(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        setProgressSource(aggregator);
+        return aggregator;
     }
 
     /**
-     * <p>Sets the progress of the determinate {@link ProgressBar} to the specified value.</p>
-     * <br />
-     * <p>It will check if the progress exceeds {@link RibbonData#min} and sets the progress value it does.
-     * (If the progress value is below the minimum,it will be ignored.) It will then check if the progress
-     * is frozen before visually the value to the widget too.</p>
-     * <br />
-     * <p>Also calls the appropriate listeners, if they exist.</p>
+     * <p>Returns the {@link ProgressSource} currently followed, if there is any</p>
      *
-     * @param progress the int value to set as progress
+     * @return The {@link ProgressSource}, or <code>null</code>
      */
-    public void setProgress(@IntRange(from=0) int progress){
+    @Nullable
+    public ProgressSource getProgressSource(){
+        return progressSource;
+    }
 
-        if(ribbonStateChangeListener !=null && (progress==ribbonData.min)){
-            ribbonStateChangeListener.onRibbonProgressStarted(progress);
+    /**
+     * <p>Feeds a new progress value to the rate estimate, and tells whoever is interested. Allocates nothing, unless
+     * the remaining time shown in the text changes, which is about once a second at most</p>
+     *
+     * @param progress The progress just applied
+     */
+    private void updateProgressRate(long progress){
+        if(!progressRateEstimator.update(progress, SystemClock.elapsedRealtimeNanos())){
+            return;
         }
 
-        if(progress>ribbonData.min) {
-            ribbonData.progress = progress;
-
-            if(!isProgressFrozen) {
-
-                //Make it look nice if the device is new enough
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                    progressBar.setProgress(progress, true);
-                } else {
-                    progressBar.setProgress(progress);
-                }
+        long remainingMillis=progressRateEstimator.getRemainingMillis(ribbonData.max);
 
-                if (ribbonStateChangeListener != null) {
-                    ribbonStateChangeListener.onRibbonProgressChange(ribbonData.progress);
-                }
+        if(progressRateEstimator.hasEstimate()){
+            if(onRibbonProgressRateListener!=null){
+                onRibbonProgressRateListener.onRibbonProgressRate(progressRateEstimator.getRate(), remainingMillis);
             }
-
-        } else {
-            ribbonData.progress = ribbonData.min;
-            progressBar.setProgress(ribbonData.progress);
+            progressRateListeners.dispatch(PROGRESS_RATE_EVENT, Double.doubleToRawLongBits(progressRateEstimator.getRate()), remainingMillis);
         }
 
-        if(ribbonStateChangeListener !=null  && ribbonData.progress==ribbonData.max){
-            ribbonStateChangeListener.onRibbonProgressStopped(ribbonData.progress);
+        if(showRemainingTime && progressTextTemplate==null){
+            //Rounded up, so it never says 0:00 while there's still something left
+            long seconds=remainingMillis==ProgressRateEstimator.UNKNOWN ? -1 : (remainingMillis+999)/1000;
+            if(seconds!=shownRemainingSeconds){
+                shownRemainingSeconds=seconds;
+                displayProgressText();
+            }
         }
     }
 
+    /**
+     * <p>Returns the estimated rate of progress, in progress units (whatever <code>setProgress()</code> counts in) per
+     * second. It's an exponentially weighted moving average, so it follows changes in speed without jumping around</p>
+     *
+     * @return The rate, or 0 if there's no estimate yet
+     */
+    public double getProgressRate(){
+        return progressRateEstimator.getRate();
+    }
 
     /**
-     * <p>Set the seconrady progress for the {@link ProgressRibbon},</p>
+     * <p>Returns the estimated time it takes to reach the max at the current rate</p>
      *
-     * @param secondaryProgress the secondary progress value as an int
+     * @return The remaining time in milliseconds, or {@link ProgressRateEstimator#UNKNOWN} if there's no telling yet
      */
-    public void setSecondaryProgress(@IntRange(from=0) int secondaryProgress){
+    public long getRemainingTime(){
+        return progressRateEstimator.getRemainingMillis(ribbonData.max);
+    }
 
-        if (secondaryProgress > ribbonData.min) {
-            ribbonData.secondaryProgress = secondaryProgress;
-        } else {
-            ribbonData.secondaryProgress = ribbonData.min;
+    /**
+     * <p>Sets how quickly the rate estimate follows changes in speed. Shorter is more responsive, longer is steadier.
+     * Default is {@value ProgressRateEstimator#DEFAULT_TIME_CONSTANT_MILLIS} milliseconds</p>
+     *
+     * @param timeConstantMillis Roughly how far back the average looks, in milliseconds
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setProgressRateTimeConstant(@IntRange(from=1) long timeConstantMillis){
+        progressRateEstimator.setTimeConstant(timeConstantMillis);
+        return this;
+    }
+
+    /**
+     * <p>Sets whether the estimated remaining time should be shown after the progress text (as <code>m:ss</code>).
+     * The text is only updated when the shown time changes, i.e. about once a second</p>
+     *
+     * @param showRemainingTime Whether to show the remaining time
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setShowRemainingTime(boolean showRemainingTime){
+        if(this.showRemainingTime!=showRemainingTime){
+            this.showRemainingTime=showRemainingTime;
+            shownRemainingSeconds=-1;
+            displayProgressText();
         }
+        return this;
+    }
 
-        if (!isProgressFrozen) {
-            if (ribbonData.progressBarStyle == BAR_HORIZONTAL) {
-                progressBar.setSecondaryProgress(ribbonData.secondaryProgress);
+    public boolean isShowingRemainingTime(){
+        return showRemainingTime;
+    }
 
-            } else {
-                /**
-                 * The {@link ProgressRibbon} class does not know about our special {@link Drawable}
-                 * and will not recognise the levels set in it even with the right ids, so we need
-                 * to get creative here
-                 */
-                updateCircularSecondaryProgress();
-            }
+    /**
+     * <p>Starts sampling on the next frame, if there is anything to sample and the {@link ProgressRibbon} is showing</p>
+     */
+    private void requestProgressSampling(){
+        if(isShowing && (progressAccumulator!=null || progressSource!=null)){
+            requestProgressFrame();
         }
     }
 
     /**
-     * <p>This internal method will correctly apply the secondary progress to our special round drawable</p>
+     * <p>Reads the {@link ProgressAccumulator} or {@link ProgressSource} (if any) and applies its value when it has changed.
+     * Keeps itself scheduled for the next frame for as long as the {@link ProgressRibbon} is showing</p>
      */
-    private synchronized void updateCircularSecondaryProgress(){
-        Drawable d = progressBar.getProgressDrawable();
-
-        int range = ribbonData.max - ribbonData.min;
-        final float scale = range > 0 ? (ribbonData.secondaryProgress - ribbonData.min) / (float) range : 0;
-
-        if (d instanceof LayerDrawable) {
-            d = ((LayerDrawable) d).findDrawableByLayerId(R.id.secondaryProgress);
+    private void sampleProgressSources(){
+        if(!isShowing){
+            return;
         }
 
-        if (d != null) {
-            final int level = (int) (scale * MAX_LEVEL);
-            d.setLevel(level);
+        long progress;
+        if(progressAccumulator!=null){
+            progress=progressAccumulatorBaseline+progressAccumulator.sum();
+        } else if(progressSource!=null){
+            progress=ProgressMath.fromBasisPoints(progressSource.getBasisPoints(), ribbonData.min, ribbonData.max);
         } else {
-            invalidate();
+            return;
         }
 
+        if(progress!=ribbonData.progress){
+            applyProgress(progress);
+        }
+
+        requestProgressFrame();
     }
 
     /**
      * <p>Same as {@link ProgressBar#incrementProgressBy(int)}  It will  increments progress by.</p>
+     * <br />
+     * <p>UI thread and single writer only. For many threads incrementing in parallel, use a {@link ProgressAccumulator}
+     * (see {@link ProgressRibbon#setProgressAccumulator(ProgressAccumulator)})</p>
      *
      * @param diff int to increment progress by
      */
     public void incrementProgressBy(@IntRange(from=0) int diff){
-        progressBar.incrementProgressBy(diff);
+        //The bar runs on its own scaled range, so this has to go through the ribbon's progress value
+        setProgress(ribbonData.progress+diff);
     }
 
     /**
@@ -2062,6 +3496,9 @@ public class ProgressRibbon extends FrameLayout {
      * its value as a percentage of the currently set {@link RibbonData#max} value (useful if other than 100), depending on
      * {@link RibbonData#reportProgressAsMaxPercent}</p>
      *
+     * <br />
+     * <p>Raw values that do not fit in an int are clamped, use {@link ProgressRibbon#getProgressLong()} for those</p>
+     *
      * @return Current progress value as int.
      */
     public int getProgress(){
@@ -2069,16 +3506,47 @@ public class ProgressRibbon extends FrameLayout {
         if(ribbonData.reportProgressAsMaxPercent){
             return getProgressPercentage();
         } else {
-            return progressBar.getProgress();
+            return ProgressMath.clampToInt(displayedProgress);
         }
     }
 
+    /**
+     * <p>Get the actual value of the currently displayed progress as a long, regardless of
+     * {@link RibbonData#reportProgressAsMaxPercent}</p>
+     *
+     * @return Current progress value as long.
+     */
+    public long getProgressLong(){
+        return displayedProgress;
+    }
+
+    /**
+     * <p>Get the currently displayed progress as a part of the <code>min..max</code> range, in basis points
+     * (hundredths of a percent, 0 to {@value ProgressMath#BASIS_POINTS}). Handy when whole percents are not precise enough</p>
+     *
+     * @return Current progress in basis points
+     */
+    public int getProgressBasisPoints(){
+        return ProgressMath.toBasisPoints(displayedProgress, ribbonData.min, ribbonData.max);
+    }
+
     /**
      * <p>Returns secondary progress value, if there is any</p>
+     * <br />
+     * <p>Values that do not fit in an int are clamped, use {@link ProgressRibbon#getSecondaryProgressLong()} for those</p>
      *
      * @return the secondary progress value as an integer
      */
     public int getSecondaryProgress(){
+        return ProgressMath.clampToInt(ribbonData.secondaryProgress);
+    }
+
+    /**
+     * <p>Returns secondary progress value as a long, if there is any</p>
+     *
+     * @return the secondary progress value as a long
+     */
+    public long getSecondaryProgressLong(){
         return ribbonData.secondaryProgress;
     }
 
@@ -2092,15 +3560,15 @@ public class ProgressRibbon extends FrameLayout {
     }
 
     /**
-     * <p>Internal method to calculate the progress value as a percentage of the {@link RibbonData#max} progress.</p>
+     * <p>Internal method to calculate the progress value as a percentage of the {@link RibbonData#min}..{@link RibbonData#max} range.</p>
      * <br />
      * <p>Useful, when maximum is set to anything other than 100, but an accurate percentage is still needed.
      * Needs {@link RibbonData#reportProgressAsMaxPercent} to be set to <code>true</code></p>
      *
-     * @return the calculated percentage of the current progress, in relation to the {@link RibbonData#max} value
+     * @return the calculated percentage of the current progress, in relation to the {@link RibbonData#min} and {@link RibbonData#max} values
      */
     private int getProgressPercentage(){
-        return (progressBar.getProgress()*100)/ribbonData.max;
+        return ProgressMath.toPercentage(displayedProgress, ribbonData.min, ribbonData.max);
     }
 
     /**
@@ -2158,6 +3626,32 @@ public class ProgressRibbon extends FrameLayout {
         return ribbonData.hideDelay;
     }
 
+    /**
+     * <p>Sets the minimum time (in milliseconds) the {@link ProgressRibbon} stays visible once it has been shown. Any
+     * {@link ProgressRibbon#hide()} arriving sooner than that will be postponed until the time is up, so that very quick tasks do not
+     * make the ribbon flash on and off (much like {@link androidx.core.widget.ContentLoadingProgressBar} does). The default is 0,
+     * i.e. no minimum.</p>
+     * <br />
+     * <p>{@link ProgressRibbon#hideNoDelay()} and {@link ProgressRibbon#removeDynamicRibbon()} ignore this</p>
+     *
+     * @param minimumShowTime minimum show time in milliseconds (int)
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setMinimumShowTime(@IntRange(from=0) int minimumShowTime) {
+        ribbonData.minimumShowTime = minimumShowTime;
+        showHideScheduler.setMinimumShowTime(minimumShowTime);
+        return this;
+    }
+
+    /**
+     * <p>Get the currently set minimum show time in milliseconds (int)</p>
+     *
+     * @return The currently set minimum show time in milliseconds, as an int
+     */
+    public int getMinimumShowTime(){
+        return ribbonData.minimumShowTime;
+    }
+
     /**
      * <p>Choose between circular and flat {@link ProgressBar}. Use static constants {@link ProgressRibbon#BAR_ROUND} ({@value ProgressRibbon#BAR_ROUND})
      * or {@link ProgressRibbon#BAR_HORIZONTAL} ({@value ProgressRibbon#BAR_HORIZONTAL}).
@@ -2168,7 +3662,9 @@ public class ProgressRibbon extends FrameLayout {
     public ProgressRibbon setProgressBarStyle(@ProgressStyle int style){
         if(style!=ribbonData.progressBarStyle) {
             ribbonData.progressBarStyle = style;
-            initProgressbar(ribbonData.progressBarStyle, ribbonData.isIndeterminate);
+            if(!hierarchyDeferred) {
+                initProgressbar(ribbonData.progressBarStyle, ribbonData.isIndeterminate);
+            }
         }
         return this;
     }
@@ -2185,6 +3681,87 @@ public class ProgressRibbon extends FrameLayout {
         return ribbonData.progressBarStyle;
     }
 
+    /**
+     * <p>Choose how the visible part of the {@link ProgressRibbon} is rendered. Use static constants {@link ProgressRibbon#RENDER_COMPOUND} ({@value ProgressRibbon#RENDER_COMPOUND})
+     * or {@link ProgressRibbon#RENDER_CANVAS} ({@value ProgressRibbon#RENDER_CANVAS}).</p>
+     * <br />
+     * <p>{@link ProgressRibbon#RENDER_COMPOUND} is the default, with a real {@link ProgressBar} and {@link TextView}
+     * inside a {@link LinearLayout}. {@link ProgressRibbon#RENDER_CANVAS} draws the same thing (background, borders, round or flat bar,
+     * secondary progress and text) in one single {@link View}, so there is far less to measure and lay out, and progress updates
+     * only ever redraw. The price is that {@link ProgressRibbon#getProgressbar()} and {@link ProgressRibbon#getProgressTextView()}
+     * return null, as there is nothing to return.</p>
+     * <br />
+     * <p>Can also be set from XML with the <code>renderMode</code> attribute. Switching recreates the visible part, so best do it right
+     * after creating the ribbon</p>
+     *
+     * @param renderMode int value of the render mode as either {@link ProgressRibbon#RENDER_COMPOUND} or {@link ProgressRibbon#RENDER_CANVAS}
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setRenderMode(@RenderMode int renderMode){
+        if(renderMode!=ribbonData.renderMode) {
+            ribbonData.renderMode = renderMode;
+
+            if(ribbonSurface!=null) {
+                rebuildRibbonHierarchy();
+                applyRibbonAttributes();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * <p>Applies a whole {@link RibbonStyle} in one go. Cheaper than calling the setters one by one, as the views only get
+     * set up once, and nothing needs to be parsed or converted. If the style has a different render mode, the visible part is
+     * recreated.</p>
+     * <br />
+     * <p>Progress and the other per-task values are left alone. So is the progress text, unless the style has one</p>
+     *
+     * @param style The style to apply
+     * @return The {@link ProgressRibbon} object, for method chaining
+     */
+    public ProgressRibbon setRibbonStyle(@NonNull RibbonStyle style){
+        copyRibbonStyle(style, false);
+
+        if(ribbonSurface!=null) {
+            if(ribbonData.renderMode!=getBuiltRenderMode()) {
+                rebuildRibbonHierarchy();
+            }
+            applyRibbonAttributes();
+        }
+        return this;
+    }
+
+    /**
+     * <p>Starts a batch of changes to the looks of the {@link ProgressRibbon}. The changes are collected, and only put on the
+     * views, all at once, by {@link Editor#apply()}. That's one new background, one padding change and at most one layout pass,
+     * however many things are changed, instead of one of each per setter. Good for restyling a ribbon that is already showing.</p>
+     *
+     * <pre>
+     *     ribbon.edit()
+     *         .setRibbonBorderColor(Color.RED)
+     *         .setRibbonBackgroundColor(Color.BLACK)
+     *         .setRibbonBorderSize(2)
+     *         .setRibbonPaddingTop(24)
+     *         .apply();
+     * </pre>
+     *
+     * @return A new {@link Editor}
+     */
+    public Editor edit(){
+        return new Editor();
+    }
+
+    /**
+     * <p>Get the current render mode as an int. Evaluate against static constants
+     * {@link ProgressRibbon#RENDER_COMPOUND} ({@value ProgressRibbon#RENDER_COMPOUND})
+     * or {@link ProgressRibbon#RENDER_CANVAS} ({@value ProgressRibbon#RENDER_CANVAS})</p>
+     *
+     * @return Current render mode as either {@link ProgressRibbon#RENDER_COMPOUND} or {@link ProgressRibbon#RENDER_CANVAS}
+     */
+    public int getRenderMode(){
+        return ribbonData.renderMode;
+    }
+
     /**
      * <p>When the progressbar style is set to {@link ProgressRibbon#BAR_ROUND} (see {@link ProgressRibbon#setProgressBarStyle(int)}),
      * the progress text can appear either besides or underneath the progress bar. Set to either
@@ -2199,6 +3776,17 @@ public class ProgressRibbon extends FrameLayout {
      */
     public ProgressRibbon setRibbonTextPosition(@TextPosition int textPosition){
         ribbonData.textBesideBar = (textPosition>0);
+        if(hierarchyDeferred){
+            //Applied along with everything else when the views are built
+            return this;
+        }
+
+        if(ribbonCanvas!=null){
+            ribbonData.textBesideBar = ribbonData.textBesideBar && ribbonData.progressBarStyle==BAR_ROUND;
+            ribbonCanvas.setTextBesideBar(ribbonData.textBesideBar);
+            return this;
+        }
+
         LinearLayout.LayoutParams barParams = (LinearLayout.LayoutParams) progressBar.getLayoutParams();
         int textPaddingTop, textPaddingEnd;
 
@@ -2243,14 +3831,15 @@ public class ProgressRibbon extends FrameLayout {
     public ProgressRibbon setIndeterminateState(@IndetermiateState int indeterminateState){
 
         ribbonData.isIndeterminate = (indeterminateState>0);
-        progressBar.setIndeterminate(ribbonData.isIndeterminate);
-
-        if(!ribbonData.isIndeterminate){
-            progressBar.setProgress(ribbonData.progress);
+        if(ribbonCanvas!=null){
+            ribbonCanvas.setIndeterminate(ribbonData.isIndeterminate);
+        } else if(!hierarchyDeferred) {
+            //The round style's spinner is just another drawable on the same bar, so nothing to recreate here
+            applyProgressBarStyle(ribbonData.progressBarStyle, ribbonData.isIndeterminate);
         }
 
-        if(ribbonData.progressBarStyle==BAR_ROUND){
-            initProgressbar(ribbonData.progressBarStyle, ribbonData.isIndeterminate);
+        if(!ribbonData.isIndeterminate){
+            setBarProgress(ribbonData.progress, false);
         }
 
         if(ribbonStateChangeListener !=null ) {
@@ -2387,80 +3976,151 @@ public class ProgressRibbon extends FrameLayout {
      */
     private ProgressRibbon animateShowHide(@AnimationDirection final int animationDirection){
 
-        float fromXY, toXY, fromAlpha, toAplha;
-
-        if(animationDirection==ANIMATION_SHOW){
-            fromXY=0f;
-            toXY=1.0f;
-            fromAlpha=0;
-            toAplha=1.0f;
-        } else {
-            fromXY = 1.0f;
-            toXY = 0.0f;
-            fromAlpha=1.0f;
-            toAplha=0.0f;
-        }
-
-        final AnimatorSet animatorSet = new AnimatorSet();
-
-        if(ribbonData.animationType== ANIMATE_SCALE){
-            ObjectAnimator animatorX = ObjectAnimator.ofFloat(this, "scaleX", fromXY, toXY);
-            ObjectAnimator animatorY = ObjectAnimator.ofFloat(this, "scaleY", fromXY, toXY);
-            animatorSet.play(animatorX).with(animatorY);
-        } else if (ribbonData.animationType== ANIMATE_SCALE_FADE){
-            ObjectAnimator animatorAlpha = ObjectAnimator.ofFloat(this, "alpha", fromAlpha, toAplha);
-            ObjectAnimator animatorX = ObjectAnimator.ofFloat(this, "scaleX", fromXY, toXY);
-            ObjectAnimator animatorY = ObjectAnimator.ofFloat(this, "scaleY", fromXY, toXY);
-            animatorSet.play(animatorX).with(animatorY);
-            animatorSet.play(animatorX).with(animatorAlpha);
-        } else {
-            ObjectAnimator  animatorAlpha = ObjectAnimator.ofFloat(this, "alpha", fromAlpha, toAplha);
-            animatorSet.play(animatorAlpha).with(animatorAlpha);
+        if(showHideAnimator!=null){
+            //Finish whatever was going on first. This runs its end callback, so the state stays consistent
+            showHideAnimator.cancel();
         }
 
-        animatorSet.setDuration(ribbonData.animationDuration);
+        showHideAnimator=getShowHideAnimator(ribbonData.animationType, animationDirection);
+        showHideAnimationDirection=animationDirection;
 
-        animatorSet.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationStart(Animator animator) {
-                setVisibility(View.VISIBLE);
-                animationInProgress=true;
-            }
+        //The surface could have been recreated (see setRenderMode()) since the animator was built
+        showHideAnimator.setTarget(ribbonSurface);
+        showHideAnimator.setDuration(ribbonData.animationDuration);
+        showHideAnimator.start();
+        return this;
+    }
 
-            @Override
-            public void onAnimationEnd(Animator animatior) {
-                if(animationDirection==ANIMATION_HIDE){
-                    isShowing=false;
-                    ProgressRibbon.this.setVisibility(View.GONE);
-                    if(ribbonStateChangeListener !=null) {
-                        ribbonStateChangeListener.onRibbonHide();
-                    }
-                } else {
-                    isShowing=true;
-                    if(ribbonStateChangeListener !=null) {
-                        ribbonStateChangeListener.onRibbonShow();
-                    }
-                }
-                /*Leave everything as we found it, for the next guy*/
-                ProgressRibbon.this.setAlpha(1.0f);
-                ProgressRibbon.this.setScaleX(1.0f);
-                ProgressRibbon.this.setScaleY(1.0f);
-                animatior.cancel();
-                animationInProgress=false;
+    /**
+     * <p>Returns the animator for the given animation type and direction. These are only built the first time they are
+     * needed, and then reused for every show and hide afterwards. They go through the {@link View#ALPHA}, {@link View#SCALE_X}
+     * and {@link View#SCALE_Y} properties directly, so there's no reflection involved either</p>
+     *
+     * @param animationType One of the animation types, see {@link ProgressRibbon#setAnimationType(int)}
+     * @param animationDirection {@link ProgressRibbon#ANIMATION_SHOW} or {@link ProgressRibbon#ANIMATION_HIDE}
+     * @return The (cached) animator
+     */
+    private ObjectAnimator getShowHideAnimator(@AnimationType int animationType, @AnimationDirection int animationDirection){
+
+        int key=animationType*2+animationDirection;
+        ObjectAnimator animator=showHideAnimators.get(key);
+
+        if(animator==null) {
+            float from = (animationDirection == ANIMATION_SHOW) ? 0.0f : 1.0f;
+            float to = (animationDirection == ANIMATION_SHOW) ? 1.0f : 0.0f;
+
+            if (animationType == ANIMATE_SCALE) {
+                animator = ObjectAnimator.ofPropertyValuesHolder(ribbonSurface,
+                        PropertyValuesHolder.ofFloat(View.SCALE_X, from, to),
+                        PropertyValuesHolder.ofFloat(View.SCALE_Y, from, to));
+            } else if (animationType == ANIMATE_SCALE_FADE) {
+                animator = ObjectAnimator.ofPropertyValuesHolder(ribbonSurface,
+                        PropertyValuesHolder.ofFloat(View.ALPHA, from, to),
+                        PropertyValuesHolder.ofFloat(View.SCALE_X, from, to),
+                        PropertyValuesHolder.ofFloat(View.SCALE_Y, from, to));
+            } else {
+                animator = ObjectAnimator.ofPropertyValuesHolder(ribbonSurface,
+                        PropertyValuesHolder.ofFloat(View.ALPHA, from, to));
             }
-        });
-        animatorSet.start();
-        return this;
+
+            animator.addListener(showHideAnimatorListener);
+            showHideAnimators.put(key, animator);
+        }
+
+        return animator;
     }
 
+    /**
+     * <p>One listener for all the show/hide animators. While the animation runs, the visible part of the ribbon is drawn
+     * on a hardware layer, and has no elevation (shadows are expensive to redraw on every frame, and could not be cached
+     * in the layer anyway). Both are put back when it's over.</p>
+     */
+    private final AnimatorListenerAdapter showHideAnimatorListener=new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationStart(Animator animator) {
+            setVisibility(View.VISIBLE);
+            animationInProgress=true;
+
+            View surface=(View) ((ObjectAnimator) animator).getTarget();
+            layerTypeBeforeAnimation=surface.getLayerType();
+            ViewCompat.setElevation(surface, 0);
+            surface.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animator) {
+            View surface=(View) ((ObjectAnimator) animator).getTarget();
+
+            /*Leave everything as we found it, for the next guy*/
+            surface.setLayerType(layerTypeBeforeAnimation, null);
+            ViewCompat.setElevation(surface, ribbonData.ribbonElevation);
+            surface.setAlpha(1.0f);
+            surface.setScaleX(1.0f);
+            surface.setScaleY(1.0f);
+
+            showHideAnimator=null;
+            animationInProgress=false;
+
+            if(showHideAnimationDirection==ANIMATION_HIDE){
+                isShowing=false;
+                ProgressRibbon.this.setVisibility(View.GONE);
+                collapsePersistentWindow();
+                if(ribbonStateChangeListener !=null) {
+                    ribbonStateChangeListener.onRibbonHide();
+                }
+            } else {
+                isShowing=true;
+                requestProgressSampling();
+                if(ribbonStateChangeListener !=null) {
+                    ribbonStateChangeListener.onRibbonShow();
+                }
+            }
+        }
+    };
+
 
     /**********************************Handle (delayed) show/hide*********************************/
 
     /**
-     * <p>These thigns will be timed, yeah</p>
+     * <p>These thigns will be timed, yeah. One scheduler, one {@link Handler} and one {@link Runnable} for the whole
+     * life of the ribbon, so there can never be more than one show or hide waiting to happen</p>
      */
-    private Handler showHandler;
-    private Runnable runner;
+    private final ShowHideScheduler showHideScheduler=new ShowHideScheduler();
+    private final Handler showHideHandler=new Handler(Looper.getMainLooper());
+    private final Runnable showHideRunnable=new Runnable() {
+        @Override
+        public void run() {
+            performShowHideAction(showHideScheduler.onDue(SystemClock.uptimeMillis()));
+        }
+    };
+
+    /**
+     * <p>Does whatever {@link ProgressRibbon#showHideScheduler} said should be done</p>
+     *
+     * @param action One of the <code>ShowHideScheduler.ACTION_*</code> constants
+     */
+    private void performShowHideAction(int action){
+        switch (action){
+            case ShowHideScheduler.ACTION_SHOW:
+                showHideHandler.removeCallbacks(showHideRunnable);
+                attachAndShowView(false);
+                break;
+            case ShowHideScheduler.ACTION_HIDE:
+                showHideHandler.removeCallbacks(showHideRunnable);
+                hideView();
+                break;
+            case ShowHideScheduler.ACTION_SCHEDULE:
+                showHideHandler.removeCallbacks(showHideRunnable);
+                showHideHandler.postDelayed(showHideRunnable, showHideScheduler.getScheduledDelay());
+                break;
+            case ShowHideScheduler.ACTION_CANCEL:
+                showHideHandler.removeCallbacks(showHideRunnable);
+                break;
+            default:
+                //Nothing to do, e.g. showing an already showing ribbon
+                break;
+        }
+    }
 
     /**
      * <p>Combined internal function to make the {@link ProgressRibbon} appear (with a delay if a delay is set), and if not yet attached,
@@ -2476,7 +4136,12 @@ public class ProgressRibbon extends FrameLayout {
 
         setVisibility(View.GONE);
 
-        if(isDynamicallyCreated) {
+        if(isDynamicallyCreated && isPersistentWindowAttached()) {
+
+            //Still there from last time, just needs to be made full size and touchable again
+            setOrphanWindowCollapsed(false);
+
+        } else if(isDynamicallyCreated) {
 
             /**
              * Static instances tend to stick around and we'll need to remove them in certain cases. Since we don't know what's
@@ -2500,6 +4165,7 @@ public class ProgressRibbon extends FrameLayout {
 
             } else {
                 WindowManager windowManager = activity.getWindowManager();
+                setOrphanWindowCollapsed(false);
                 windowManager.addView(ProgressRibbon.this, getLayoutParams());
 
                 if(ribbonStateChangeListener !=null) {
@@ -2513,21 +4179,70 @@ public class ProgressRibbon extends FrameLayout {
         } else {
             isShowing=true;
             setVisibility(View.VISIBLE);
+            requestProgressSampling();
             if(ribbonStateChangeListener !=null) {
                 ribbonStateChangeListener.onRibbonShow();
             }
         }
     }
 
+    /**
+     * @return Whether this is an orphan {@link ProgressRibbon} that keeps its window between shows, and that window is attached right now
+     */
+    private boolean isPersistentWindowAttached(){
+        return ribbonData.keepWindowAttached && viewParent==null && getParent()!=null
+                && !(getParent() instanceof ViewGroup) && getWindowToken()!=null;
+    }
+
+    /**
+     * <p>Called whenever the {@link ProgressRibbon} has been hidden. A persistent orphan window does not go away, but it should not
+     * take up the screen, nor eat any touches while there is nothing to see</p>
+     */
+    private void collapsePersistentWindow(){
+        if(isPersistentWindowAttached()){
+            setOrphanWindowCollapsed(true);
+        }
+    }
+
+    /**
+     * <p>Shrinks the orphan window to nothing and makes it let touches through, or puts it back the way it was. If the window
+     * is attached, it is updated in place with {@link WindowManager#updateViewLayout(View, ViewGroup.LayoutParams)}</p>
+     *
+     * @param collapsed Whether to collapse (true), or restore (false) the window
+     */
+    private void setOrphanWindowCollapsed(boolean collapsed){
+        if(collapsed==windowCollapsed || !(getLayoutParams() instanceof WindowManager.LayoutParams)){
+            return;
+        }
+
+        WindowManager.LayoutParams params=(WindowManager.LayoutParams) getLayoutParams();
+
+        if(collapsed){
+            collapsedWindowHeight=params.height;
+            params.height=0;
+            params.flags|=WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+        } else {
+            params.height=collapsedWindowHeight;
+            params.flags&=~WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
+        }
+
+        windowCollapsed=collapsed;
+
+        if(getParent()!=null && !(getParent() instanceof ViewGroup) && getWindowToken()!=null){
+            activity.getWindowManager().updateViewLayout(this, params);
+        }
+    }
+
     /**
      * <p>Will hide the {@linnk ProgressRibbon}, with any applicable delay</p>
      */
     private void hideView(){
-        if(ribbonData.animationType!=DO_NOT_ANIMATE ){
+        if(ribbonData.animationType!=DO_NOT_ANIMATE && !hierarchyDeferred){
             animateShowHide(ANIMATION_HIDE);
         } else {
             isShowing=false;
             ProgressRibbon.this.setVisibility(View.GONE);
+            collapsePersistentWindow();
             if(ribbonStateChangeListener !=null) {
                 ribbonStateChangeListener.onRibbonHide();
             }
@@ -2543,25 +4258,24 @@ public class ProgressRibbon extends FrameLayout {
 
     /**
      * <p>Show the {@linnk ProgressRibbon} with the declared delay value (in milliseconds), ignoring {@link RibbonData#showDelay}</p>
+     * <br />
+     * <p>Calling it again while the ribbon is already showing, or waiting to show, does nothing (the original delay stands). Calling it
+     * while a hide is pending cancels the hide.</p>
      *
      * @param delay show delay in millisec
      */
     public void show(@IntRange(from = 0) int delay){
+        //Built right away, rather than when the delay is up, so showing it is no slower than usual
+        ensureRibbonBuilt();
 
-        setVisibility(View.GONE);
-
-        if(delay>0) {
-            showHandler = new Handler();
-            runner = new Runnable() {
-                public void run() {
-                    attachAndShowView(false);
-                }
-            };
-            showHandler.postDelayed(runner, delay);
+        int action=showHideScheduler.requestShow(SystemClock.uptimeMillis(), delay);
 
-        } else {
-            attachAndShowView(false);
+        if(action==ShowHideScheduler.ACTION_SCHEDULE){
+            setVisibility(View.GONE);
         }
+
+        performShowHideAction(action);
+
         if(ribbonStateChangeListener !=null) {
             ribbonStateChangeListener.onRibbonSignalledToShow(delay);
         }
@@ -2572,7 +4286,10 @@ public class ProgressRibbon extends FrameLayout {
      * <p>Show the {@linnk ProgressRibbon} immediately, ignoring ignoring {@link RibbonData#showDelay}, even if it is set</p>
      */
     public void showNoDelay() {
+        ensureRibbonBuilt();
 
+        showHideHandler.removeCallbacks(showHideRunnable);
+        showHideScheduler.forceShown(SystemClock.uptimeMillis());
         attachAndShowView(true);
 
         if(ribbonStateChangeListener !=null) {
@@ -2589,34 +4306,17 @@ public class ProgressRibbon extends FrameLayout {
 
     /**
      * <p>Hide the {@linnk ProgressRibbon} with the declared delay value (in milliseconds), ignoring {@link RibbonData#hideDelay}</p>
+     * <br />
+     * <p>If the ribbon is still waiting to be shown, it simply won't be. If it has been showing for less than the minimum show time
+     * (see {@link ProgressRibbon#setMinimumShowTime(int)}), hiding is postponed until that time is up. A later {@link ProgressRibbon#show()}
+     * cancels a pending hide.</p>
      *
      * @param delay hide delay in millisec
      */
     public void hide(@IntRange(from = 0) int delay) {
 
-        if (delay > 0) {
-
-            Handler hideHandler = new Handler();
-            hideHandler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-
-                    if (showHandler != null) {
-                        showHandler.removeCallbacks(runner);
-                    }
-                    hideView();
-                }
-
-            }, delay);
-
-        } else {
-
-            if (showHandler != null) {
-                showHandler.removeCallbacks(runner);
-            }
-
-            hideView();
-        }
+        flushThrottledProgress();
+        performShowHideAction(showHideScheduler.requestHide(SystemClock.uptimeMillis(), delay));
 
         if(ribbonStateChangeListener !=null) {
             ribbonStateChangeListener.onRibbonSignalledToHide(delay);
@@ -2624,13 +4324,14 @@ public class ProgressRibbon extends FrameLayout {
     }
 
     /**
-     * <p>Hide the {@linnk ProgressRibbon} immediately, ignoring ignoring {@link RibbonData#hideDelay}, even if it is set</p>
+     * <p>Hide the {@linnk ProgressRibbon} immediately, ignoring ignoring {@link RibbonData#hideDelay}, even if it is set. This
+     * ignores the minimum show time too</p>
      */
     public void hideNoDelay(){
 
-        if (showHandler != null) {
-            showHandler.removeCallbacks(runner);
-        }
+        flushThrottledProgress();
+        showHideHandler.removeCallbacks(showHideRunnable);
+        showHideScheduler.forceHidden();
 
         if(ribbonStateChangeListener !=null) {
             ribbonStateChangeListener.onRibbonSignalledToHide(0);
@@ -2648,6 +4349,10 @@ public class ProgressRibbon extends FrameLayout {
      */
     private void detachView(){
 
+        flushThrottledProgress();
+        showHideHandler.removeCallbacks(showHideRunnable);
+        showHideScheduler.forceHidden();
+
         if(viewParent!=null) {
             if(getParent()==viewParent) {
                 viewParent.removeView(ProgressRibbon.this);
@@ -2656,6 +4361,8 @@ public class ProgressRibbon extends FrameLayout {
             if(getWindowToken() != null){
                 activity.getWindowManager().removeView(ProgressRibbon.this);
             }
+            //Whatever comes next, the window starts out full size
+            setOrphanWindowCollapsed(false);
         }
 
         isShowing=false;
@@ -2669,126 +4376,321 @@ public class ProgressRibbon extends FrameLayout {
     /**
      * <p>Completely remove a dynamically created {@link ProgressRibbon}, ignoring any {@RibbonData#hideDelay},
      * but respecting {@link RibbonData#animationType} settings</p>
+     * <br />
+     * <p>If the {@link ProgressRibbon} came from a {@link ProgressRibbonPool}, it goes back there, so it must not be used after this</p>
      */
     public void removeDynamicRibbon() {
         if (isDynamicallyCreated) {
             hideView();
             detachView();
+
+            if(ownerPool!=null){
+                ProgressRibbonPool pool=ownerPool;
+                ownerPool=null;
+                pool.recycle(this);
+            }
         }
     }
 
-    /*******************************Save & Restore State kinda stuff******************************/
+    /**
+     * <p>Marks the ribbon as handed out by a {@link ProgressRibbonPool}</p>
+     *
+     * @param pool The pool it came from
+     */
+    void setOwnerPool(ProgressRibbonPool pool){
+        ownerPool=pool;
+    }
 
     /**
-     * Identifier for the state of the super class.
+     * <p>Puts a (detached) dynamically created ribbon back to the state {@link ProgressRibbon#newInstance(Activity, ViewGroup)} would
+     * have created it in, with the given parent, but without inflating or creating anything that is already there. Used by
+     * {@link ProgressRibbonPool}</p>
+     *
+     * @param parentView Optional parent {@link ViewGroup}. Orphan mode if null
      */
-    private static final String STATE_SUPER_CLASS = "SuperClass";
+    void resetForReuse(@Nullable ViewGroup parentView){
+
+        //Stop anything still in motion
+        if(showHideAnimator!=null){
+            showHideAnimator.cancel();
+        }
+        showHideHandler.removeCallbacks(showHideRunnable);
+        showHideScheduler.forceHidden();
+        if(choreographer!=null) {
+            choreographer.removeFrameCallback(progressFrameCallback);
+        }
+        showHideHandler.removeCallbacks(progressFrameOnUiThread);
+        progressFrameRequested.set(false);
+        postedProgress.set(NO_POSTED_PROGRESS);
+        postedSecondaryProgress.set(NO_POSTED_PROGRESS);
+        postedProgressText.set(null);
+        appliedPostedProgress=NO_POSTED_PROGRESS;
+        appliedPostedSecondaryProgress=NO_POSTED_PROGRESS;
+        progressAccumulator=null;
+        progressSource=null;
+        progressRateEstimator.clear();
+        progressTextTemplate=null;
+        showRemainingTime=false;
+        shownRemainingSeconds=-1;
+
+        //Forget about the previous user
+        ribbonStateChangeListener=null;
+        onIndeterminateStatusChangeListener=null;
+        onStartListener=null;
+        onStopListener=null;
+        onRibbonAttachDetachListener=null;
+        onRibbonShowListener=null;
+        onRibbonHideListener=null;
+        onRibbonProgressUpdateListener=null;
+        onRibbonProgressRateListener=null;
+        indeterminateStatusChangeListeners.clear();
+        startListeners.clear();
+        stopListeners.clear();
+        attachDetachListeners.clear();
+        showListeners.clear();
+        hideListeners.clear();
+        progressUpdateListeners.clear();
+        progressRateListeners.clear();
+        longProgressListeners.clear();
+        setRibbonStateChangedListenerInternal();
+
+        progressText="";
+        isShowing=false;
+        isProgressFrozen=false;
+        ownerPool=null;
+        ribbonData.applyDefaults();
+
+        viewParent=parentView;
+        ribbonData.isInOrphanMode=(parentView==null);
+
+        if(getBuiltRenderMode()!=ribbonData.renderMode){
+            rebuildRibbonHierarchy();
+        }
+
+        //Margins only ever get applied when non-zero, so clear the old ones by hand
+        FrameLayout.LayoutParams surfaceParams=(FrameLayout.LayoutParams) ribbonSurface.getLayoutParams();
+        surfaceParams.topMargin=0;
+        surfaceParams.bottomMargin=0;
+
+        setLayoutParamsInternal();
+        applyRibbonAttributes();
+        setVisibility(View.GONE);
+    }
+
+    /*******************************Save & Restore State kinda stuff******************************/
 
     /**
-     * The usual business. Put everything in a bundle
-     * @return the bundle with everything in it
+     * <p>Puts everything into a {@link SavedState}. Values are written through {@link RibbonStateCodec}, i.e. only those that
+     * differ from their defaults, with all the booleans in a single int</p>
+     *
+     * @return the {@link SavedState} with everything in it
      */
     @Override
-    public Bundle onSaveInstanceState() {
-        Bundle bundle = new Bundle();
-
-        bundle.putParcelable(STATE_SUPER_CLASS,
-                super.onSaveInstanceState());
-
-        bundle.putString("progressText", progressText);
-        bundle.putInt("ribbonBorderColor", ribbonData.ribbonBorderColor);
-        bundle.putInt("backgroundColor", ribbonData.backgroundColor);
-        bundle.putInt("showDelay", ribbonData.showDelay);
-        bundle.putInt("hideDelay", ribbonData.hideDelay);
-        bundle.putInt("min", ribbonData.min);
-        bundle.putInt("max", ribbonData.max);
-        bundle.putInt("progress", ribbonData.progress);
-        bundle.putInt("secondaryProgress", ribbonData.secondaryProgress);
-        bundle.putInt("ribbonMarginTop", ribbonData.ribbonMarginTop);
-        bundle.putInt("ribbonMarginBottom", ribbonData.ribbonMarginBottom);
-        bundle.putInt("ribbonBorderSize", ribbonData.ribbonBorderSize);
-        bundle.putInt("progressTextColor", ribbonData.progressTextColor);
-        bundle.putInt("progressBarStyle", ribbonData.progressBarStyle);
-        bundle.putInt("animationDuration", ribbonData.animationDuration);
-        bundle.putInt("animationType", ribbonData.animationType);
-        bundle.putInt("ribbonPaddingTop", ribbonData.ribbonPaddingTop);
-        bundle.putInt("ribbonPaddingBottom", ribbonData.ribbonPaddingBottom);
-        bundle.putInt("progressTextSize", ribbonData.progressTextSize);
-        bundle.putFloat("ribbonElevation", ribbonData.ribbonElevation);
-        bundle.putFloat("ribbonBorderRadius", ribbonData.ribbonBorderRadius);
-        bundle.putBoolean("isIndeterminate", ribbonData.isIndeterminate);
-        bundle.putBoolean("xmlMarginTopPercentIsSet", xmlMarginTopPercentIsSet);
-        bundle.putBoolean("xmlMarginBottomPercentIsSet", xmlMarginBottomPercentIsSet);
-        bundle.putBoolean("isInDialogueMode", ribbonData.isInDialogueMode);
-        bundle.putBoolean("isDynamicallyCreated", isDynamicallyCreated);
-        bundle.putBoolean("blocksUnderlying", ribbonData.blocksUnderlying);
-        bundle.putBoolean("isInOrphanMode", ribbonData.isInOrphanMode);
-        bundle.putBoolean("isProgressFrozen", isProgressFrozen);
-        bundle.putBoolean("textBesideBar", ribbonData.textBesideBar);
-        bundle.putBoolean("marginIsPercentage", ribbonData.marginIsPercentage);
-        bundle.putBoolean("animationInProgress", animationInProgress);
-        bundle.putBoolean("layoutIsRTL", layoutIsRTL);
-        bundle.putBoolean("isShowing", isShowing);
-        bundle.putBoolean("isBorderless", ribbonData.isBorderless);
-        bundle.putBoolean("doNotShowOnAttachFromXML", doNotShowOnAttachFromXML);
-
-        return bundle;
-    }
-
-    /**
-     * The usual business. Get everything from a bundle
-     * @return the bundle with everything in it
+    public Parcelable onSaveInstanceState() {
+        SavedState state=new SavedState(super.onSaveInstanceState());
+        long[] values=state.values;
+
+        values[RibbonStateCodec.FIELD_BORDER_COLOR]=ribbonData.ribbonBorderColor;
+        values[RibbonStateCodec.FIELD_BACKGROUND_COLOR]=ribbonData.backgroundColor;
+        values[RibbonStateCodec.FIELD_SHOW_DELAY]=ribbonData.showDelay;
+        values[RibbonStateCodec.FIELD_HIDE_DELAY]=ribbonData.hideDelay;
+        values[RibbonStateCodec.FIELD_MINIMUM_SHOW_TIME]=ribbonData.minimumShowTime;
+        values[RibbonStateCodec.FIELD_MARGIN_TOP]=ribbonData.ribbonMarginTop;
+        values[RibbonStateCodec.FIELD_MARGIN_BOTTOM]=ribbonData.ribbonMarginBottom;
+        values[RibbonStateCodec.FIELD_BORDER_SIZE]=ribbonData.ribbonBorderSize;
+        values[RibbonStateCodec.FIELD_TEXT_COLOR]=ribbonData.progressTextColor;
+        values[RibbonStateCodec.FIELD_BAR_STYLE]=ribbonData.progressBarStyle;
+        values[RibbonStateCodec.FIELD_RENDER_MODE]=ribbonData.renderMode;
+        values[RibbonStateCodec.FIELD_ANIMATION_DURATION]=ribbonData.animationDuration;
+        values[RibbonStateCodec.FIELD_ANIMATION_TYPE]=ribbonData.animationType;
+        values[RibbonStateCodec.FIELD_PADDING_TOP]=ribbonData.ribbonPaddingTop;
+        values[RibbonStateCodec.FIELD_PADDING_BOTTOM]=ribbonData.ribbonPaddingBottom;
+        values[RibbonStateCodec.FIELD_TEXT_SIZE]=ribbonData.progressTextSize;
+        values[RibbonStateCodec.FIELD_ELEVATION]=RibbonStateCodec.fromFloat(ribbonData.ribbonElevation);
+        values[RibbonStateCodec.FIELD_BORDER_RADIUS]=RibbonStateCodec.fromFloat(ribbonData.ribbonBorderRadius);
+        values[RibbonStateCodec.FIELD_MIN]=ribbonData.min;
+        values[RibbonStateCodec.FIELD_MAX]=ribbonData.max;
+        values[RibbonStateCodec.FIELD_PROGRESS]=ribbonData.progress;
+        values[RibbonStateCodec.FIELD_SECONDARY_PROGRESS]=ribbonData.secondaryProgress;
+        state.presenceMask=RibbonStateCodec.presenceMask(values, ribbonData.getStateDefaults());
+
+        int flags=0;
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_INDETERMINATE, ribbonData.isIndeterminate);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_XML_MARGIN_TOP_PERCENT, xmlMarginTopPercentIsSet);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_XML_MARGIN_BOTTOM_PERCENT, xmlMarginBottomPercentIsSet);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_DIALOGUE_MODE, ribbonData.isInDialogueMode);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_DYNAMICALLY_CREATED, isDynamicallyCreated);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_BLOCKS_UNDERLYING, ribbonData.blocksUnderlying);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_KEEP_WINDOW_ATTACHED, ribbonData.keepWindowAttached);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_ORPHAN_MODE, ribbonData.isInOrphanMode);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_PROGRESS_FROZEN, isProgressFrozen);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_TEXT_BESIDE_BAR, ribbonData.textBesideBar);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_MARGIN_IS_PERCENTAGE, ribbonData.marginIsPercentage);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_ANIMATION_IN_PROGRESS, animationInProgress);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_LAYOUT_RTL, layoutIsRTL);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_SHOWING, isShowing);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_BORDERLESS, ribbonData.isBorderless);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_DO_NOT_SHOW_ON_ATTACH, doNotShowOnAttachFromXML);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_HAS_PROGRESS_TEXT, progressText!=null && !progressText.isEmpty());
+        state.flags=flags;
+        state.progressText=progressText;
+
+        return state;
+    }
+
+    /**
+     * <p>Gets everything back from a {@link SavedState}, with defaults for whatever was not written</p>
+     *
+     * @param state the {@link SavedState} with everything in it
      */
     @Override
     public void onRestoreInstanceState(Parcelable state) {
-        if (state instanceof Bundle) {
-            Bundle bundle = (Bundle)state;
-
-            super.onRestoreInstanceState(bundle
-                    .getParcelable(STATE_SUPER_CLASS));
-
-            progressText=bundle.getString("progressText");
-            ribbonData.ribbonBorderColor =bundle.getInt("ribbonBorderColor");
-            ribbonData.backgroundColor=bundle.getInt("backgroundColor");
-            ribbonData.showDelay=bundle.getInt("showDelay");
-            ribbonData.hideDelay=bundle.getInt("hideDelay");
-            ribbonData.min=bundle.getInt("min");
-            ribbonData.max=bundle.getInt("max");
-            ribbonData.progress=bundle.getInt("progress");
-            ribbonData.secondaryProgress=bundle.getInt("secondaryProgress");
-            ribbonData.progressBarStyle =bundle.getInt("progressBarStyle");
-            ribbonData.animationDuration=bundle.getInt("animationDuration");
-            ribbonData.animationType=bundle.getInt("animationType");
-            ribbonData.ribbonPaddingTop=bundle.getInt("ribbonPaddingTop");
-            ribbonData.ribbonPaddingBottom=bundle.getInt("ribbonPaddingBottom");
-            ribbonData.ribbonMarginTop=bundle.getInt("ribbonMarginTop");
-            ribbonData.ribbonMarginBottom=bundle.getInt("ribbonMarginBottom");
-            ribbonData.ribbonBorderSize=bundle.getInt("ribbonBorderSize");
-            ribbonData.progressTextColor=bundle.getInt("progressTextColor");
-            ribbonData.progressTextSize=bundle.getInt("progressTextSize");
-            ribbonData.ribbonBorderRadius=bundle.getFloat("ribbonBorderRadius");
-            ribbonData.ribbonElevation=bundle.getFloat("ribbonElevation");
-            xmlMarginTopPercentIsSet=bundle.getBoolean("xmlMarginTopPercentIsSet");
-            xmlMarginBottomPercentIsSet=bundle.getBoolean("xmlMarginBottomPercentIsSet");
-            ribbonData.isIndeterminate=bundle.getBoolean("isIndeterminate");
-            isDynamicallyCreated=bundle.getBoolean("isDynamicallyCreated");
-            ribbonData.blocksUnderlying=bundle.getBoolean("blocksUnderlying");
-            ribbonData.isInOrphanMode=bundle.getBoolean("isInOrphanMode");
-            ribbonData.isInDialogueMode=bundle.getBoolean("isInDialogueMode");
-            ribbonData.marginIsPercentage=bundle.getBoolean("marginIsPercentage");
-            isProgressFrozen=bundle.getBoolean("isProgressFrozen");
-            ribbonData.textBesideBar =bundle.getBoolean("textBesideBar");
-            animationInProgress=bundle.getBoolean("animationInProgress");
-            layoutIsRTL=bundle.getBoolean("layoutIsRTL");
-            isShowing=bundle.getBoolean("isShowing");
-            ribbonData.isBorderless=bundle.getBoolean("isBorderless");
-            doNotShowOnAttachFromXML=bundle.getBoolean("doNotShowOnAttachFromXML");
-
-            setRibbonAttributes(true);
-
-        } else {
+        if (!(state instanceof SavedState)) {
             super.onRestoreInstanceState(state);
+            return;
+        }
+
+        SavedState savedState=(SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        if(savedState.version!=RibbonStateCodec.VERSION){
+            //Written by some other version of the library, better leave things as they are
+            return;
+        }
+
+        long[] values=savedState.values;
+        RibbonStateCodec.fillDefaults(savedState.presenceMask, values, ribbonData.getStateDefaults());
+
+        ribbonData.ribbonBorderColor=(int) values[RibbonStateCodec.FIELD_BORDER_COLOR];
+        ribbonData.backgroundColor=(int) values[RibbonStateCodec.FIELD_BACKGROUND_COLOR];
+        ribbonData.showDelay=(int) values[RibbonStateCodec.FIELD_SHOW_DELAY];
+        ribbonData.hideDelay=(int) values[RibbonStateCodec.FIELD_HIDE_DELAY];
+        ribbonData.minimumShowTime=(int) values[RibbonStateCodec.FIELD_MINIMUM_SHOW_TIME];
+        ribbonData.ribbonMarginTop=(int) values[RibbonStateCodec.FIELD_MARGIN_TOP];
+        ribbonData.ribbonMarginBottom=(int) values[RibbonStateCodec.FIELD_MARGIN_BOTTOM];
+        ribbonData.ribbonBorderSize=(int) values[RibbonStateCodec.FIELD_BORDER_SIZE];
+        ribbonData.progressTextColor=(int) values[RibbonStateCodec.FIELD_TEXT_COLOR];
+        ribbonData.progressBarStyle=(int) values[RibbonStateCodec.FIELD_BAR_STYLE];
+        ribbonData.renderMode=(int) values[RibbonStateCodec.FIELD_RENDER_MODE];
+        ribbonData.animationDuration=(int) values[RibbonStateCodec.FIELD_ANIMATION_DURATION];
+        ribbonData.animationType=(int) values[RibbonStateCodec.FIELD_ANIMATION_TYPE];
+        ribbonData.ribbonPaddingTop=(int) values[RibbonStateCodec.FIELD_PADDING_TOP];
+        ribbonData.ribbonPaddingBottom=(int) values[RibbonStateCodec.FIELD_PADDING_BOTTOM];
+        ribbonData.progressTextSize=(int) values[RibbonStateCodec.FIELD_TEXT_SIZE];
+        ribbonData.ribbonElevation=RibbonStateCodec.toFloat(values[RibbonStateCodec.FIELD_ELEVATION]);
+        ribbonData.ribbonBorderRadius=RibbonStateCodec.toFloat(values[RibbonStateCodec.FIELD_BORDER_RADIUS]);
+        ribbonData.min=values[RibbonStateCodec.FIELD_MIN];
+        ribbonData.max=values[RibbonStateCodec.FIELD_MAX];
+        ribbonData.progress=values[RibbonStateCodec.FIELD_PROGRESS];
+        ribbonData.secondaryProgress=values[RibbonStateCodec.FIELD_SECONDARY_PROGRESS];
+
+        int flags=savedState.flags;
+        ribbonData.isIndeterminate=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_INDETERMINATE);
+        xmlMarginTopPercentIsSet=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_XML_MARGIN_TOP_PERCENT);
+        xmlMarginBottomPercentIsSet=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_XML_MARGIN_BOTTOM_PERCENT);
+        ribbonData.isInDialogueMode=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_DIALOGUE_MODE);
+        isDynamicallyCreated=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_DYNAMICALLY_CREATED);
+        ribbonData.blocksUnderlying=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_BLOCKS_UNDERLYING);
+        ribbonData.keepWindowAttached=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_KEEP_WINDOW_ATTACHED);
+        ribbonData.isInOrphanMode=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_ORPHAN_MODE);
+        isProgressFrozen=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_PROGRESS_FROZEN);
+        ribbonData.textBesideBar=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_TEXT_BESIDE_BAR);
+        ribbonData.marginIsPercentage=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_MARGIN_IS_PERCENTAGE);
+        animationInProgress=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_ANIMATION_IN_PROGRESS);
+        layoutIsRTL=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_LAYOUT_RTL);
+        isShowing=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_SHOWING);
+        ribbonData.isBorderless=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_BORDERLESS);
+        doNotShowOnAttachFromXML=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_DO_NOT_SHOW_ON_ATTACH);
+        progressText=RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_HAS_PROGRESS_TEXT) ? savedState.progressText : "";
+
+        setRibbonAttributes(true);
+    }
+
+    /**
+     * <p>The saved state of a {@link ProgressRibbon}. Written as a version byte, the packed boolean flags, the presence mask,
+     * the non-default values (only as wide as they need to be, see {@link RibbonStateCodec}), and the progress text, if there is any.</p>
+     */
+    static class SavedState extends BaseSavedState {
+
+        byte version=RibbonStateCodec.VERSION;
+        int flags;
+        int presenceMask;
+        final long[] values=new long[RibbonStateCodec.FIELD_COUNT];
+        String progressText;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            version=in.readByte();
+            int length=in.readInt();
+            int start=in.dataPosition();
+
+            if(version==RibbonStateCodec.VERSION) {
+                flags = in.readInt();
+                presenceMask = in.readInt();
+
+                int mask = presenceMask;
+                while (mask != 0) {
+                    int field = Integer.numberOfTrailingZeros(mask);
+                    values[field] = RibbonStateCodec.isWide(field) ? in.readLong() : in.readInt();
+                    mask &= mask - 1;
+                }
+
+                if (RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_HAS_PROGRESS_TEXT)) {
+                    progressText = in.readString();
+                }
+            }
+
+            //Whatever version wrote it, whatever comes after starts right behind it
+            in.setDataPosition(start+length);
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeByte(version);
+            //The length of the rest goes here, once known, so another version can skip it
+            int lengthPosition=out.dataPosition();
+            out.writeInt(0);
+            int start=out.dataPosition();
+            out.writeInt(this.flags);
+            out.writeInt(presenceMask);
+
+            int mask=presenceMask;
+            while (mask!=0){
+                int field=Integer.numberOfTrailingZeros(mask);
+                if(RibbonStateCodec.isWide(field)){
+                    out.writeLong(values[field]);
+                } else {
+                    out.writeInt((int) values[field]);
+                }
+                mask&=mask-1;
+            }
+
+            if(RibbonStateCodec.hasFlag(this.flags, RibbonStateCodec.FLAG_HAS_PROGRESS_TEXT)){
+                out.writeString(progressText);
+            }
+
+            int end=out.dataPosition();
+            out.setDataPosition(lengthPosition);
+            out.writeInt(end-start);
+            out.setDataPosition(end);
         }
+
+        public static final Parcelable.Creator<SavedState> CREATOR=new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
 
     /**
@@ -2870,6 +4772,28 @@ public class ProgressRibbon extends FrameLayout {
         void onRibbonProgressChange(int currentValue);
     }
 
+    /**
+     * <p>Start, change and stop of the progress, with the values as longs. The int listeners above get values clamped to
+     * {@link Integer#MAX_VALUE}, so past 2 GiB of bytes they would all just report the same number. These do not.
+     * Can only be added, see {@link ProgressRibbon#addOnRibbonLongProgressListener(OnRibbonLongProgressListener)}</p>
+     */
+    public interface OnRibbonLongProgressListener{
+        void onRibbonProgressStarted(long startValue);
+        void onRibbonProgressChange(long currentValue);
+        void onRibbonProgressStopped(long stopValue);
+    }
+
+    /**
+     * <p>Called on the UI thread whenever the rate estimate is updated, i.e. on progress changes</p>
+     */
+    public interface OnRibbonProgressRateListener{
+        /**
+         * @param unitsPerSecond Estimated rate, in progress units per second
+         * @param remainingMillis Estimated time until max is reached, or {@link ProgressRateEstimator#UNKNOWN}
+         */
+        void onRibbonProgressRate(double unitsPerSecond, long remainingMillis);
+    }
+
 
     /*************************Interface getters and setters*****************************************/
 
@@ -2929,6 +4853,14 @@ public class ProgressRibbon extends FrameLayout {
         return onRibbonProgressUpdateListener;
     }
 
+    public void setOnRibbonProgressRateListener(OnRibbonProgressRateListener listener){
+        onRibbonProgressRateListener =listener;
+    }
+
+    public OnRibbonProgressRateListener getOnRibbonProgressRateListener(){
+        return onRibbonProgressRateListener;
+    }
+
     public void setOnRibbonStateChangedListener(RibbonStateChangeListener listener){
         ribbonStateChangeListener =listener;
     }
@@ -2937,6 +4869,275 @@ public class ProgressRibbon extends FrameLayout {
         return ribbonStateChangeListener;
     }
 
+    /*
+     * Besides the single listener of each type above, any number of them can be added (and removed again). These are
+     * called after the one that was set, in the order they were added, either right away on the UI thread, or through
+     * the Executor they were added with, so slow ones (analytics, persistence) do not hold up the UI thread.
+     * Like the set ones, these are only called by the internal RibbonStateChangeListener, i.e. not at all when a custom
+     * one was set through setOnRibbonStateChangedListener(). Adding the same listener twice only changes its Executor.
+     */
+
+    public void addOnIndeterminateStatusChangeListener(OnIndeterminateStatusChangeListener listener){
+        indeterminateStatusChangeListeners.add(listener);
+    }
+
+    public void addOnIndeterminateStatusChangeListener(OnIndeterminateStatusChangeListener listener, @Nullable Executor executor){
+        indeterminateStatusChangeListeners.add(listener, executor);
+    }
+
+    public boolean removeOnIndeterminateStatusChangeListener(OnIndeterminateStatusChangeListener listener){
+        return indeterminateStatusChangeListeners.remove(listener);
+    }
+
+    public void addOnStartListener(OnStartListener listener){
+        startListeners.add(listener);
+    }
+
+    public void addOnStartListener(OnStartListener listener, @Nullable Executor executor){
+        startListeners.add(listener, executor);
+    }
+
+    public boolean removeOnStartListener(OnStartListener listener){
+        return startListeners.remove(listener);
+    }
+
+    public void addOnStopListener(OnStopListener listener){
+        stopListeners.add(listener);
+    }
+
+    public void addOnStopListener(OnStopListener listener, @Nullable Executor executor){
+        stopListeners.add(listener, executor);
+    }
+
+    public boolean removeOnStopListener(OnStopListener listener){
+        return stopListeners.remove(listener);
+    }
+
+    public void addOnRibbonAttachDetachListener(OnRibbonAttachDetachListener listener){
+        attachDetachListeners.add(listener);
+    }
+
+    public void addOnRibbonAttachDetachListener(OnRibbonAttachDetachListener listener, @Nullable Executor executor){
+        attachDetachListeners.add(listener, executor);
+    }
+
+    public boolean removeOnRibbonAttachDetachListener(OnRibbonAttachDetachListener listener){
+        return attachDetachListeners.remove(listener);
+    }
+
+    public void addOnRibbonShowListener(OnRibbonShowListener listener){
+        showListeners.add(listener);
+    }
+
+    public void addOnRibbonShowListener(OnRibbonShowListener listener, @Nullable Executor executor){
+        showListeners.add(listener, executor);
+    }
+
+    public boolean removeOnRibbonShowListener(OnRibbonShowListener listener){
+        return showListeners.remove(listener);
+    }
+
+    public void addOnRibbonHideListener(OnRibbonHideListener listener){
+        hideListeners.add(listener);
+    }
+
+    public void addOnRibbonHideListener(OnRibbonHideListener listener, @Nullable Executor executor){
+        hideListeners.add(listener, executor);
+    }
+
+    public boolean removeOnRibbonHideListener(OnRibbonHideListener listener){
+        return hideListeners.remove(listener);
+    }
+
+    public void addOnRibbonProgressUpdateListener(OnRibbonProgressUpdateListener listener){
+        progressUpdateListeners.add(listener);
+    }
+
+    public void addOnRibbonProgressUpdateListener(OnRibbonProgressUpdateListener listener, @Nullable Executor executor){
+        progressUpdateListeners.add(listener, executor);
+    }
+
+    /**
+     * <p>Adds a progress listener that is only called once progress moved at least <code>minDelta</code> since the value
+     * it last got, and/or at least <code>minIntervalMillis</code> later (when both are given, both have to hold).
+     * The first value, values going backwards and the final value (max) always get through, and when the task stops
+     * short of max, or the ribbon is hidden or removed, the last value held back is delivered. So the listener
+     * still sees where the task ended. Values that do not get through cost no more than a comparison, and are never
+     * posted to the {@link Executor}.</p>
+     *
+     * @param listener The listener
+     * @param executor The {@link Executor} to call it on, or <code>null</code> for the UI thread
+     * @param minDelta The minimum change in progress between two calls, 0 for any change
+     * @param minIntervalMillis The minimum time between two calls in milliseconds, 0 for no limit
+     */
+    public void addOnRibbonProgressUpdateListener(OnRibbonProgressUpdateListener listener, @Nullable Executor executor,
+                                                  @IntRange(from=0) long minDelta, @IntRange(from=0) long minIntervalMillis){
+        progressUpdateListeners.add(listener, executor, new ProgressThrottle(minDelta, minIntervalMillis));
+    }
+
+    public boolean removeOnRibbonProgressUpdateListener(OnRibbonProgressUpdateListener listener){
+        return progressUpdateListeners.remove(listener);
+    }
+
+    public void addOnRibbonProgressRateListener(OnRibbonProgressRateListener listener){
+        progressRateListeners.add(listener);
+    }
+
+    public void addOnRibbonProgressRateListener(OnRibbonProgressRateListener listener, @Nullable Executor executor){
+        progressRateListeners.add(listener, executor);
+    }
+
+    public boolean removeOnRibbonProgressRateListener(OnRibbonProgressRateListener listener){
+        return progressRateListeners.remove(listener);
+    }
+
+    public void addOnRibbonLongProgressListener(OnRibbonLongProgressListener listener){
+        longProgressListeners.add(listener);
+    }
+
+    public void addOnRibbonLongProgressListener(OnRibbonLongProgressListener listener, @Nullable Executor executor){
+        longProgressListeners.add(listener, executor);
+    }
+
+    public boolean removeOnRibbonLongProgressListener(OnRibbonLongProgressListener listener){
+        return longProgressListeners.remove(listener);
+    }
+
+
+    /**
+     * <p>A batch of changes to the looks of a {@link ProgressRibbon}, see {@link ProgressRibbon#edit()}. The setters work the same
+     * way (and take the same units) as their {@link ProgressRibbon} namesakes, but they only store the values in {@link RibbonData}.
+     * Nothing happens to the views until {@link Editor#apply()}. Use it on the main thread only.</p>
+     */
+    public final class Editor {
+
+        private static final int CHANGED_LOOKS=1,
+                CHANGED_RADIUS=1<<1,
+                CHANGED_PADDING=1<<2,
+                CHANGED_ELEVATION=1<<3;
+
+        private int changes;
+
+        private Editor(){
+            //Get one from edit()
+        }
+
+        public Editor setRibbonBorderColor(@ColorInt int color){
+            ribbonData.ribbonBorderColor=color;
+            changes|=CHANGED_LOOKS;
+            return this;
+        }
+
+        public Editor setRibbonBackgroundColor(@ColorInt int color){
+            ribbonData.backgroundColor=color;
+            changes|=CHANGED_LOOKS;
+            return this;
+        }
+
+        /**
+         * <p>Same as {@link ProgressRibbon#setRibbonTransparent()}</p>
+         */
+        public Editor setRibbonTransparent(){
+            ribbonData.ribbonBorderColor=Color.TRANSPARENT;
+            ribbonData.backgroundColor=Color.TRANSPARENT;
+            changes|=CHANGED_LOOKS;
+            return this;
+        }
+
+        /**
+         * @param borderSize Border thickness in {@link TypedValue#COMPLEX_UNIT_DIP}
+         */
+        public Editor setRibbonBorderSize(@IntRange(from=0) int borderSize){
+            return setRibbonBorderSize(TypedValue.COMPLEX_UNIT_DIP, borderSize);
+        }
+
+        public Editor setRibbonBorderSize(@ValidSizeUnit int unit, @IntRange(from=0) int borderSize){
+            ribbonData.ribbonBorderSize=Math.round(TypedValue.applyDimension(unit, borderSize, getResources().getDisplayMetrics()));
+            //The side paddings follow the border in dialogue mode
+            changes|=CHANGED_LOOKS|CHANGED_PADDING;
+            return this;
+        }
+
+        /**
+         * @param radius Corner radius in {@link TypedValue#COMPLEX_UNIT_DIP}, only used in dialogue mode
+         */
+        public Editor setRibbonBorderRadius(@FloatRange(from=0.0f) float radius){
+            ribbonData.ribbonBorderRadius=TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, radius, getResources().getDisplayMetrics());
+            changes|=CHANGED_LOOKS|CHANGED_RADIUS;
+            return this;
+        }
+
+        /**
+         * @param paddingTop Top padding in {@link TypedValue#COMPLEX_UNIT_DIP}
+         */
+        public Editor setRibbonPaddingTop(@IntRange(from=0) int paddingTop){
+            return setRibbonPaddingTop(TypedValue.COMPLEX_UNIT_DIP, paddingTop);
+        }
+
+        public Editor setRibbonPaddingTop(@ValidSizeUnit int unit, @IntRange(from=0) int paddingTop){
+            ribbonData.ribbonPaddingTop=(int) TypedValue.applyDimension(unit, paddingTop, getResources().getDisplayMetrics());
+            changes|=CHANGED_PADDING;
+            return this;
+        }
+
+        /**
+         * @param paddingBottom Bottom padding in {@link TypedValue#COMPLEX_UNIT_DIP}
+         */
+        public Editor setRibbonPaddingBottom(@IntRange(from=0) int paddingBottom){
+            return setRibbonPaddingBottom(TypedValue.COMPLEX_UNIT_DIP, paddingBottom);
+        }
+
+        public Editor setRibbonPaddingBottom(@ValidSizeUnit int unit, @IntRange(from=0) int paddingBottom){
+            ribbonData.ribbonPaddingBottom=(int) TypedValue.applyDimension(unit, paddingBottom, getResources().getDisplayMetrics());
+            changes|=CHANGED_PADDING;
+            return this;
+        }
+
+        public Editor setRibbonElevation(@FloatRange(from=0.0f) float elevation){
+            ribbonData.ribbonElevation=elevation;
+            changes|=CHANGED_ELEVATION;
+            return this;
+        }
+
+        /**
+         * <p>Puts every change on the views in one pass. If the views are not there yet, there's nothing to do, as they
+         * get everything from {@link RibbonData} when they are set up anyway. The editor can be reused afterwards.</p>
+         */
+        public void apply(){
+            int changed=changes;
+            changes=0;
+
+            if(changed==0 || ribbonSurface==null){
+                return;
+            }
+
+            if((changed & CHANGED_LOOKS)!=0){
+                if(ribbonCanvas!=null){
+                    //Without a border, it's painted in the background colour, same as setRibbonBorderSize() does
+                    int borderColor=(ribbonData.ribbonBorderSize==0) ? ribbonData.backgroundColor : ribbonData.ribbonBorderColor;
+                    ribbonCanvas.setLooks(borderColor, ribbonData.backgroundColor, ribbonData.ribbonBorderSize,
+                            ribbonData.isInDialogueMode ? ribbonData.ribbonBorderRadius : 0.0f);
+                } else {
+                    updateRibbonBackground();
+
+                    if((changed & CHANGED_RADIUS)!=0 && ribbonData.isInDialogueMode && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP){
+                        ribbonContainer.setClipToOutline(true);
+                    }
+                }
+            }
+
+            if((changed & CHANGED_PADDING)!=0){
+                //Only asks for a layout if any padding actually changed
+                applyRibbonPadding();
+            }
+
+            if((changed & CHANGED_ELEVATION)!=0){
+                //Elevation only needs a redraw, no layout
+                applyRibbonElevation();
+            }
+        }
+    }
+
 
     /**
      * Internal class representing, surprisingly, the {@link ProgressRibbon}'s data. Wow. Such obvious. So smooth
@@ -2962,6 +5163,9 @@ public class ProgressRibbon extends FrameLayout {
                 DEFAULT_RIBBON_SHOW_DELAY;
         public final float DEFAULT_RIBBON_BORDER_RADIUS;
 
+        //Defaults in the saved state's field order, see getStateDefaults()
+        private long[] stateDefaults;
+
 
         /**
          * Members representing actual values
@@ -2970,11 +5174,13 @@ public class ProgressRibbon extends FrameLayout {
         private int backgroundColor;
         private int showDelay;
         private int hideDelay;
-        private int min;
-        private int max;
-        private int progress;
-        private int secondaryProgress;
+        private int minimumShowTime;
+        private long min;
+        private long max;
+        private long progress;
+        private long secondaryProgress;
         private int progressBarStyle;
+        private int renderMode;
         private int animationDuration;
         private int animationType;
         private int ribbonPaddingTop;
@@ -2988,6 +5194,7 @@ public class ProgressRibbon extends FrameLayout {
         private float ribbonElevation;
         private boolean isIndeterminate;
         private boolean blocksUnderlying;
+        private boolean keepWindowAttached;
         private boolean isInOrphanMode;
         private boolean isInDialogueMode;
         private boolean textBesideBar;
@@ -3003,36 +5210,22 @@ public class ProgressRibbon extends FrameLayout {
             DEFAULT_RIBBON_MAX=100;
             //This looks like a reasonable default animation time
             DEFAULT_ANIMATION_DURATION=300;
+            /**
+             * Everything that depends on the theme or the screen is only resolved once per theme, see RibbonDefaults
+             */
+            RibbonDefaults themeDefaults=RibbonDefaults.get(context);
             //A decent enough default
-            DEFAULT_RIBBON_PADDING=Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16, context.getResources().getDisplayMetrics()));
+            DEFAULT_RIBBON_PADDING=themeDefaults.padding;
             //Default border is 1dp thick
-            DEFAULT_RIBBON_BORDER_SIZE=Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, context.getResources().getDisplayMetrics()));
+            DEFAULT_RIBBON_BORDER_SIZE=themeDefaults.borderSize;
             //A decent enough default. Probably
             DEFAULT_RIBBON_ELEVATION=24;
-
-            /**
-             * Now there is a difference before and after SDK{@value Build.VERSION_CODES.LOLLIPOP}
-             * It's because of the resolver method used (I have no idea how to do this pre-Lollipop)
-             */
-            if(Build.VERSION.SDK_INT>=Build.VERSION_CODES.LOLLIPOP) {
-
-                //Should pull it in from the host app, if non found, use our own default
-                DEFAULT_RIBBON_BORDER_COLOR = resolveAppThemeColour(android.R.attr.colorPrimary);
-                //Pretty much the same across devices, but shoudl conform to the app's settings if differen
-                DEFAULT_RIBBON_TEXT_COLOR = resolveAppThemeColour(android.R.attr.textColorPrimary);
-                //Default app background colour, or white, if all else fails
-                DEFAULT_RIBBON_BG_COLOR = resolveAppThemeColour(android.R.attr.windowBackground);
-            } else{
-                //Should pull it in frrom the built in resource
-                DEFAULT_RIBBON_BORDER_COLOR = ContextCompat.getColor(getContext(), R.color.colorPrimary);
-                //Should pull it in frrom the built in resource
-                DEFAULT_RIBBON_TEXT_COLOR = ContextCompat.getColor(getContext(), R.color.textColorPrimary);
-                //White's as good as anything
-                DEFAULT_RIBBON_BG_COLOR = ContextCompat.getColor(getContext(), android.R.color.white);
-            }
-
+            //From the app's theme, where possible
+            DEFAULT_RIBBON_BORDER_COLOR=themeDefaults.borderColor;
+            DEFAULT_RIBBON_TEXT_COLOR=themeDefaults.textColor;
+            DEFAULT_RIBBON_BG_COLOR=themeDefaults.backgroundColor;
             //Decent enough text size
-            DEFAULT_RIBBON_TEXT_SIZE = Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16, context.getResources().getDisplayMetrics()));
+            DEFAULT_RIBBON_TEXT_SIZE=themeDefaults.textSize;
             //No margin for old men
             DEFAULT_RIBBON_MARGIN=0;
             //Delays should be set when needed
@@ -3040,7 +5233,7 @@ public class ProgressRibbon extends FrameLayout {
             //Delays should be set when needed
             DEFAULT_RIBBON_SHOW_DELAY=0;
             //A decent enough default
-            DEFAULT_RIBBON_BORDER_RADIUS=TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 8.0f, context.getResources().getDisplayMetrics());
+            DEFAULT_RIBBON_BORDER_RADIUS=themeDefaults.borderRadius;
 
             /**
              * It's conditional, because... Well, because we are not sure we really want everything ot be defaulted, are we?
@@ -3052,60 +5245,41 @@ public class ProgressRibbon extends FrameLayout {
 
 
         /**
-         * <p>An attempt to resolve some of the application's colours in a failsafe way. If nothing helps, use the declared default</p>
-         * <br />
-         * <p>Credit for this solution goes to <https://mbcdev.com/2017/01/16/resolving-android-theme-colours-programmatically/></p>
+         * <p>The default values, as used by {@link RibbonData#applyDefaults()}, laid out as {@link RibbonStateCodec} wants them,
+         * so that only the ones that are different get saved</p>
          *
-         * @param attrId <p>The color id to resolve. Accepted values are
-         *                  <ul>
-         *                      <li>{@link android.R.attr#colorPrimary}</li>
-         *                      <li>{@link android.R.attr#colorAccent}</li>
-         *                      <li>{@link android.R.attr#textColorPrimary}</li>
-         *                      <li>{@link android.R.attr#windowBackground}</li>
-         *                  </ul>
-         *                  These require min. SDK{@value android.os.Build.VERSION_CODES#LOLLIPOP}, so on earlier versions a more
-         *                  direct approach should be used. ToDo: Figure out how to do this pre-Lollipop
-         *                </p>
-         *               <br />
-         *               <p>Note {@link android.R.attr#colorAccent} is not currently used and is only included for future convenience</p>
-         *
-         * @return The resolved {@link  ColorInt}
+         * @return Default values indexed by the <code>RibbonStateCodec.FIELD_*</code> constants
          */
-        @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
-        private int resolveAppThemeColour(@ValidColorAttrIds int attrId){
-
-            TypedValue outValue = new TypedValue();
-            Resources.Theme theme = getContext().getTheme();
-            boolean wasResolved =
-                    theme.resolveAttribute(
-                            attrId, outValue, true);
-            if (wasResolved) {
-                return outValue.resourceId == 0 ? outValue.data : ContextCompat.getColor(getContext(), outValue.resourceId);
-            } else {
-                //Fallback colour handling
-                switch(attrId){
-                    case android.R.attr.colorPrimary: {
-                        return ContextCompat.getColor(getContext(), R.color.colorPrimary);
-                    }
-                    case android.R.attr.colorAccent: {
-                        return ContextCompat.getColor(getContext(), R.color.colorAccent);
-                    }
-                    case android.R.attr.textColorPrimary: {
-                        return ContextCompat.getColor(getContext(), R.color.textColorPrimary);
-                    }
-                    default: {
-                        if (attrId >= TypedValue.TYPE_FIRST_COLOR_INT && attrId <= TypedValue.TYPE_LAST_COLOR_INT) {
-                            return ContextCompat.getColor(getContext(), attrId);
-                        } else {
-                            //The absolute last resource
-                            return ContextCompat.getColor(getContext(), android.R.color.white);
-                        }
-                    }
-                }
+        long[] getStateDefaults(){
+            if(stateDefaults==null) {
+                long[] defaults = new long[RibbonStateCodec.FIELD_COUNT];
+                defaults[RibbonStateCodec.FIELD_BORDER_COLOR] = DEFAULT_RIBBON_BORDER_COLOR;
+                defaults[RibbonStateCodec.FIELD_BACKGROUND_COLOR] = DEFAULT_RIBBON_BG_COLOR;
+                defaults[RibbonStateCodec.FIELD_SHOW_DELAY] = DEFAULT_RIBBON_SHOW_DELAY;
+                defaults[RibbonStateCodec.FIELD_HIDE_DELAY] = DEFAULT_RIBBON_HIDE_DELAY;
+                defaults[RibbonStateCodec.FIELD_MINIMUM_SHOW_TIME] = 0;
+                defaults[RibbonStateCodec.FIELD_MARGIN_TOP] = DEFAULT_RIBBON_MARGIN;
+                defaults[RibbonStateCodec.FIELD_MARGIN_BOTTOM] = DEFAULT_RIBBON_MARGIN;
+                defaults[RibbonStateCodec.FIELD_BORDER_SIZE] = DEFAULT_RIBBON_BORDER_SIZE;
+                defaults[RibbonStateCodec.FIELD_TEXT_COLOR] = DEFAULT_RIBBON_TEXT_COLOR;
+                defaults[RibbonStateCodec.FIELD_BAR_STYLE] = BAR_ROUND;
+                defaults[RibbonStateCodec.FIELD_RENDER_MODE] = RENDER_COMPOUND;
+                defaults[RibbonStateCodec.FIELD_ANIMATION_DURATION] = DEFAULT_ANIMATION_DURATION;
+                defaults[RibbonStateCodec.FIELD_ANIMATION_TYPE] = DO_NOT_ANIMATE;
+                defaults[RibbonStateCodec.FIELD_PADDING_TOP] = DEFAULT_RIBBON_PADDING;
+                defaults[RibbonStateCodec.FIELD_PADDING_BOTTOM] = DEFAULT_RIBBON_PADDING;
+                defaults[RibbonStateCodec.FIELD_TEXT_SIZE] = DEFAULT_RIBBON_TEXT_SIZE;
+                defaults[RibbonStateCodec.FIELD_ELEVATION] = RibbonStateCodec.fromFloat(DEFAULT_RIBBON_ELEVATION);
+                defaults[RibbonStateCodec.FIELD_BORDER_RADIUS] = RibbonStateCodec.fromFloat(DEFAULT_RIBBON_BORDER_RADIUS);
+                defaults[RibbonStateCodec.FIELD_MIN] = DEFAULT_RIBBON_MIN;
+                defaults[RibbonStateCodec.FIELD_MAX] = DEFAULT_RIBBON_MAX;
+                defaults[RibbonStateCodec.FIELD_PROGRESS] = DEFAULT_RIBBON_MIN;
+                defaults[RibbonStateCodec.FIELD_SECONDARY_PROGRESS] = DEFAULT_RIBBON_MIN;
+                stateDefaults = defaults;
             }
+            return stateDefaults;
         }
 
-
         /**
          * Set those defaults, where defaults need setting
          */
@@ -3117,6 +5291,7 @@ public class ProgressRibbon extends FrameLayout {
             max = DEFAULT_RIBBON_MAX;
             backgroundColor= DEFAULT_RIBBON_BG_COLOR;
             progressBarStyle = BAR_ROUND;
+            renderMode = RENDER_COMPOUND;
             animationDuration=DEFAULT_ANIMATION_DURATION;
             animationType= DO_NOT_ANIMATE;
             ribbonPaddingTop=DEFAULT_RIBBON_PADDING;
@@ -3130,9 +5305,11 @@ public class ProgressRibbon extends FrameLayout {
             progressTextColor=DEFAULT_RIBBON_TEXT_COLOR;
             showDelay=DEFAULT_RIBBON_SHOW_DELAY;
             hideDelay=DEFAULT_RIBBON_HIDE_DELAY;
+            minimumShowTime=0;
             progressTextSize=DEFAULT_RIBBON_TEXT_SIZE;
             textBesideBar =false;
             blocksUnderlying =true;
+            keepWindowAttached=false;
             isInOrphanMode =true;
             isIndeterminate = true;
             isInDialogueMode=false;
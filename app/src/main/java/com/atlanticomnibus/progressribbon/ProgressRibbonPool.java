@@ -0,0 +1,227 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.app.Activity;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.ViewGroup;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * <p>A small pool of ready-made, dynamically created {@link ProgressRibbon}s, one pool per {@link Activity}.</p>
+ * <br />
+ * <p>Creating a ribbon means inflating its layout, resolving theme colours, building a {@link android.widget.ProgressBar}
+ * and loading drawables. That's a few milliseconds, and usually on exactly the frame where the user has just tapped something.
+ * With a pool, those ribbons can be built up front, while the main thread has nothing better to do (see {@link ProgressRibbonPool#prewarm(int)}),
+ * and then handed out by {@link ProgressRibbonPool#obtain(ViewGroup)} with default settings, as if they were brand new.
+ * When done, {@link ProgressRibbon#removeDynamicRibbon()} puts them back.</p>
+ * <br />
+ * <p>Pooled ribbons belong to their {@link Activity}, and are thrown away if its theme or configuration changes. Pools are
+ * only weakly referenced, so they go away with the {@link Activity}. Use it on the main thread only.</p>
+ *
+ * <pre>
+ *     //E.g. in onCreate()
+ *     ProgressRibbonPool.get(this).prewarm(1);
+ *
+ *     //When needed
+ *     ProgressRibbon ribbon=ProgressRibbonPool.get(this).obtain(parentView);
+ *     ribbon.show();
+ *
+ *     //Once finished, this also returns it to the pool. Don't use the instance after this
+ *     ribbon.removeDynamicRibbon();
+ * </pre>
+ */
+public final class ProgressRibbonPool {
+
+    /**
+     * <p>Never keep more than this many idle ribbons per {@link Activity}</p>
+     */
+    public static final int MAX_POOL_SIZE=4;
+
+    private static final Map<Activity, ProgressRibbonPool> POOLS=new WeakHashMap<>();
+
+    private final Activity activity;
+    private final ArrayDeque<ProgressRibbon> freeRibbons=new ArrayDeque<>();
+
+    /**
+     * <p>The theme and configuration the pooled ribbons were built with</p>
+     */
+    private Resources.Theme builtTheme;
+    private final Configuration builtConfiguration=new Configuration();
+
+    private int prewarmTarget;
+    private boolean idleHandlerQueued;
+
+    /**
+     * <p>Builds one ribbon per idle pass, so that a single pass never takes long, until there's enough of them</p>
+     */
+    private final MessageQueue.IdleHandler prewarmIdleHandler=new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            if(activity.isFinishing() || freeRibbons.size()>=prewarmTarget){
+                idleHandlerQueued=false;
+                return false;
+            }
+
+            invalidateIfStale();
+            freeRibbons.push(createRibbon());
+
+            idleHandlerQueued=freeRibbons.size()<prewarmTarget;
+            return idleHandlerQueued;
+        }
+    };
+
+    private ProgressRibbonPool(Activity activity){
+        this.activity=activity;
+        rememberThemeAndConfiguration();
+    }
+
+    /**
+     * <p>Get the pool of the given {@link Activity}, creating it if needed</p>
+     *
+     * @param activity The {@link Activity} the ribbons will be shown in
+     * @return The pool belonging to the {@link Activity}
+     */
+    @MainThread
+    @NonNull
+    public static ProgressRibbonPool get(@NonNull Activity activity){
+        ProgressRibbonPool pool=POOLS.get(activity);
+
+        if(pool==null){
+            pool=new ProgressRibbonPool(activity);
+            POOLS.put(activity, pool);
+        }
+
+        return pool;
+    }
+
+    /**
+     * <p>Makes sure there will be (at least) <code>count</code> ribbons ready to use, building the missing ones whenever the main thread
+     * is idle. Returns right away, nothing gets built here</p>
+     *
+     * @param count How many ribbons should be ready, at most {@link ProgressRibbonPool#MAX_POOL_SIZE}
+     * @return The pool, for method chaining
+     */
+    @MainThread
+    public ProgressRibbonPool prewarm(@IntRange(from=0, to=MAX_POOL_SIZE) int count){
+        prewarmTarget=Math.max(prewarmTarget, Math.min(count, MAX_POOL_SIZE));
+
+        if(!idleHandlerQueued && freeRibbons.size()<prewarmTarget){
+            idleHandlerQueued=true;
+            Looper.myQueue().addIdleHandler(prewarmIdleHandler);
+        }
+
+        return this;
+    }
+
+    /**
+     * <p>Hands out a ribbon with default settings, taken from the pool if there's one, or newly created if not.
+     * Just like {@link ProgressRibbon#newInstance(Activity, ViewGroup)}, it will be an orphan if no parent is supplied</p>
+     *
+     * @param parentView Optional parent {@link ViewGroup}
+     * @return A {@link ProgressRibbon}, ready to be set up and shown
+     */
+    @MainThread
+    @NonNull
+    public ProgressRibbon obtain(@Nullable ViewGroup parentView){
+        invalidateIfStale();
+
+        ProgressRibbon ribbon=freeRibbons.poll();
+
+        if(ribbon==null){
+            ribbon=createRibbon();
+        }
+
+        ribbon.resetForReuse(parentView);
+        ribbon.setOwnerPool(this);
+
+        if(prewarmTarget>0){
+            //Top up for next time
+            prewarm(prewarmTarget);
+        }
+
+        return ribbon;
+    }
+
+    /**
+     * @return Number of ribbons ready to be handed out right now
+     */
+    public int getAvailableCount(){
+        return freeRibbons.size();
+    }
+
+    /**
+     * <p>Throws away all the idle ribbons, and stops prewarming</p>
+     */
+    @MainThread
+    public void clear(){
+        prewarmTarget=0;
+        freeRibbons.clear();
+    }
+
+    /**
+     * <p>Takes back a ribbon after {@link ProgressRibbon#removeDynamicRibbon()}. Ribbons built for another theme or configuration, or
+     * the ones that do not fit, are just dropped</p>
+     *
+     * @param ribbon The detached ribbon
+     */
+    void recycle(ProgressRibbon ribbon){
+        invalidateIfStale();
+
+        if(!activity.isFinishing() && ribbon.getContext()==activity && freeRibbons.size()<MAX_POOL_SIZE && !freeRibbons.contains(ribbon)){
+            freeRibbons.push(ribbon);
+        }
+    }
+
+    private ProgressRibbon createRibbon(){
+        //Built as an orphan, it gets its parent (if any) when handed out
+        return new ProgressRibbon(activity);
+    }
+
+    /**
+     * <p>Drops every idle ribbon, if the {@link Activity}'s theme or configuration (e.g. night mode, font scale, orientation) has
+     * changed since they were built. Activities that get recreated on such changes get a brand new pool anyway</p>
+     */
+    private void invalidateIfStale(){
+        if(builtTheme!=activity.getTheme() || !builtConfiguration.equals(activity.getResources().getConfiguration())){
+            freeRibbons.clear();
+            rememberThemeAndConfiguration();
+        }
+    }
+
+    private void rememberThemeAndConfiguration(){
+        builtTheme=activity.getTheme();
+        builtConfiguration.setTo(activity.getResources().getConfiguration());
+    }
+}
@@ -0,0 +1,639 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Build;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.animation.AnimationUtils;
+
+import androidx.annotation.ColorInt;
+import androidx.core.content.ContextCompat;
+
+import com.atlanticomnibus.progressribbon.core.ProgressMath;
+
+/**
+ * <p>The visible part of a {@link ProgressRibbon} in {@link ProgressRibbon#RENDER_CANVAS} mode, drawn as a single {@link View}.</p>
+ * <br />
+ * <p>Instead of a {@link android.widget.LinearLayout} holding a {@link android.widget.ProgressBar} and a
+ * {@link android.widget.TextView}, this one draws the background, the borders, the (round or flat) bar and the
+ * progress text straight onto the {@link Canvas}. Progress changes only ever invalidate, and the only thing
+ * measured and laid out is this one view. All the {@link Paint}s and {@link RectF}s are created up front, and the text
+ * is laid out when it changes, so {@link RibbonCanvasView#onDraw(Canvas)} allocates nothing.</p>
+ * <br />
+ * <p>The {@link ProgressRibbon} keeps the settings in {@link ProgressRibbon.RibbonData} and pushes them in here, so
+ * this class knows nothing about delays, listeners or state. The ribbon's paddings are this view's own paddings.</p>
+ */
+final class RibbonCanvasView extends View {
+
+    /**
+     * <p>Progress levels coming in are in this range (same as the ProgressBar's in compound mode)</p>
+     */
+    private static final int MAX_LEVEL=ProgressMath.BASIS_POINTS;
+
+    /**
+     * <p>How long one turn of the indeterminate animation takes</p>
+     */
+    private static final long INDETERMINATE_CYCLE_MILLIS=1333;
+
+    private final Paint backgroundPaint=new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint borderPaint=new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint trackPaint=new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint secondaryProgressPaint=new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint progressPaint=new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint textPaint=new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    /**
+     * <p>Geometry, recalculated on layout only</p>
+     */
+    private final RectF outerRect=new RectF();
+    private final RectF innerRect=new RectF();
+    private final RectF barRect=new RectF();
+    private final RectF ringRect=new RectF();
+    //Reused for the parts of the bar that move. Setting its bounds does not allocate anything
+    private final RectF scratchRect=new RectF();
+
+    /**
+     * <p>Fixed sizes, mirroring the ones used for the compound widget</p>
+     */
+    private final int ringSize;
+    private final int ringMargin;
+    private final float ringThickness;
+    private final int barBoxHeight;
+    private final float barThickness;
+    private final int textGap;
+    private final int textEndPadding;
+
+    private boolean dialogueMode;
+    private boolean textBesideBar;
+    private boolean indeterminate=true;
+    private int barStyle=ProgressRibbon.BAR_ROUND;
+    private int borderSize;
+    private float cornerRadius;
+    private int progressLevel;
+    private int secondaryProgressLevel;
+
+    private CharSequence text="";
+    private StaticLayout textLayout;
+    //Single line text drawn straight from a char[] (see setText(char[], int, int)) instead of through textLayout
+    private char[] textChars;
+    private int textCharsStart;
+    private int textCharsLength;
+    private float textCharsWidth;
+    private final Paint.FontMetricsInt fontMetrics=new Paint.FontMetricsInt();
+    private int textLayoutWidth=-1;
+    private float textLeft;
+    private float textTop;
+
+    RibbonCanvasView(Context context) {
+        super(context);
+
+        ringSize=dpToPx(48);
+        ringMargin=dpToPx(24);
+        ringThickness=dpToPx(4);
+        barBoxHeight=dpToPx(16);
+        barThickness=dpToPx(4);
+        textGap=dpToPx(8);
+        textEndPadding=dpToPx(72);
+
+        int activatedColour=resolveActivatedColour(context);
+        int trackColour=ContextCompat.getColor(context, R.color.progressBarGrey);
+
+        borderPaint.setStyle(Paint.Style.FILL);
+        trackPaint.setColor(withAlpha(trackColour, 0.35f));
+        secondaryProgressPaint.setColor(withAlpha(activatedColour, 0.35f));
+        progressPaint.setColor(activatedColour);
+
+        setRingPaints(true);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16, getResources().getDisplayMetrics()));
+
+        //Draws its own background
+        setWillNotDraw(false);
+    }
+
+
+    /***************************************Setters************************************************/
+
+    void setDialogueMode(boolean dialogueMode){
+        this.dialogueMode=dialogueMode;
+        borderPaint.setStyle(dialogueMode ? Paint.Style.STROKE : Paint.Style.FILL);
+        updateGeometry();
+        invalidate();
+    }
+
+    void setBorderSize(int borderSize){
+        this.borderSize=borderSize;
+        borderPaint.setStrokeWidth(borderSize);
+        updateGeometry();
+        invalidate();
+    }
+
+    void setBorderColor(@ColorInt int color){
+        borderPaint.setColor(color);
+        invalidate();
+    }
+
+    void setRibbonBackgroundColor(@ColorInt int color){
+        backgroundPaint.setColor(color);
+        invalidate();
+    }
+
+    void setCornerRadius(float cornerRadius){
+        this.cornerRadius=cornerRadius;
+        invalidate();
+    }
+
+    /**
+     * <p>Sets everything the background is made of in one go, so it's only worked out and invalidated once</p>
+     */
+    void setLooks(@ColorInt int borderColor, @ColorInt int backgroundColor, int borderSize, float cornerRadius){
+        borderPaint.setColor(borderColor);
+        backgroundPaint.setColor(backgroundColor);
+        this.borderSize=borderSize;
+        borderPaint.setStrokeWidth(borderSize);
+        this.cornerRadius=cornerRadius;
+        updateGeometry();
+        invalidate();
+    }
+
+    void setBarStyle(int barStyle, boolean indeterminate){
+        boolean styleChanged=(this.barStyle!=barStyle);
+        this.barStyle=barStyle;
+        this.indeterminate=indeterminate;
+        setRingPaints(barStyle==ProgressRibbon.BAR_ROUND);
+
+        if(styleChanged){
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    void setIndeterminate(boolean indeterminate){
+        setBarStyle(barStyle, indeterminate);
+    }
+
+    void setProgressLevel(int level){
+        if(level!=progressLevel){
+            progressLevel=level;
+            invalidate();
+        }
+    }
+
+    void setSecondaryProgressLevel(int level){
+        if(level!=secondaryProgressLevel){
+            secondaryProgressLevel=level;
+            invalidate();
+        }
+    }
+
+    void setTextBesideBar(boolean textBesideBar){
+        if(this.textBesideBar!=textBesideBar){
+            this.textBesideBar=textBesideBar;
+            textLayoutWidth=-1;
+            requestLayout();
+        }
+    }
+
+    void setTextColor(@ColorInt int color){
+        textPaint.setColor(color);
+        invalidate();
+    }
+
+    void setTextSize(float textSizePx){
+        if(textPaint.getTextSize()!=textSizePx){
+            textPaint.setTextSize(textSizePx);
+            textLayoutWidth=-1;
+            requestLayout();
+        }
+    }
+
+    float getTextSize(){
+        return textPaint.getTextSize();
+    }
+
+    /**
+     * <p>Sets the progress text. The text is laid out here rather than when drawing, and if its height stays the same
+     * (which is the usual case for progress updates), no layout pass is requested at all</p>
+     *
+     * @param text The progress text
+     */
+    void setText(CharSequence text){
+        if(text==null){
+            text="";
+        }
+
+        if(textChars==null && TextUtils.equals(this.text, text)){
+            return;
+        }
+
+        this.text=text;
+        textChars=null;
+        int oldHeight=getTextHeight();
+
+        if(textLayoutWidth>=0){
+            buildTextLayout(textLayoutWidth);
+        }
+
+        onTextChanged(oldHeight);
+    }
+
+    /**
+     * <p>Sets the progress text from a char array, which is kept and drawn as it is, so it must not be changed until
+     * the next call (same deal as with <code>TextView.setText(char[], int, int)</code>). As long as the text fits on a
+     * single line, this allocates nothing, otherwise it goes through {@link RibbonCanvasView#setText(CharSequence)}</p>
+     *
+     * @param chars The characters
+     * @param start Index of the first one to show
+     * @param length The number of characters to show
+     */
+    void setText(char[] chars, int start, int length){
+        float width=textPaint.measureText(chars, start, length);
+
+        if(textLayoutWidth<=0 || width>textLayoutWidth || containsLineBreak(chars, start, length)){
+            //Not laid out yet, or needs more than one line. A StaticLayout deals with it
+            setText(new String(chars, start, length));
+            return;
+        }
+
+        int oldHeight=getTextHeight();
+        text=null;
+        textLayout=null;
+        textChars=chars;
+        textCharsStart=start;
+        textCharsLength=length;
+        textCharsWidth=width;
+        onTextChanged(oldHeight);
+    }
+
+    CharSequence getText(){
+        return (textChars!=null) ? new String(textChars, textCharsStart, textCharsLength) : text;
+    }
+
+    private static boolean containsLineBreak(char[] chars, int start, int length){
+        for(int i=start; i<start+length; i++){
+            if(chars[i]=='\n'){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>Only asks for a layout pass if the height of the text changed, otherwise just moves it into place</p>
+     *
+     * @param oldHeight The height of the previous text
+     */
+    private void onTextChanged(int oldHeight){
+        if(oldHeight!=getTextHeight() || textLayoutWidth<0){
+            requestLayout();
+        } else {
+            positionText();
+        }
+        invalidate();
+    }
+
+
+    /*****************************************Layout***********************************************/
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width=MeasureSpec.getSize(widthMeasureSpec);
+        if(MeasureSpec.getMode(widthMeasureSpec)==MeasureSpec.UNSPECIFIED){
+            width=getSuggestedMinimumWidth();
+        }
+
+        int height=getPaddingTop()+measureContentHeight(width)+getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        updateGeometry();
+    }
+
+    @Override
+    public void onRtlPropertiesChanged(int layoutDirection) {
+        super.onRtlPropertiesChanged(layoutDirection);
+        updateGeometry();
+        invalidate();
+    }
+
+    private boolean isTextBesideRing(){
+        return textBesideBar && barStyle==ProgressRibbon.BAR_ROUND;
+    }
+
+    private int getBarHeight(){
+        return (barStyle==ProgressRibbon.BAR_ROUND) ? ringSize : barBoxHeight;
+    }
+
+    private int getTextHeight(){
+        if(textChars!=null){
+            //Same as a single line StaticLayout without font padding
+            textPaint.getFontMetricsInt(fontMetrics);
+            return fontMetrics.descent-fontMetrics.ascent;
+        }
+        return (textLayout==null) ? 0 : textLayout.getHeight();
+    }
+
+    private boolean hasText(){
+        return textLayout!=null || textChars!=null;
+    }
+
+    /**
+     * <p>Works out the height of the bar and text together, laying out the text for the available width if needed</p>
+     *
+     * @param width The full width of the view
+     * @return The height of the content, without paddings
+     */
+    private int measureContentHeight(int width){
+        int contentWidth=Math.max(0, width-getPaddingLeft()-getPaddingRight());
+        int textWidth=isTextBesideRing() ? Math.max(0, contentWidth-ringSize-2*ringMargin-textEndPadding) : contentWidth;
+
+        if(textWidth!=textLayoutWidth){
+            buildTextLayout(textWidth);
+        }
+
+        if(isTextBesideRing()){
+            return Math.max(getBarHeight(), getTextHeight());
+        } else if(hasText()){
+            return getBarHeight()+textGap+getTextHeight();
+        } else {
+            return getBarHeight();
+        }
+    }
+
+    private void buildTextLayout(int width){
+        textLayoutWidth=width;
+
+        if(textChars!=null){
+            //The text size may have changed too
+            textCharsWidth=textPaint.measureText(textChars, textCharsStart, textCharsLength);
+            if(width>0 && textCharsWidth<=width){
+                return;
+            }
+            //No longer fits on one line
+            text=new String(textChars, textCharsStart, textCharsLength);
+            textChars=null;
+        }
+
+        if(text.length()==0 || width<=0){
+            textLayout=null;
+        } else {
+            textLayout=newStaticLayout(text, textPaint, width);
+        }
+    }
+
+    /**
+     * <p>Centred, without font padding. The Builder is API 23 and up, the constructor it replaces is deprecated from there</p>
+     */
+    @SuppressWarnings("deprecation")
+    private static StaticLayout newStaticLayout(CharSequence text, TextPaint paint, int width){
+        if(Build.VERSION.SDK_INT>=Build.VERSION_CODES.M) {
+            return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                    .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                    .setLineSpacing(0.0f, 1.0f)
+                    .setIncludePad(false)
+                    .build();
+        }
+        return new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_CENTER, 1.0f, 0.0f, false);
+    }
+
+    /**
+     * <p>Recalculates where the backgrounds, bar and text go. Only called when something moves, never from onDraw</p>
+     */
+    private void updateGeometry(){
+        int width=getWidth();
+        int height=getHeight();
+
+        outerRect.set(0, 0, width, height);
+
+        if(dialogueMode){
+            //The stroke is centred on the edge, so pull it in by half its width
+            float halfStroke=borderSize/2.0f;
+            innerRect.set(halfStroke, halfStroke, width-halfStroke, height-halfStroke);
+        } else {
+            innerRect.set(0, borderSize, width, height-borderSize);
+        }
+
+        boolean isRtl=(getLayoutDirection()==LAYOUT_DIRECTION_RTL);
+        int left=getPaddingLeft();
+        int right=width-getPaddingRight();
+        int top=getPaddingTop();
+        int contentHeight=height-getPaddingTop()-getPaddingBottom();
+
+        if(barStyle==ProgressRibbon.BAR_ROUND){
+            float ringLeft;
+            float ringTop;
+
+            if(isTextBesideRing()){
+                ringLeft=isRtl ? right-ringMargin-ringSize : left+ringMargin;
+                ringTop=top+(contentHeight-ringSize)/2.0f;
+            } else {
+                ringLeft=left+(right-left-ringSize)/2.0f;
+                ringTop=top;
+            }
+
+            float inset=ringThickness/2.0f;
+            ringRect.set(ringLeft+inset, ringTop+inset, ringLeft+ringSize-inset, ringTop+ringSize-inset);
+        } else {
+            float barTop=top+(barBoxHeight-barThickness)/2.0f;
+            barRect.set(left, barTop, right, barTop+barThickness);
+        }
+
+        positionText();
+    }
+
+    private void positionText(){
+        if(!hasText()){
+            return;
+        }
+
+        int left=getPaddingLeft();
+        int right=getWidth()-getPaddingRight();
+        int top=getPaddingTop();
+
+        if(isTextBesideRing()){
+            boolean isRtl=(getLayoutDirection()==LAYOUT_DIRECTION_RTL);
+            int contentHeight=getHeight()-getPaddingTop()-getPaddingBottom();
+            textLeft=isRtl ? left+textEndPadding : left+ringSize+2*ringMargin;
+            textTop=top+(contentHeight-getTextHeight())/2.0f;
+        } else {
+            textLeft=left+(right-left-textLayoutWidth)/2.0f;
+            textTop=top+getBarHeight()+textGap;
+        }
+    }
+
+
+    /*****************************************Drawing**********************************************/
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        //A background drawable set from the outside takes over from the drawn one
+        if(getBackground()==null){
+            drawRibbonBackground(canvas);
+        }
+
+        if(barStyle==ProgressRibbon.BAR_ROUND){
+            drawRing(canvas);
+        } else {
+            drawBar(canvas);
+        }
+
+        if(textChars!=null){
+            //Centred in the same box a StaticLayout would get. fontMetrics were refreshed by getTextHeight() when positioning
+            float x=textLeft+(textLayoutWidth-textCharsWidth)/2.0f;
+            canvas.drawText(textChars, textCharsStart, textCharsLength, x, textTop-fontMetrics.ascent, textPaint);
+        } else if(textLayout!=null){
+            int saveCount=canvas.save();
+            canvas.translate(textLeft, textTop);
+            textLayout.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+
+        if(indeterminate && isShown()){
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private void drawRibbonBackground(Canvas canvas){
+        if(dialogueMode){
+            canvas.drawRoundRect(innerRect, cornerRadius, cornerRadius, backgroundPaint);
+            if(borderSize>0){
+                canvas.drawRoundRect(innerRect, cornerRadius, cornerRadius, borderPaint);
+            }
+        } else {
+            //Same as the default layer-list: border colour behind, background inset by the border size at the top and bottom
+            if(borderSize>0){
+                canvas.drawRect(outerRect, borderPaint);
+            }
+            canvas.drawRect(innerRect, backgroundPaint);
+        }
+    }
+
+    private void drawRing(Canvas canvas){
+        canvas.drawOval(ringRect, trackPaint);
+
+        if(indeterminate){
+            float phase=getIndeterminatePhase();
+            float grow=(phase<0.5f) ? phase*2.0f : (1.0f-phase)*2.0f;
+            float sweep=20.0f+250.0f*grow;
+            float start=-90.0f+720.0f*phase;
+            canvas.drawArc(ringRect, start, sweep, false, progressPaint);
+        } else {
+            if(secondaryProgressLevel>0){
+                canvas.drawArc(ringRect, -90.0f, 360.0f*secondaryProgressLevel/MAX_LEVEL, false, secondaryProgressPaint);
+            }
+            if(progressLevel>0){
+                canvas.drawArc(ringRect, -90.0f, 360.0f*progressLevel/MAX_LEVEL, false, progressPaint);
+            }
+        }
+    }
+
+    private void drawBar(Canvas canvas){
+        canvas.drawRect(barRect, trackPaint);
+
+        if(indeterminate){
+            //A segment a third of the bar long, sliding across it
+            float segment=barRect.width()/3.0f;
+            float offset=(barRect.width()+segment)*getIndeterminatePhase()-segment;
+            scratchRect.set(Math.max(barRect.left, barRect.left+offset), barRect.top,
+                    Math.min(barRect.right, barRect.left+offset+segment), barRect.bottom);
+            mirrorForRtl(scratchRect);
+            canvas.drawRect(scratchRect, progressPaint);
+        } else {
+            if(secondaryProgressLevel>0){
+                setBarSegment(secondaryProgressLevel);
+                canvas.drawRect(scratchRect, secondaryProgressPaint);
+            }
+            if(progressLevel>0){
+                setBarSegment(progressLevel);
+                canvas.drawRect(scratchRect, progressPaint);
+            }
+        }
+    }
+
+    private void setBarSegment(int level){
+        scratchRect.set(barRect.left, barRect.top, barRect.left+barRect.width()*level/MAX_LEVEL, barRect.bottom);
+        mirrorForRtl(scratchRect);
+    }
+
+    private void mirrorForRtl(RectF rect){
+        if(getLayoutDirection()==LAYOUT_DIRECTION_RTL){
+            float left=barRect.right-(rect.right-barRect.left);
+            float right=barRect.right-(rect.left-barRect.left);
+            rect.left=left;
+            rect.right=right;
+        }
+    }
+
+    /**
+     * @return Where the indeterminate animation is in its cycle, between 0 and 1
+     */
+    private float getIndeterminatePhase(){
+        return (AnimationUtils.currentAnimationTimeMillis()%INDETERMINATE_CYCLE_MILLIS)/(float) INDETERMINATE_CYCLE_MILLIS;
+    }
+
+
+    /*****************************************Helpers**********************************************/
+
+    private void setRingPaints(boolean isRing){
+        Paint.Style style=isRing ? Paint.Style.STROKE : Paint.Style.FILL;
+        trackPaint.setStyle(style);
+        secondaryProgressPaint.setStyle(style);
+        progressPaint.setStyle(style);
+        trackPaint.setStrokeWidth(ringThickness);
+        secondaryProgressPaint.setStrokeWidth(ringThickness);
+        progressPaint.setStrokeWidth(ringThickness);
+    }
+
+    private int dpToPx(float dp){
+        return Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, getResources().getDisplayMetrics()));
+    }
+
+    private static int withAlpha(@ColorInt int color, float alpha){
+        return Color.argb(Math.round(Color.alpha(color)*alpha), Color.red(color), Color.green(color), Color.blue(color));
+    }
+
+    /**
+     * <p>The same colour the compound widget's drawables are tinted with, or the accent colour on older devices</p>
+     */
+    private static int resolveActivatedColour(Context context){
+        if(Build.VERSION.SDK_INT>=Build.VERSION_CODES.LOLLIPOP) {
+            TypedValue outValue=new TypedValue();
+            if(context.getTheme().resolveAttribute(android.R.attr.colorControlActivated, outValue, true)){
+                return outValue.resourceId==0 ? outValue.data : ContextCompat.getColor(context, outValue.resourceId);
+            }
+        }
+        return ContextCompat.getColor(context, R.color.colorAccent);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.os.Build;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.util.TypedValue;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.StyleRes;
+import androidx.core.content.ContextCompat;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * <p>The default looks of a {@link ProgressRibbon} (theme colours and sizes that depend on the screen), as resolved for one
+ * {@link Resources.Theme} and {@link Configuration}.</p>
+ * <br />
+ * <p>Resolving these means a handful of theme attribute lookups and resource reads, which used to happen for every
+ * single ribbon created. Now they are resolved once per theme, and every ribbon with the same theme just picks them up from here.
+ * Themes are only weakly referenced, so they go away with their {@link android.app.Activity}. An entry is resolved again
+ * if the configuration of its theme has changed since, and the whole lot is dropped whenever the app's configuration changes
+ * (or memory runs low), so a rotation or a switch to night mode never leaves stale colours around.</p>
+ * <br />
+ * <p>The {@link RibbonStyle}s parsed in a theme are kept here as well, so they go with the defaults they were built on.</p>
+ */
+final class RibbonDefaults {
+
+    private static final Map<Resources.Theme, RibbonDefaults> CACHE=new WeakHashMap<>();
+
+    /**
+     * <p>Set once the cache is listening for configuration changes, see {@link RibbonDefaults#registerCallbacks(Context)}</p>
+     */
+    private static boolean callbacksRegistered;
+
+    /**
+     * <p>The configuration these were resolved with</p>
+     */
+    private final Configuration configuration;
+
+    final int padding,
+            borderSize,
+            borderColor,
+            textColor,
+            textSize,
+            backgroundColor;
+    final float borderRadius;
+
+    /**
+     * <p>Styles built on these defaults, created when first asked for</p>
+     */
+    private RibbonStyle defaultStyle;
+    private RibbonStyle xmlDefaultStyle;
+    private final SparseArray<RibbonStyle> styles=new SparseArray<>();
+
+    private RibbonDefaults(Context context){
+        Resources resources=context.getResources();
+        DisplayMetrics metrics=resources.getDisplayMetrics();
+
+        configuration=new Configuration(resources.getConfiguration());
+
+        //A decent enough default
+        padding=Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16, metrics));
+        //Default border is 1dp thick
+        borderSize=Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, metrics));
+        //Decent enough text size
+        textSize=Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16, metrics));
+        //A decent enough default
+        borderRadius=TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 8.0f, metrics);
+
+        /**
+         * Now there is a difference before and after SDK{@value Build.VERSION_CODES.LOLLIPOP}
+         * It's because of the resolver method used (I have no idea how to do this pre-Lollipop)
+         */
+        if(Build.VERSION.SDK_INT>=Build.VERSION_CODES.LOLLIPOP) {
+            //Should pull it in from the host app, if non found, use our own default
+            borderColor=resolveAppThemeColour(context, android.R.attr.colorPrimary);
+            //Pretty much the same across devices, but shoudl conform to the app's settings if differen
+            textColor=resolveAppThemeColour(context, android.R.attr.textColorPrimary);
+            //Default app background colour, or white, if all else fails
+            backgroundColor=resolveAppThemeColour(context, android.R.attr.windowBackground);
+        } else {
+            //Should pull it in frrom the built in resource
+            borderColor=ContextCompat.getColor(context, R.color.colorPrimary);
+            //Should pull it in frrom the built in resource
+            textColor=ContextCompat.getColor(context, R.color.textColorPrimary);
+            //White's as good as anything
+            backgroundColor=ContextCompat.getColor(context, android.R.color.white);
+        }
+    }
+
+    /**
+     * <p>Get the defaults for the given {@link Context}'s theme, resolving them only if they're not known yet, or the
+     * configuration has changed since they were</p>
+     *
+     * @param context The ribbon's {@link Context}
+     * @return The defaults for its theme
+     */
+    @NonNull
+    static synchronized RibbonDefaults get(@NonNull Context context){
+        registerCallbacks(context);
+
+        Resources.Theme theme=context.getTheme();
+        RibbonDefaults defaults=CACHE.get(theme);
+
+        if(defaults==null || !defaults.configuration.equals(context.getResources().getConfiguration())){
+            defaults=new RibbonDefaults(context);
+            CACHE.put(theme, defaults);
+        }
+
+        return defaults;
+    }
+
+    /**
+     * @return The out-of-the-box style of dynamically created ribbons, see {@link RibbonStyle#getDefault(Context)}
+     */
+    synchronized RibbonStyle getDefaultStyle(){
+        if(defaultStyle==null){
+            defaultStyle=RibbonStyle.createDefault(this);
+        }
+        return defaultStyle;
+    }
+
+    /**
+     * @return The style of an XML defined ribbon without any attributes
+     */
+    synchronized RibbonStyle getXmlDefaultStyle(Context context){
+        if(xmlDefaultStyle==null){
+            xmlDefaultStyle=RibbonStyle.createXmlDefault(this, context.getResources());
+        }
+        return xmlDefaultStyle;
+    }
+
+    /**
+     * @return The style defined by a style resource, parsed only the first time, see {@link RibbonStyle#fromResource(Context, int)}
+     */
+    synchronized RibbonStyle getStyle(Context context, @StyleRes int styleRes){
+        RibbonStyle style=styles.get(styleRes);
+
+        if(style==null){
+            style=RibbonStyle.parse(context, styleRes, this, getXmlDefaultStyle(context));
+            styles.put(styleRes, style);
+        }
+        return style;
+    }
+
+    /**
+     * <p>Drops everything, the next ribbon resolves its defaults again</p>
+     */
+    static synchronized void clear(){
+        CACHE.clear();
+    }
+
+    /**
+     * <p>Listens to the app's configuration changes (once), so that nothing resolved for the old configuration is kept</p>
+     */
+    private static void registerCallbacks(Context context){
+        if(callbacksRegistered){
+            return;
+        }
+
+        Context appContext=context.getApplicationContext();
+        if(appContext==null){
+            //Happens e.g. in layout previews. Entries still get checked against the configuration though
+            return;
+        }
+
+        appContext.registerComponentCallbacks(new ComponentCallbacks() {
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+                clear();
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+            }
+        });
+        callbacksRegistered=true;
+    }
+
+
+    /**
+     * <p>An attempt to resolve some of the application's colours in a failsafe way. If nothing helps, use the declared default</p>
+     * <br />
+     * <p>Credit for this solution goes to <https://mbcdev.com/2017/01/16/resolving-android-theme-colours-programmatically/></p>
+     *
+     * @param context The {@link Context} whose theme to resolve against
+     * @param attrId <p>The color id to resolve. Accepted values are
+     *                  <ul>
+     *                      <li>{@link android.R.attr#colorPrimary}</li>
+     *                      <li>{@link android.R.attr#colorAccent}</li>
+     *                      <li>{@link android.R.attr#textColorPrimary}</li>
+     *                      <li>{@link android.R.attr#windowBackground}</li>
+     *                  </ul>
+     *                  These require min. SDK{@value android.os.Build.VERSION_CODES#LOLLIPOP}, so on earlier versions a more
+     *                  direct approach should be used. ToDo: Figure out how to do this pre-Lollipop
+     *                </p>
+     *               <br />
+     *               <p>Note {@link android.R.attr#colorAccent} is not currently used and is only included for future convenience</p>
+     *
+     * @return The resolved {@link  ColorInt}
+     */
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    @ColorInt
+    private static int resolveAppThemeColour(Context context, int attrId){
+
+        TypedValue outValue = new TypedValue();
+        Resources.Theme theme = context.getTheme();
+        boolean wasResolved =
+                theme.resolveAttribute(
+                        attrId, outValue, true);
+        if (wasResolved) {
+            return outValue.resourceId == 0 ? outValue.data : ContextCompat.getColor(context, outValue.resourceId);
+        } else {
+            //Fallback colour handling
+            switch(attrId){
+                case android.R.attr.colorPrimary: {
+                    return ContextCompat.getColor(context, R.color.colorPrimary);
+                }
+                case android.R.attr.colorAccent: {
+                    return ContextCompat.getColor(context, R.color.colorAccent);
+                }
+                case android.R.attr.textColorPrimary: {
+                    return ContextCompat.getColor(context, R.color.textColorPrimary);
+                }
+                default: {
+                    if (attrId >= TypedValue.TYPE_FIRST_COLOR_INT && attrId <= TypedValue.TYPE_LAST_COLOR_INT) {
+                        return ContextCompat.getColor(context, attrId);
+                    } else {
+                        //The absolute last resource
+                        return ContextCompat.getColor(context, android.R.color.white);
+                    }
+                }
+            }
+        }
+    }
+}
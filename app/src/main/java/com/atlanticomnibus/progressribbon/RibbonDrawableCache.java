@@ -0,0 +1,182 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.InsetDrawable;
+import android.graphics.drawable.LayerDrawable;
+
+import androidx.annotation.ColorInt;
+import androidx.core.content.ContextCompat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Process-wide cache of the backgrounds of compound mode {@link ProgressRibbon}s, keyed by everything that makes
+ * them look the way they do: mode, background colour, border colour, border size, corner radius (and screen density).</p>
+ * <br />
+ * <p>Only the {@link Drawable.ConstantState}s are kept, so ribbons that look the same share a single drawable state,
+ * each getting its own lightweight {@link Drawable} on top of it. A drawable is only inflated and
+ * {@link Drawable#mutate() mutated} when a ribbon looks different from every one cached. As states are shared, these
+ * drawables must never be changed in place: a ribbon that changes its looks simply gets another one from here.</p>
+ * <br />
+ * <p>The least recently used looks are dropped once there are more than {@link RibbonDrawableCache#MAX_SIZE}.</p>
+ */
+final class RibbonDrawableCache {
+
+    /**
+     * <p>No app will have more different ribbons than this, but just in case</p>
+     */
+    static final int MAX_SIZE=16;
+
+    private static final Map<Key, Drawable.ConstantState> CACHE=new LinkedHashMap<Key, Drawable.ConstantState>(MAX_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Drawable.ConstantState> eldest) {
+            return size()>MAX_SIZE;
+        }
+    };
+
+    private RibbonDrawableCache(){
+        //Static stuff only
+    }
+
+    /**
+     * <p>Returns a background for the given looks, sharing its state with every other one handed out for the same looks</p>
+     *
+     * @param context Context to inflate the drawable with, if it is not cached yet
+     * @param key The looks, see {@link RibbonDrawableCache#keyFor(Context, boolean, int, int, int, float)}
+     * @return A new {@link Drawable}, which must not be modified
+     */
+    static synchronized Drawable obtain(Context context, Key key){
+        Resources resources=context.getResources();
+
+        Drawable.ConstantState state=CACHE.get(key);
+        if(state!=null){
+            return state.newDrawable(resources);
+        }
+
+        Drawable drawable=key.isInDialogueMode
+                ? createDialogueBackground(context, key.backgroundColor, key.borderColor, key.borderSize, key.borderRadius)
+                : createDefaultBackground(context, key.backgroundColor, key.borderColor, key.borderSize);
+
+        state=drawable.getConstantState();
+        if(state!=null){
+            CACHE.put(key, state);
+        }
+        return drawable;
+    }
+
+    /**
+     * <p>Puts together the key for a ribbon's looks</p>
+     *
+     * @param context Context, for the screen density
+     * @param isInDialogueMode Dialogue mode (rounded box) or default (full width ribbon)
+     * @param backgroundColor Background colour
+     * @param borderColor Border colour
+     * @param borderSize Border size in pixels
+     * @param borderRadius Corner radius in pixels, only used in dialogue mode
+     * @return The key
+     */
+    static Key keyFor(Context context, boolean isInDialogueMode, @ColorInt int backgroundColor,
+                      @ColorInt int borderColor, int borderSize, float borderRadius){
+        return new Key(isInDialogueMode, backgroundColor, borderColor, borderSize,
+                isInDialogueMode ? borderRadius : 0.0f, context.getResources().getDisplayMetrics().densityDpi);
+    }
+
+    /**
+     * <p>Drops everything. Ribbons keep the drawables they have</p>
+     */
+    static synchronized void clear(){
+        CACHE.clear();
+    }
+
+    private static Drawable createDialogueBackground(Context context, int backgroundColor, int borderColor, int borderSize, float borderRadius){
+        GradientDrawable bg=(GradientDrawable) ContextCompat.getDrawable(context, R.drawable.ribbon_dialogue_bg).mutate();
+        bg.setColor(backgroundColor);
+        bg.setStroke(borderSize, borderColor);
+        bg.setCornerRadius(borderRadius);
+        return bg;
+    }
+
+    private static Drawable createDefaultBackground(Context context, int backgroundColor, int borderColor, int borderSize){
+        LayerDrawable bg=(LayerDrawable) ContextCompat.getDrawable(context, R.drawable.ribbon_default_bg).mutate();
+        //Layer 0 is the border colour behind, layer 1 the background, inset by the border size at the top and bottom
+        ((GradientDrawable) bg.getDrawable(0)).setColor(borderColor);
+        ((GradientDrawable) ((InsetDrawable) bg.getDrawable(1)).getDrawable()).setColor(backgroundColor);
+        bg.setLayerInset(1, 0, borderSize, 0, borderSize);
+        return bg;
+    }
+
+    /**
+     * <p>The looks of a ribbon background</p>
+     */
+    static final class Key {
+        private final boolean isInDialogueMode;
+        private final int backgroundColor;
+        private final int borderColor;
+        private final int borderSize;
+        private final float borderRadius;
+        private final int densityDpi;
+
+        Key(boolean isInDialogueMode, int backgroundColor, int borderColor, int borderSize, float borderRadius, int densityDpi){
+            this.isInDialogueMode=isInDialogueMode;
+            this.backgroundColor=backgroundColor;
+            this.borderColor=borderColor;
+            this.borderSize=borderSize;
+            this.borderRadius=borderRadius;
+            this.densityDpi=densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this==o){
+                return true;
+            }
+            if(!(o instanceof Key)){
+                return false;
+            }
+            Key other=(Key) o;
+            return isInDialogueMode==other.isInDialogueMode
+                    && backgroundColor==other.backgroundColor
+                    && borderColor==other.borderColor
+                    && borderSize==other.borderSize
+                    && Float.compare(borderRadius, other.borderRadius)==0
+                    && densityDpi==other.densityDpi;
+        }
+
+        @Override
+        public int hashCode() {
+            int result=isInDialogueMode ? 1 : 0;
+            result=31*result+backgroundColor;
+            result=31*result+borderColor;
+            result=31*result+borderSize;
+            result=31*result+Float.floatToIntBits(borderRadius);
+            result=31*result+densityDpi;
+            return result;
+        }
+    }
+}
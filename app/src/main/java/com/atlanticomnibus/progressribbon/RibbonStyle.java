@@ -0,0 +1,681 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.Px;
+import androidx.annotation.StyleRes;
+
+/**
+ * <p>An immutable, ready-to-apply set of {@link ProgressRibbon} looks and settings: everything that can be set with the
+ * <code>ProgressRibbon</code> XML attributes, with every colour already resolved and every size already in pixels.</p>
+ * <br />
+ * <p>Parsing attributes and converting dimensions is the slow part of setting up a ribbon, and it used to happen for every single
+ * one, even if they all looked exactly the same. A {@link RibbonStyle} does that once, and can then be applied to any number
+ * of ribbons, in one go, with {@link ProgressRibbon#setRibbonStyle(RibbonStyle)}, or straight from the constructor.
+ * Styles built from a style resource with {@link RibbonStyle#fromResource(Context, int)} are cached per theme (and thrown away
+ * when the configuration changes), so only the first ribbon using it pays for the parsing. XML inflated ribbons use the same
+ * cache for their <code>style</code> attribute, and only parse the attributes set on their own tag.</p>
+ *
+ * <pre>
+ *     //Once
+ *     RibbonStyle style=new RibbonStyle.Builder(context)
+ *             .setDialogueMode(true)
+ *             .setBorderColor(Color.RED)
+ *             .setProgressBarStyle(ProgressRibbon.BAR_HORIZONTAL)
+ *             .build();
+ *
+ *     //Any number of times
+ *     ProgressRibbon ribbon=new ProgressRibbon(activity, parentView, style);
+ * </pre>
+ */
+public final class RibbonStyle {
+
+    /**
+     * <p>Default elevation of dynamically created ribbons, same as <code>RibbonData.DEFAULT_RIBBON_ELEVATION</code></p>
+     */
+    private static final int DEFAULT_ELEVATION=24;
+
+    final int showDelay,
+            hideDelay,
+            minimumShowTime,
+            progressBarStyle,
+            renderMode,
+            animationDuration,
+            animationType,
+            paddingTop,
+            paddingBottom,
+            marginTop,
+            marginBottom,
+            borderSize,
+            borderColor,
+            backgroundColor,
+            progressTextColor,
+            progressTextSize;
+    final long min,
+            max,
+            progress;
+    final float borderRadius,
+            elevation;
+    final boolean isIndeterminate,
+            blocksUnderlying,
+            textBesideBar,
+            isInDialogueMode,
+            isBorderless,
+            reportProgressAsMaxPercent,
+            marginTopIsPercent,
+            marginBottomIsPercent,
+            doNotShowOnAttach,
+            lazyHierarchy;
+    @Nullable
+    final String progressText;
+
+    private RibbonStyle(Builder builder){
+        showDelay=builder.showDelay;
+        hideDelay=builder.hideDelay;
+        minimumShowTime=builder.minimumShowTime;
+        progressBarStyle=builder.progressBarStyle;
+        renderMode=builder.renderMode;
+        animationDuration=builder.animationDuration;
+        animationType=builder.animationType;
+        paddingTop=builder.paddingTop;
+        paddingBottom=builder.paddingBottom;
+        marginTop=builder.marginTop;
+        marginBottom=builder.marginBottom;
+        borderSize=builder.borderSize;
+        borderColor=builder.borderColor;
+        backgroundColor=builder.backgroundColor;
+        progressTextColor=builder.progressTextColor;
+        progressTextSize=builder.progressTextSize;
+        min=builder.min;
+        max=builder.max;
+        progress=builder.progress;
+        borderRadius=builder.borderRadius;
+        elevation=builder.elevation;
+        isIndeterminate=builder.isIndeterminate;
+        blocksUnderlying=builder.blocksUnderlying;
+        textBesideBar=builder.textBesideBar;
+        isInDialogueMode=builder.isInDialogueMode;
+        isBorderless=builder.isBorderless;
+        reportProgressAsMaxPercent=builder.reportProgressAsMaxPercent;
+        marginTopIsPercent=builder.marginTopIsPercent;
+        marginBottomIsPercent=builder.marginBottomIsPercent;
+        doNotShowOnAttach=builder.doNotShowOnAttach;
+        lazyHierarchy=builder.lazyHierarchy;
+        progressText=builder.progressText;
+    }
+
+    /**
+     * <p>The style a dynamically created {@link ProgressRibbon} has out of the box, in the given {@link Context}'s theme</p>
+     *
+     * @param context The {@link Context} whose theme to use
+     * @return The (shared) default style
+     */
+    @NonNull
+    public static RibbonStyle getDefault(@NonNull Context context){
+        return RibbonDefaults.get(context).getDefaultStyle();
+    }
+
+    /**
+     * <p>Get the style defined by a style resource, using the same attributes as an XML defined {@link ProgressRibbon}. Anything
+     * the style does not set is what an XML defined ribbon would have.</p>
+     * <br />
+     * <p>Parsed only once per theme and configuration, any later call just returns the same instance</p>
+     *
+     * @param context The {@link Context} whose theme to resolve the style in
+     * @param styleRes The style resource
+     * @return The (shared) style
+     */
+    @NonNull
+    public static RibbonStyle fromResource(@NonNull Context context, @StyleRes int styleRes){
+        return RibbonDefaults.get(context).getStyle(context, styleRes);
+    }
+
+    /**
+     * <p>The style of an XML defined {@link ProgressRibbon}. Starts from its <code>style</code> attribute (if any) as returned
+     * by {@link RibbonStyle#fromResource(Context, int)}, and only parses whatever the tag sets on its own. If it sets
+     * nothing, there's nothing to parse at all.</p>
+     *
+     * @param context The {@link Context}
+     * @param attrs The attributes of the tag
+     * @return The style
+     */
+    @NonNull
+    static RibbonStyle fromAttributes(@NonNull Context context, @Nullable AttributeSet attrs){
+        RibbonDefaults defaults=RibbonDefaults.get(context);
+
+        if(attrs==null){
+            return defaults.getXmlDefaultStyle(context);
+        }
+
+        int styleRes=attrs.getStyleAttribute();
+        RibbonStyle base=(styleRes!=0) ? defaults.getStyle(context, styleRes) : defaults.getXmlDefaultStyle(context);
+
+        //Which of our attributes are on the tag itself
+        boolean[] onTag=null;
+        for(int i=0; i<attrs.getAttributeCount(); i++){
+            int index=indexOf(R.styleable.ProgressRibbon, attrs.getAttributeNameResource(i));
+
+            if(index>=0){
+                if(onTag==null){
+                    onTag=new boolean[R.styleable.ProgressRibbon.length];
+                }
+                onTag[index]=true;
+            }
+        }
+
+        if(onTag==null){
+            return base;
+        }
+
+        TypedArray a=context.getTheme().obtainStyledAttributes(attrs, R.styleable.ProgressRibbon, 0, 0);
+        try {
+            return new Builder(base).readAttributes(a, onTag, context.getResources(), defaults).build();
+        } finally {
+            a.recycle();
+        }
+    }
+
+    /**
+     * <p>Builds the out-of-the-box style of dynamically created ribbons, see <code>RibbonData.applyDefaults()</code></p>
+     */
+    static RibbonStyle createDefault(RibbonDefaults defaults){
+        Builder builder=new Builder();
+
+        builder.min=0;
+        builder.max=100;
+        builder.progress=0;
+        builder.progressBarStyle=ProgressRibbon.BAR_ROUND;
+        builder.renderMode=ProgressRibbon.RENDER_COMPOUND;
+        builder.animationDuration=300;
+        builder.animationType=ProgressRibbon.DO_NOT_ANIMATE;
+        builder.paddingTop=defaults.padding;
+        builder.paddingBottom=defaults.padding;
+        builder.borderSize=defaults.borderSize;
+        builder.borderRadius=defaults.borderRadius;
+        builder.borderColor=defaults.borderColor;
+        builder.backgroundColor=defaults.backgroundColor;
+        builder.elevation=DEFAULT_ELEVATION;
+        builder.progressTextColor=defaults.textColor;
+        builder.progressTextSize=defaults.textSize;
+        builder.blocksUnderlying=true;
+        builder.isIndeterminate=true;
+
+        return builder.build();
+    }
+
+    /**
+     * <p>Builds the style of an XML defined ribbon that has no attributes at all. It differs from {@link RibbonStyle#createDefault(RibbonDefaults)}
+     * in a few places (not blocking, elevation)</p>
+     */
+    static RibbonStyle createXmlDefault(RibbonDefaults defaults, Resources resources){
+        Builder builder=new Builder(createDefault(defaults));
+
+        builder.blocksUnderlying=false;
+        //Yes, that's converted twice. That's how XML ribbons have always been, so that's how they stay
+        float defaultElevationPixelSize=TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, defaults.borderSize, resources.getDisplayMetrics());
+        builder.elevation=TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, Math.round(defaultElevationPixelSize), resources.getDisplayMetrics());
+
+        return builder.build();
+    }
+
+    /**
+     * <p>Parses a style resource on top of the XML defaults</p>
+     */
+    static RibbonStyle parse(Context context, @StyleRes int styleRes, RibbonDefaults defaults, RibbonStyle xmlDefault){
+        TypedArray a=context.getTheme().obtainStyledAttributes(styleRes, R.styleable.ProgressRibbon);
+        try {
+            return new Builder(xmlDefault).readAttributes(a, null, context.getResources(), defaults).build();
+        } finally {
+            a.recycle();
+        }
+    }
+
+    private static int indexOf(int[] array, int value){
+        for(int i=0; i<array.length; i++){
+            if(array[i]==value){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * <p>Builds a {@link RibbonStyle}. All sizes are in pixels, all colours are {@link ColorInt}s, and any value not set is what
+     * the builder started from</p>
+     */
+    public static final class Builder {
+
+        private int showDelay,
+                hideDelay,
+                minimumShowTime,
+                progressBarStyle,
+                renderMode,
+                animationDuration,
+                animationType,
+                paddingTop,
+                paddingBottom,
+                marginTop,
+                marginBottom,
+                borderSize,
+                borderColor,
+                backgroundColor,
+                progressTextColor,
+                progressTextSize;
+        private long min,
+                max,
+                progress;
+        private float borderRadius,
+                elevation;
+        private boolean isIndeterminate,
+                blocksUnderlying,
+                textBesideBar,
+                isInDialogueMode,
+                isBorderless,
+                reportProgressAsMaxPercent,
+                marginTopIsPercent,
+                marginBottomIsPercent,
+                doNotShowOnAttach,
+                lazyHierarchy;
+        private String progressText;
+
+        private Builder(){
+            //Everything zero, only for the defaults
+        }
+
+        /**
+         * <p>Start from the looks a dynamically created {@link ProgressRibbon} would have in the given {@link Context}</p>
+         *
+         * @param context The {@link Context} whose theme to use
+         */
+        public Builder(@NonNull Context context){
+            this(getDefault(context));
+        }
+
+        /**
+         * <p>Start from an existing style</p>
+         *
+         * @param style The style to copy
+         */
+        public Builder(@NonNull RibbonStyle style){
+            showDelay=style.showDelay;
+            hideDelay=style.hideDelay;
+            minimumShowTime=style.minimumShowTime;
+            progressBarStyle=style.progressBarStyle;
+            renderMode=style.renderMode;
+            animationDuration=style.animationDuration;
+            animationType=style.animationType;
+            paddingTop=style.paddingTop;
+            paddingBottom=style.paddingBottom;
+            marginTop=style.marginTop;
+            marginBottom=style.marginBottom;
+            borderSize=style.borderSize;
+            borderColor=style.borderColor;
+            backgroundColor=style.backgroundColor;
+            progressTextColor=style.progressTextColor;
+            progressTextSize=style.progressTextSize;
+            min=style.min;
+            max=style.max;
+            progress=style.progress;
+            borderRadius=style.borderRadius;
+            elevation=style.elevation;
+            isIndeterminate=style.isIndeterminate;
+            blocksUnderlying=style.blocksUnderlying;
+            textBesideBar=style.textBesideBar;
+            isInDialogueMode=style.isInDialogueMode;
+            isBorderless=style.isBorderless;
+            reportProgressAsMaxPercent=style.reportProgressAsMaxPercent;
+            marginTopIsPercent=style.marginTopIsPercent;
+            marginBottomIsPercent=style.marginBottomIsPercent;
+            doNotShowOnAttach=style.doNotShowOnAttach;
+            lazyHierarchy=style.lazyHierarchy;
+            progressText=style.progressText;
+        }
+
+        public Builder setShowDelay(@IntRange(from=0) int showDelay){
+            this.showDelay=showDelay;
+            return this;
+        }
+
+        public Builder setHideDelay(@IntRange(from=0) int hideDelay){
+            this.hideDelay=hideDelay;
+            return this;
+        }
+
+        public Builder setMinimumShowTime(@IntRange(from=0) int minimumShowTime){
+            this.minimumShowTime=minimumShowTime;
+            return this;
+        }
+
+        /**
+         * @param progressBarStyle {@link ProgressRibbon#BAR_ROUND} or {@link ProgressRibbon#BAR_HORIZONTAL}
+         */
+        public Builder setProgressBarStyle(int progressBarStyle){
+            this.progressBarStyle=progressBarStyle;
+            return this;
+        }
+
+        /**
+         * @param renderMode {@link ProgressRibbon#RENDER_COMPOUND} or {@link ProgressRibbon#RENDER_CANVAS}
+         */
+        public Builder setRenderMode(int renderMode){
+            this.renderMode=renderMode;
+            return this;
+        }
+
+        public Builder setAnimationDuration(@IntRange(from=0) int animationDuration){
+            this.animationDuration=animationDuration;
+            return this;
+        }
+
+        /**
+         * @param animationType {@link ProgressRibbon#DO_NOT_ANIMATE}, {@link ProgressRibbon#ANIMATE_FADE},
+         *                      {@link ProgressRibbon#ANIMATE_SCALE} or {@link ProgressRibbon#ANIMATE_SCALE_FADE}
+         */
+        public Builder setAnimationType(int animationType){
+            this.animationType=animationType;
+            return this;
+        }
+
+        public Builder setPadding(@Px int paddingTop, @Px int paddingBottom){
+            this.paddingTop=paddingTop;
+            this.paddingBottom=paddingBottom;
+            return this;
+        }
+
+        public Builder setMarginTop(@Px int marginTop){
+            this.marginTop=marginTop;
+            marginTopIsPercent=false;
+            return this;
+        }
+
+        public Builder setMarginBottom(@Px int marginBottom){
+            this.marginBottom=marginBottom;
+            marginBottomIsPercent=false;
+            return this;
+        }
+
+        /**
+         * <p>Top margin as a percentage of the parent's height, like the <code>ribbonMarginPercentTop</code> attribute</p>
+         */
+        public Builder setMarginTopPercent(@IntRange(from=0, to=100) int percent){
+            marginTop=percent;
+            marginTopIsPercent=true;
+            return this;
+        }
+
+        /**
+         * <p>Bottom margin as a percentage of the parent's height, like the <code>ribbonMarginPercentBottom</code> attribute</p>
+         */
+        public Builder setMarginBottomPercent(@IntRange(from=0, to=100) int percent){
+            marginBottom=percent;
+            marginBottomIsPercent=true;
+            return this;
+        }
+
+        public Builder setBorderSize(@Px int borderSize){
+            this.borderSize=borderSize;
+            return this;
+        }
+
+        public Builder setBorderColor(@ColorInt int borderColor){
+            this.borderColor=borderColor;
+            return this;
+        }
+
+        public Builder setBackgroundColor(@ColorInt int backgroundColor){
+            this.backgroundColor=backgroundColor;
+            return this;
+        }
+
+        /**
+         * <p>Same as setting both the border and background colours to {@link Color#TRANSPARENT}</p>
+         */
+        public Builder setTransparent(){
+            borderColor=Color.TRANSPARENT;
+            backgroundColor=Color.TRANSPARENT;
+            return this;
+        }
+
+        public Builder setBorderless(boolean isBorderless){
+            this.isBorderless=isBorderless;
+            return this;
+        }
+
+        /**
+         * <p>Corner radius in pixels, only used in dialogue mode</p>
+         */
+        public Builder setBorderRadius(@Px float borderRadius){
+            this.borderRadius=borderRadius;
+            return this;
+        }
+
+        public Builder setDialogueMode(boolean isInDialogueMode){
+            this.isInDialogueMode=isInDialogueMode;
+            return this;
+        }
+
+        public Builder setElevation(float elevation){
+            this.elevation=elevation;
+            return this;
+        }
+
+        public Builder setProgressTextColor(@ColorInt int progressTextColor){
+            this.progressTextColor=progressTextColor;
+            return this;
+        }
+
+        public Builder setProgressTextSize(@Px int progressTextSize){
+            this.progressTextSize=progressTextSize;
+            return this;
+        }
+
+        /**
+         * <p>Initial progress text. <code>null</code> leaves whatever text the ribbon has</p>
+         */
+        public Builder setProgressText(@Nullable String progressText){
+            this.progressText=progressText;
+            return this;
+        }
+
+        public Builder setTextBesideBar(boolean textBesideBar){
+            this.textBesideBar=textBesideBar;
+            return this;
+        }
+
+        public Builder setIndeterminate(boolean isIndeterminate){
+            this.isIndeterminate=isIndeterminate;
+            return this;
+        }
+
+        public Builder setMin(@IntRange(from=0) long min){
+            this.min=min;
+            return this;
+        }
+
+        public Builder setMax(@IntRange(from=0) long max){
+            this.max=max;
+            return this;
+        }
+
+        /**
+         * <p>Initial progress. Only used when the ribbon is created with the style, never when a style is applied later</p>
+         */
+        public Builder setProgress(@IntRange(from=0) long progress){
+            this.progress=progress;
+            return this;
+        }
+
+        public Builder setBlocksUnderlying(boolean blocksUnderlying){
+            this.blocksUnderlying=blocksUnderlying;
+            return this;
+        }
+
+        public Builder setReportProgressAsMaxPercent(boolean reportProgressAsMaxPercent){
+            this.reportProgressAsMaxPercent=reportProgressAsMaxPercent;
+            return this;
+        }
+
+        /**
+         * <p>Only means anything for XML defined ribbons, see the <code>doNotShowOnAttach</code> attribute</p>
+         */
+        public Builder setDoNotShowOnAttach(boolean doNotShowOnAttach){
+            this.doNotShowOnAttach=doNotShowOnAttach;
+            return this;
+        }
+
+        /**
+         * <p>Only means anything for XML defined ribbons, see the <code>lazyHierarchy</code> attribute</p>
+         */
+        public Builder setLazyHierarchy(boolean lazyHierarchy){
+            this.lazyHierarchy=lazyHierarchy;
+            return this;
+        }
+
+        @NonNull
+        public RibbonStyle build(){
+            return new RibbonStyle(this);
+        }
+
+        /**
+         * <p>Reads whatever the {@link TypedArray} has a value for (and the mask allows). Goes through the values that are actually
+         * there, instead of asking for every single attribute</p>
+         *
+         * @param a The attributes
+         * @param mask Indices to read, or <code>null</code> for all of them
+         * @param resources For the dimension conversions
+         * @param defaults For the defaults some attributes fall back on
+         * @return The builder
+         */
+        Builder readAttributes(TypedArray a, @Nullable boolean[] mask, Resources resources, RibbonDefaults defaults){
+            boolean isTransparent=false;
+
+            for(int i=0; i<a.getIndexCount(); i++){
+                int attr=a.getIndex(i);
+
+                if(mask!=null && !mask[attr]){
+                    continue;
+                }
+
+                //Library R fields are not final, so no switch here
+                if(attr==R.styleable.ProgressRibbon_progressText){
+                    progressText=a.getString(attr);
+                } else if(attr==R.styleable.ProgressRibbon_showDelay){
+                    showDelay=a.getInteger(attr, showDelay);
+                } else if(attr==R.styleable.ProgressRibbon_hideDelay){
+                    hideDelay=a.getInteger(attr, hideDelay);
+                } else if(attr==R.styleable.ProgressRibbon_minimumShowTime){
+                    minimumShowTime=a.getInteger(attr, minimumShowTime);
+                } else if(attr==R.styleable.ProgressRibbon_isIndeterminate){
+                    isIndeterminate=a.getBoolean(attr, isIndeterminate);
+                } else if(attr==R.styleable.ProgressRibbon_min){
+                    min=a.getInteger(attr, (int) min);
+                } else if(attr==R.styleable.ProgressRibbon_max){
+                    max=a.getInteger(attr, (int) max);
+                } else if(attr==R.styleable.ProgressRibbon_ribbonProgress){
+                    progress=a.getInteger(attr, (int) progress);
+                } else if(attr==R.styleable.ProgressRibbon_blockUnderlyingViews){
+                    blocksUnderlying=a.getBoolean(attr, blocksUnderlying);
+                } else if(attr==R.styleable.ProgressRibbon_progressBarType){
+                    progressBarStyle=a.getInteger(attr, progressBarStyle);
+                } else if(attr==R.styleable.ProgressRibbon_renderMode){
+                    renderMode=a.getInteger(attr, renderMode);
+                } else if(attr==R.styleable.ProgressRibbon_animationDuration){
+                    animationDuration=a.getInteger(attr, animationDuration);
+                } else if(attr==R.styleable.ProgressRibbon_animationType){
+                    animationType=a.getInteger(attr, animationType);
+                } else if(attr==R.styleable.ProgressRibbon_textBesideProgressBar){
+                    textBesideBar=a.getBoolean(attr, textBesideBar);
+                } else if(attr==R.styleable.ProgressRibbon_dialogueMode){
+                    isInDialogueMode=a.getBoolean(attr, isInDialogueMode);
+                } else if(attr==R.styleable.ProgressRibbon_borderThickness){
+                    borderSize=a.getDimensionPixelSize(attr, borderSize);
+                } else if(attr==R.styleable.ProgressRibbon_progressTextSize){
+                    progressTextSize=a.getDimensionPixelSize(attr, progressTextSize);
+                } else if(attr==R.styleable.ProgressRibbon_progressTextColor){
+                    progressTextColor=a.getColor(attr, progressTextColor);
+                } else if(attr==R.styleable.ProgressRibbon_ribbonPadding){
+                    paddingTop=a.getDimensionPixelSize(attr, paddingTop);
+                    paddingBottom=paddingTop;
+                } else if(attr==R.styleable.ProgressRibbon_reportProgressAsMaxPercent){
+                    reportProgressAsMaxPercent=a.getBoolean(attr, reportProgressAsMaxPercent);
+                } else if(attr==R.styleable.ProgressRibbon_transparent){
+                    isTransparent=a.getBoolean(attr, false);
+                } else if(attr==R.styleable.ProgressRibbon_borderColor){
+                    borderColor=a.getColor(attr, borderColor);
+                } else if(attr==R.styleable.ProgressRibbon_ribbonBackgroundColor){
+                    backgroundColor=a.getColor(attr, backgroundColor);
+                } else if(attr==R.styleable.ProgressRibbon_borderless){
+                    isBorderless=a.getBoolean(attr, isBorderless);
+                } else if(attr==R.styleable.ProgressRibbon_ribbonElevation){
+                    int elevationPixelSize=a.getDimensionPixelSize(attr, 0);
+                    elevation=TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, elevationPixelSize, resources.getDisplayMetrics());
+                } else if(attr==R.styleable.ProgressRibbon_borderRadius){
+                    /*Need the extra step here, as this is not defined as a dimension attribute, but needs to be translated, UNLESS it's explicitly zero*/
+                    float rawRadius=a.getFloat(attr, 0.0f);
+                    borderRadius=(rawRadius==0.0f) ? defaults.borderRadius
+                            : TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, rawRadius, resources.getDisplayMetrics());
+                } else if(attr==R.styleable.ProgressRibbon_ribbonMarginTop){
+                    marginTop=a.getDimensionPixelSize(attr, 0);
+                    marginTopIsPercent=false;
+                } else if(attr==R.styleable.ProgressRibbon_ribbonMarginBottom){
+                    marginBottom=a.getDimensionPixelSize(attr, 0);
+                    marginBottomIsPercent=false;
+                } else if(attr==R.styleable.ProgressRibbon_ribbonMarginPercentTop){
+                    //The fixed size margins win over the percentages, if both are there
+                    if(!a.hasValue(R.styleable.ProgressRibbon_ribbonMarginTop) || (mask!=null && !mask[R.styleable.ProgressRibbon_ribbonMarginTop])) {
+                        marginTop=a.getInteger(attr, 0);
+                        marginTopIsPercent=true;
+                    }
+                } else if(attr==R.styleable.ProgressRibbon_ribbonMarginPercentBottom){
+                    if(!a.hasValue(R.styleable.ProgressRibbon_ribbonMarginBottom) || (mask!=null && !mask[R.styleable.ProgressRibbon_ribbonMarginBottom])) {
+                        marginBottom=a.getInteger(attr, 0);
+                        marginBottomIsPercent=true;
+                    }
+                } else if(attr==R.styleable.ProgressRibbon_doNotShowOnAttach){
+                    doNotShowOnAttach=a.getBoolean(attr, doNotShowOnAttach);
+                } else if(attr==R.styleable.ProgressRibbon_lazyHierarchy){
+                    lazyHierarchy=a.getBoolean(attr, lazyHierarchy);
+                }
+            }
+
+            //Transparent trumps any colour
+            if(isTransparent){
+                setTransparent();
+            }
+
+            return this;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Several worker threads adding to one progress counter, while one other thread (the UI thread, once per frame in real
+ * life) reads the total. {@link ProgressAccumulator} against a single shared {@link AtomicLong}, for reference.</p>
+ */
+@State(Scope.Group)
+public class ProgressAccumulatorBenchmark {
+
+    private final ProgressAccumulator accumulator=new ProgressAccumulator();
+    private final AtomicLong atomicLong=new AtomicLong();
+
+    @Benchmark
+    @Group("accumulator")
+    @GroupThreads(4)
+    public void accumulatorAdd(){
+        accumulator.add(4096);
+    }
+
+    @Benchmark
+    @Group("accumulator")
+    @GroupThreads(1)
+    public long accumulatorSum(){
+        return accumulator.sum();
+    }
+
+    @Benchmark
+    @Group("atomicLong")
+    @GroupThreads(4)
+    public void atomicLongAdd(){
+        atomicLong.addAndGet(4096);
+    }
+
+    @Benchmark
+    @Group("atomicLong")
+    @GroupThreads(1)
+    public long atomicLongGet(){
+        return atomicLong.get();
+    }
+}
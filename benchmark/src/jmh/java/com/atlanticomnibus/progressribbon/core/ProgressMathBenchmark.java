@@ -0,0 +1,98 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * <p>The progress math behind every progress update: <code>ProgressRibbon.getProgressPercentage()</code>, the level of the
+ * round bar's secondary progress (see <code>updateCircularSecondaryProgress()</code>), and the scaling of the (long)
+ * progress onto the bar's resolution, both for everyday ranges and for ones big enough to need the slow path.</p>
+ */
+@State(Scope.Thread)
+public class ProgressMathBenchmark {
+
+    private static final int VALUES=1024;
+
+    private final long[] progressValues=new long[VALUES];
+    private final long[] hugeProgressValues=new long[VALUES];
+
+    private long min;
+    private long max;
+    private long hugeMax;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Random random=new Random(42);
+
+        min=0;
+        max=100_000;
+        //Something like a byte count of a huge download, where (value-min)*resolution would overflow a long
+        hugeMax=Long.MAX_VALUE/2;
+
+        for(int i=0; i<VALUES; i++){
+            progressValues[i]=(long) (random.nextDouble()*max);
+            hugeProgressValues[i]=(long) (random.nextDouble()*hugeMax);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void percentage(Blackhole blackhole){
+        for(int i=0; i<VALUES; i++){
+            blackhole.consume(ProgressMath.toPercentage(progressValues[i], min, max));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void circularSecondaryLevel(Blackhole blackhole){
+        for(int i=0; i<VALUES; i++){
+            blackhole.consume(ProgressMath.scale(progressValues[i], min, max, ProgressMath.BASIS_POINTS));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void barLevelHugeRange(Blackhole blackhole){
+        for(int i=0; i<VALUES; i++){
+            blackhole.consume(ProgressMath.scale(hugeProgressValues[i], min, hugeMax, ProgressMath.BASIS_POINTS));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void clampToInt(Blackhole blackhole){
+        for(int i=0; i<VALUES; i++){
+            blackhole.consume(ProgressMath.clampToInt(hugeProgressValues[i]));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+
+/**
+ * <p>Filling in a progress text on every update: the compiled {@link ProgressTextTemplate}, against building the same
+ * text with <code>String.format()</code>, the way it's usually done before calling <code>setProgressText()</code>.
+ * The GC profiler's allocation rate is the number to look at.</p>
+ */
+@State(Scope.Thread)
+public class ProgressTextTemplateBenchmark {
+
+    private static final int UPDATES=1024;
+    private static final long MAX=30_513_561L;
+
+    private ProgressTextTemplate template;
+    private long[] progressValues;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        template=new ProgressTextTemplate("{percent}% ({progress:MB} of {max:MB} MB, {eta} left)");
+        progressValues=new long[UPDATES];
+        for(int i=0; i<UPDATES; i++){
+            //Small steps, like a download reporting every few kilobytes
+            progressValues[i]=(MAX/UPDATES)*i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void template(Blackhole blackhole){
+        for(int i=0; i<UPDATES; i++){
+            blackhole.consume(template.update(progressValues[i], 0, MAX, 150_000, (MAX-progressValues[i])/150));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void stringFormat(Blackhole blackhole){
+        for(int i=0; i<UPDATES; i++){
+            long progress=progressValues[i];
+            long seconds=((MAX-progress)/150+999)/1000;
+            blackhole.consume(String.format(Locale.US, "%d%% (%.1f of %.1f MB, %d:%02d left)",
+                    ProgressMath.toPercentage(progress, 0, MAX), progress/1048576.0, MAX/1048576.0, seconds/60, seconds%60));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Saved state encoding through {@link RibbonStateCodec}. A {@link ByteBuffer} stands in for the
+ * <code>Parcel</code> here, written and read in the same layout as <code>ProgressRibbon.SavedState</code> does: version byte,
+ * flags, presence mask, then only the non-default values, as ints or longs.</p>
+ */
+@State(Scope.Thread)
+public class RibbonStateCodecBenchmark {
+
+    private final long[] defaults=new long[RibbonStateCodec.FIELD_COUNT];
+    private final long[] defaultValues=new long[RibbonStateCodec.FIELD_COUNT];
+    private final long[] customValues=new long[RibbonStateCodec.FIELD_COUNT];
+    private final long[] readValues=new long[RibbonStateCodec.FIELD_COUNT];
+
+    private final ByteBuffer buffer=ByteBuffer.allocate(1+4+4+RibbonStateCodec.FIELD_COUNT*8);
+    private final ByteBuffer customEncoded=ByteBuffer.allocate(1+4+4+RibbonStateCodec.FIELD_COUNT*8);
+
+    private int flags;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        //Roughly what a RibbonData looks like on an xxhdpi device
+        defaults[RibbonStateCodec.FIELD_BORDER_COLOR]=0xFF009688;
+        defaults[RibbonStateCodec.FIELD_BACKGROUND_COLOR]=0xFFFFFFFF;
+        defaults[RibbonStateCodec.FIELD_BORDER_SIZE]=6;
+        defaults[RibbonStateCodec.FIELD_TEXT_COLOR]=0xFF222222;
+        defaults[RibbonStateCodec.FIELD_ANIMATION_DURATION]=300;
+        defaults[RibbonStateCodec.FIELD_PADDING_TOP]=48;
+        defaults[RibbonStateCodec.FIELD_PADDING_BOTTOM]=48;
+        defaults[RibbonStateCodec.FIELD_TEXT_SIZE]=42;
+        defaults[RibbonStateCodec.FIELD_ELEVATION]=RibbonStateCodec.fromFloat(6.0f);
+        defaults[RibbonStateCodec.FIELD_BORDER_RADIUS]=RibbonStateCodec.fromFloat(24.0f);
+        defaults[RibbonStateCodec.FIELD_MAX]=100;
+
+        System.arraycopy(defaults, 0, defaultValues, 0, defaults.length);
+        defaultValues[RibbonStateCodec.FIELD_PROGRESS]=42;
+
+        System.arraycopy(defaults, 0, customValues, 0, defaults.length);
+        customValues[RibbonStateCodec.FIELD_BACKGROUND_COLOR]=0xFF00FF00;
+        customValues[RibbonStateCodec.FIELD_SHOW_DELAY]=300;
+        customValues[RibbonStateCodec.FIELD_HIDE_DELAY]=500;
+        customValues[RibbonStateCodec.FIELD_BAR_STYLE]=1;
+        customValues[RibbonStateCodec.FIELD_ANIMATION_TYPE]=3;
+        customValues[RibbonStateCodec.FIELD_MAX]=5_000_000_000L;
+        customValues[RibbonStateCodec.FIELD_PROGRESS]=1_234_567_890L;
+        customValues[RibbonStateCodec.FIELD_SECONDARY_PROGRESS]=2_500_000_000L;
+
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_INDETERMINATE, false);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_DIALOGUE_MODE, true);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_DYNAMICALLY_CREATED, true);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_SHOWING, true);
+
+        write(customEncoded, customValues);
+        customEncoded.flip();
+    }
+
+    @Benchmark
+    public int encodeMostlyDefaults(){
+        buffer.clear();
+        write(buffer, defaultValues);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int encodeCustomised(){
+        buffer.clear();
+        write(buffer, customValues);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public long decodeCustomised(){
+        customEncoded.rewind();
+        return read(customEncoded);
+    }
+
+    private void write(ByteBuffer out, long[] values){
+        int mask=RibbonStateCodec.presenceMask(values, defaults);
+
+        out.put(RibbonStateCodec.VERSION);
+        out.putInt(flags);
+        out.putInt(mask);
+
+        while (mask!=0){
+            int field=Integer.numberOfTrailingZeros(mask);
+            if(RibbonStateCodec.isWide(field)){
+                out.putLong(values[field]);
+            } else {
+                out.putInt((int) values[field]);
+            }
+            mask&=mask-1;
+        }
+    }
+
+    private long read(ByteBuffer in){
+        if(in.get()!=RibbonStateCodec.VERSION){
+            return -1;
+        }
+
+        int readFlags=in.getInt();
+        int presenceMask=in.getInt();
+
+        int mask=presenceMask;
+        while (mask!=0){
+            int field=Integer.numberOfTrailingZeros(mask);
+            readValues[field]=RibbonStateCodec.isWide(field) ? in.getLong() : in.getInt();
+            mask&=mask-1;
+        }
+
+        RibbonStateCodec.fillDefaults(presenceMask, readValues, defaults);
+        return readValues[RibbonStateCodec.FIELD_PROGRESS]+(RibbonStateCodec.hasFlag(readFlags, RibbonStateCodec.FLAG_SHOWING) ? 1 : 0);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <p>The show/hide state machine, as driven by <code>ProgressRibbon.show(int)</code> and <code>ProgressRibbon.hide(int)</code>.
+ * The time is made up, nothing actually waits.</p>
+ */
+@State(Scope.Thread)
+public class ShowHideSchedulerBenchmark {
+
+    private ShowHideScheduler scheduler;
+    private long now;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        scheduler=new ShowHideScheduler();
+        scheduler.setMinimumShowTime(500);
+        now=0;
+    }
+
+    /**
+     * <p>A full delayed show, then a delayed hide, each with its callback running</p>
+     */
+    @Benchmark
+    public int showHideCycle(){
+        int actions=scheduler.requestShow(now, 300);
+        now+=300;
+        actions+=scheduler.onDue(now);
+        now+=1000;
+        actions+=scheduler.requestHide(now, 200);
+        now+=200;
+        actions+=scheduler.onDue(now);
+        return actions;
+    }
+
+    /**
+     * <p>Show called over and over (e.g. on every progress update), which should all collapse into the first one</p>
+     */
+    @Benchmark
+    public int repeatedShows(){
+        int actions=scheduler.requestShow(now, 300);
+        for(int i=0; i<8; i++){
+            actions+=scheduler.requestShow(++now, 300);
+        }
+        actions+=scheduler.requestHide(now, 0);
+        return actions;
+    }
+
+    /**
+     * <p>A task quick enough to finish before the ribbon would even show</p>
+     */
+    @Benchmark
+    public int cancelledShow(){
+        int actions=scheduler.requestShow(now, 300);
+        now+=50;
+        actions+=scheduler.requestHide(now, 0);
+        return actions;
+    }
+
+    /**
+     * <p>Shown, then hidden right away, so the hide is postponed by the minimum show time</p>
+     */
+    @Benchmark
+    public int minimumShowTime(){
+        int actions=scheduler.requestShow(now, 0);
+        now+=10;
+        actions+=scheduler.requestHide(now, 0);
+        now+=scheduler.getScheduledDelay();
+        actions+=scheduler.onDue(now);
+        return actions;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Any number of listeners of one type, each optionally tied to an {@link Executor} it wants to be called on.</p>
+ * <br />
+ * <p>Registrations are kept in a copy-on-write array: adding or removing a listener copies it (that's rare), while
+ * dispatching just reads the current array, without locking, iterators or copying, so an event with no listeners costs
+ * a single read. Listeners registered without an executor are called right away, on the dispatching thread. The rest
+ * get a {@link Runnable} posted to their executor, which is the only thing allocated, and only for them. A registration
+ * can also have a {@link Filter}, which gets to skip events (e.g. to throttle them, see {@link ProgressThrottle}) before
+ * anything is posted anywhere.</p>
+ * <br />
+ * <p>Listeners can be added and removed from any thread, even while an event is being dispatched. A dispatch that is
+ * already underway finishes with the registrations it started with, and a listener removed after its executor got
+ * the event will still receive it.</p>
+ *
+ * @param <L> The listener type
+ */
+public final class ListenerRegistry<L> {
+
+    /**
+     * <p>Delivers one kind of event to a listener. Meant to be created once per event kind, and reused for every
+     * dispatch, with the event's values passed in as primitives, so dispatching allocates nothing</p>
+     *
+     * @param <L> The listener type
+     */
+    public interface Event<L> {
+
+        /**
+         * @param listener The listener to call
+         * @param first The event's first value, if it has one
+         * @param second The event's second value, if it has one
+         */
+        void deliver(L listener, long first, long second);
+    }
+
+    /**
+     * <p>Decides whether a single listener gets an event. Called on the dispatching thread, with the event's values</p>
+     */
+    public interface Filter {
+
+        /**
+         * @param first The event's first value
+         * @param second The event's second value
+         * @return Whether the event should be delivered
+         */
+        boolean accept(long first, long second);
+    }
+
+    /**
+     * <p>A {@link Filter} that keeps the last value it skipped, so it can still be delivered when there will be no
+     * more events to carry it, see {@link ListenerRegistry#flush(Event, long)}</p>
+     */
+    public interface HoldingFilter extends Filter {
+
+        /**
+         * @return Whether a value was skipped since the last one that got through
+         */
+        boolean hasHeldBack();
+
+        /**
+         * <p>Hands over the last skipped value, and counts it as delivered</p>
+         *
+         * @return The value
+         */
+        long releaseHeldBack();
+    }
+
+    private static final Registration<?>[] EMPTY=new Registration<?>[0];
+
+    @SuppressWarnings("unchecked")
+    private volatile Registration<L>[] registrations=(Registration<L>[]) EMPTY;
+
+    /**
+     * <p>Adds a listener, to be called on the dispatching thread</p>
+     *
+     * @param listener The listener
+     */
+    public void add(L listener){
+        add(listener, null);
+    }
+
+    /**
+     * <p>Adds a listener, to be called through the given {@link Executor}</p>
+     *
+     * @param listener The listener
+     * @param executor The executor to call it on, or <code>null</code> to call it on the dispatching thread
+     */
+    public void add(L listener, Executor executor){
+        add(listener, executor, null);
+    }
+
+    /**
+     * <p>Adds a listener, to be called through the given {@link Executor}, for the events its {@link Filter} lets through.
+     * If the listener is already registered, only its executor and filter are changed</p>
+     *
+     * @param listener The listener
+     * @param executor The executor to call it on, or <code>null</code> to call it on the dispatching thread
+     * @param filter The filter, or <code>null</code> to get every event
+     */
+    public synchronized void add(L listener, Executor executor, Filter filter){
+        if(listener==null){
+            throw new NullPointerException("listener == null");
+        }
+
+        Registration<L>[] current=registrations;
+        int index=indexOf(current, listener);
+        Registration<L>[] updated;
+
+        if(index>=0){
+            updated=current.clone();
+        } else {
+            updated=newArray(current.length+1);
+            System.arraycopy(current, 0, updated, 0, current.length);
+            index=current.length;
+        }
+
+        updated[index]=new Registration<>(listener, executor, filter);
+        registrations=updated;
+    }
+
+    /**
+     * <p>Removes a listener</p>
+     *
+     * @param listener The listener
+     * @return Whether it was registered at all
+     */
+    public synchronized boolean remove(L listener){
+        Registration<L>[] current=registrations;
+        int index=indexOf(current, listener);
+
+        if(index<0){
+            return false;
+        }
+
+        Registration<L>[] updated=newArray(current.length-1);
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index+1, updated, index, current.length-index-1);
+        registrations=updated;
+        return true;
+    }
+
+    /**
+     * <p>Removes every listener</p>
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void clear(){
+        registrations=(Registration<L>[]) EMPTY;
+    }
+
+    public boolean isEmpty(){
+        return registrations.length==0;
+    }
+
+    public int size(){
+        return registrations.length;
+    }
+
+    /**
+     * <p>Delivers an event to every registered listener</p>
+     *
+     * @param event The event
+     * @param first The event's first value
+     * @param second The event's second value
+     */
+    public void dispatch(Event<L> event, long first, long second){
+        Registration<L>[] current=registrations;
+
+        for(int i=0; i<current.length; i++){
+            Registration<L> registration=current[i];
+            if(registration.filter!=null && !registration.filter.accept(first, second)){
+                continue;
+            }
+
+            if(registration.executor==null){
+                event.deliver(registration.listener, first, second);
+            } else {
+                registration.executor.execute(new Delivery<>(event, registration.listener, first, second));
+            }
+        }
+    }
+
+    /**
+     * <p>Delivers the last value each {@link HoldingFilter} held back, to its own listener only. Meant for when the events
+     * stop coming (e.g. the task is over), so no listener is left behind on a stale value</p>
+     *
+     * @param event The event the values were held back from
+     * @param second The event's second value
+     */
+    public void flush(Event<L> event, long second){
+        Registration<L>[] current=registrations;
+
+        for(int i=0; i<current.length; i++){
+            Registration<L> registration=current[i];
+            if(!(registration.filter instanceof HoldingFilter)){
+                continue;
+            }
+
+            HoldingFilter filter=(HoldingFilter) registration.filter;
+            if(!filter.hasHeldBack()){
+                continue;
+            }
+
+            long first=filter.releaseHeldBack();
+            if(registration.executor==null){
+                event.deliver(registration.listener, first, second);
+            } else {
+                registration.executor.execute(new Delivery<>(event, registration.listener, first, second));
+            }
+        }
+    }
+
+    private static <L> int indexOf(Registration<L>[] registrations, L listener){
+        for(int i=0; i<registrations.length; i++){
+            if(registrations[i].listener==listener){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <L> Registration<L>[] newArray(int length){
+        return (Registration<L>[]) new Registration<?>[length];
+    }
+
+    private static final class Registration<L> {
+        final L listener;
+        final Executor executor;
+        final Filter filter;
+
+        Registration(L listener, Executor executor, Filter filter){
+            this.listener=listener;
+            this.executor=executor;
+            this.filter=filter;
+        }
+    }
+
+    /**
+     * <p>An event on its way to a listener through an executor, with the values it had when dispatched</p>
+     */
+    private static final class Delivery<L> implements Runnable {
+        private final Event<L> event;
+        private final L listener;
+        private final long first;
+        private final long second;
+
+        Delivery(Event<L> event, L listener, long first, long second){
+            this.event=event;
+            this.listener=listener;
+            this.first=first;
+            this.second=second;
+        }
+
+        @Override
+        public void run(){
+            event.deliver(listener, first, second);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A progress counter that many threads can increment at the same time, without fighting over
+ * a single value. Think of it as a poor man's {@link java.util.concurrent.atomic.LongAdder} (which
+ * only arrived in API 24).</p>
+ * <br />
+ * <p>Increments are spread across a handful of cells, picked by the calling thread, so parallel
+ * workers mostly write to their own cell. A thread that finds its cell contended (its compare-and-set fails)
+ * moves on to another one, and stays there for its next increments, the same way <code>LongAdder</code> does it.
+ * So threads that started out on the same cell drift apart instead of fighting for it forever. The number of cells
+ * is fixed though, so with more writers than cells, some of them will always share. Reading the total means summing the cells, which is
+ * cheap enough to do once per frame, and that is exactly what a <code>ProgressRibbon</code> does with
+ * one set through <code>ProgressRibbon.setProgressAccumulator(ProgressAccumulator)</code>.</p>
+ */
+public final class ProgressAccumulator {
+
+    /**
+     * <p>Cells are this many longs apart, so two of them never share a cache line</p>
+     */
+    private static final int CELL_STRIDE=8;
+
+    /**
+     * <p>No point going above this many cells, even on a beastly device</p>
+     */
+    private static final int MAX_CELLS=64;
+
+    /**
+     * <p>Every thread's current cell choice, shared by all accumulators. Only ever touched by its own thread</p>
+     */
+    private static final ThreadLocal<int[]> PROBE=new ThreadLocal<int[]>(){
+        @Override
+        protected int[] initialValue() {
+            return new int[]{initialProbe(Thread.currentThread().getId())};
+        }
+    };
+
+    private final AtomicLongArray cells;
+    private final int cellMask;
+
+    /**
+     * <p>Creates an accumulator sized for the number of CPU cores available</p>
+     */
+    public ProgressAccumulator(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <p>Creates an accumulator sized for the expected number of parallel writers</p>
+     *
+     * @param expectedWriters How many threads are expected to increment at the same time
+     */
+    public ProgressAccumulator(int expectedWriters){
+        int cellCount=1;
+        while(cellCount<expectedWriters && cellCount<MAX_CELLS){
+            cellCount<<=1;
+        }
+        cellMask=cellCount-1;
+        cells=new AtomicLongArray(cellCount*CELL_STRIDE);
+    }
+
+    /**
+     * <p>Adds to the progress. Safe to call from any thread</p>
+     *
+     * @param diff The amount to add
+     */
+    public void add(long diff){
+        int[] probe=PROBE.get();
+        int hash=probe[0];
+        while(true){
+            int index=(hash & cellMask)*CELL_STRIDE;
+            long current=cells.get(index);
+            if(cells.compareAndSet(index, current, current+diff)){
+                break;
+            }
+            //Somebody else is on the same cell, try another one rather than queueing up behind them
+            hash=advanceProbe(hash);
+        }
+        probe[0]=hash;
+    }
+
+    /**
+     * <p>Shortcut for adding 1</p>
+     */
+    public void increment(){
+        add(1);
+    }
+
+    /**
+     * <p>Returns the current total. Increments happening while this runs may or may not be included</p>
+     *
+     * @return The sum of all increments so far
+     */
+    public long sum(){
+        long sum=0;
+        for(int i=0; i<=cellMask; i++){
+            sum+=cells.get(i*CELL_STRIDE);
+        }
+        return sum;
+    }
+
+    /**
+     * <p>Sets the total back to zero. Not atomic with respect to increments happening at the same time,
+     * so call it when writers are idle</p>
+     */
+    public void reset(){
+        for(int i=0; i<=cellMask; i++){
+            cells.set(i*CELL_STRIDE, 0);
+        }
+    }
+
+    /**
+     * <p>Picks a thread's first cell. Thread ids are handed out sequentially, so they are scrambled a bit first</p>
+     *
+     * @param threadId Id of the calling thread
+     * @return The thread's starting probe, never 0
+     */
+    private static int initialProbe(long threadId){
+        int hash=(int) (threadId ^ (threadId>>>32));
+        hash*=0x9E3779B9;
+        hash^=hash>>>16;
+        return hash!=0 ? hash : 1;
+    }
+
+    /**
+     * <p>Moves a thread on to another cell, with a xorshift step. It never gives 0 for a non-zero input</p>
+     *
+     * @param hash The thread's current probe
+     * @return The next probe
+     */
+    private static int advanceProbe(int hash){
+        hash^=hash<<13;
+        hash^=hash>>>17;
+        hash^=hash<<5;
+        return hash;
+    }
+}
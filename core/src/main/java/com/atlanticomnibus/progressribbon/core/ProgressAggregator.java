@@ -0,0 +1,233 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Combines the progress of many independent tasks (say, 40 photo uploads of different sizes) into one
+ * weighted overall progress, so nobody has to work out the total percentage before every update.</p>
+ * <br />
+ * <p>Every task gets its own {@link Task} slot, with its own total and weight. When a task updates its slot, only
+ * the difference it makes to the weighted sum is added to a single counter, so an update is O(1), takes no lock,
+ * and never walks the other tasks. Tasks can join with {@link ProgressAggregator#addTask(long, long)} and leave with
+ * {@link Task#remove()} while the others are running, and the total simply moves along with them.</p>
+ * <br />
+ * <p>Reading the overall progress is two atomic reads, so a <code>ProgressRibbon</code> can follow one
+ * (through <code>setProgressSource()</code>) on every frame. As the two reads are not taken together, a read racing
+ * with a task joining or leaving may be a frame off, which is clamped and fixes itself on the next frame.</p>
+ */
+public final class ProgressAggregator implements ProgressSource {
+
+    /**
+     * <p>Every task's own progress is tracked at this resolution before being weighted</p>
+     */
+    static final int TASK_RESOLUTION=1<<16;
+
+    /**
+     * <p>Marks a slot that was removed, so late updates from its task are ignored</p>
+     */
+    private static final long REMOVED=-1;
+
+    //Sum of weight*level over all tasks in the aggregator, and the sum of their weights
+    private final AtomicLong weightedProgress=new AtomicLong();
+    private final AtomicLong totalWeight=new AtomicLong();
+    private final AtomicInteger taskCount=new AtomicInteger();
+
+    /**
+     * <p>Adds a task with a weight of 1, i.e. counting the same as every other task added this way</p>
+     *
+     * @param total The amount of work in the task, in whatever unit the task counts in (bytes, items)
+     * @return The {@link Task} slot, to be updated by the task
+     */
+    public Task addTask(long total){
+        return addTask(total, 1);
+    }
+
+    /**
+     * <p>Adds a task, which counts towards the overall progress in proportion to its weight. Using the size of the
+     * work as weight (e.g. the file size of an upload) makes big tasks count for more than small ones.</p>
+     * <br />
+     * <p>The sum of all weights should stay below 2<sup>47</sup>, which is still over a hundred terabytes
+     * when weighing by bytes</p>
+     *
+     * @param total The amount of work in the task, in whatever unit the task counts in (bytes, items)
+     * @param weight How much the task counts in the overall progress. Must be positive
+     * @return The {@link Task} slot, to be updated by the task
+     */
+    public Task addTask(long total, long weight){
+        if(weight<=0){
+            throw new IllegalArgumentException("Task weight must be positive, got "+weight);
+        }
+        Task task=new Task(this, total, weight);
+        taskCount.incrementAndGet();
+        totalWeight.addAndGet(weight);
+        return task;
+    }
+
+    /**
+     * <p>Returns the overall, weighted progress of all tasks currently in the aggregator</p>
+     *
+     * @return Basis points between 0 and {@link ProgressMath#BASIS_POINTS}. 0 when there are no tasks
+     */
+    @Override
+    public int getBasisPoints(){
+        long weight=totalWeight.get();
+        if(weight<=0){
+            return 0;
+        }
+        return ProgressMath.scale(weightedProgress.get(), 0, weight*TASK_RESOLUTION, ProgressMath.BASIS_POINTS);
+    }
+
+    /**
+     * @return The overall progress as a percentage between 0 and 100
+     */
+    public int getPercentage(){
+        return getBasisPoints()/(ProgressMath.BASIS_POINTS/100);
+    }
+
+    /**
+     * @return The number of tasks currently in the aggregator, finished ones included
+     */
+    public int getTaskCount(){
+        return taskCount.get();
+    }
+
+    /**
+     * @return Whether there are tasks in the aggregator, and all of them are done
+     */
+    public boolean isComplete(){
+        long weight=totalWeight.get();
+        return weight>0 && weightedProgress.get()>=weight*TASK_RESOLUTION;
+    }
+
+    /**
+     * <p>A single task's slot in a {@link ProgressAggregator}. Meant to be updated by the task itself, from
+     * whichever thread it runs on. Concurrent updates of the same slot are safe too, the last one wins.</p>
+     */
+    public static final class Task {
+
+        private final ProgressAggregator aggregator;
+        private final long total;
+        private final long weight;
+        private final AtomicLong progress=new AtomicLong();
+        //What this task currently adds to the aggregator's weighted sum, or REMOVED
+        private final AtomicLong contribution=new AtomicLong();
+
+        private Task(ProgressAggregator aggregator, long total, long weight){
+            this.aggregator=aggregator;
+            this.total=total;
+            this.weight=weight;
+        }
+
+        /**
+         * <p>Sets the progress of this task, between 0 and its total</p>
+         *
+         * @param progress The progress, in the task's own unit
+         */
+        public void setProgress(long progress){
+            this.progress.set(progress);
+            publish();
+        }
+
+        /**
+         * <p>Adds to the progress of this task</p>
+         *
+         * @param diff The amount to add, in the task's own unit
+         */
+        public void add(long diff){
+            progress.addAndGet(diff);
+            publish();
+        }
+
+        /**
+         * <p>Marks the task as done. It stays in the aggregator, counting as complete</p>
+         */
+        public void complete(){
+            setProgress(total);
+        }
+
+        /**
+         * <p>Takes the task out of the aggregator, as if it had never been there. The overall progress may jump
+         * either way, as it is now made up of the remaining tasks only. Updates after this are ignored</p>
+         */
+        public void remove(){
+            long previous=contribution.getAndSet(REMOVED);
+            if(previous!=REMOVED){
+                aggregator.weightedProgress.addAndGet(-previous);
+                aggregator.totalWeight.addAndGet(-weight);
+                aggregator.taskCount.decrementAndGet();
+            }
+        }
+
+        public long getProgress(){
+            return progress.get();
+        }
+
+        public long getTotal(){
+            return total;
+        }
+
+        public long getWeight(){
+            return weight;
+        }
+
+        public boolean isRemoved(){
+            return contribution.get()==REMOVED;
+        }
+
+        /**
+         * <p>Swaps this task's contribution for one worked out from its current progress, and passes on the difference.</p>
+         * <br />
+         * <p>Always reads the progress itself, rather than being handed a value, and goes again if the progress has
+         * moved in the meantime. Otherwise a slower, racing update could swap in a contribution that is older than
+         * the progress, and it would stay that way until the next update.</p>
+         */
+        private void publish(){
+            long updated;
+            do {
+                updated=computeContribution();
+
+                long previous;
+                do {
+                    previous=contribution.get();
+                    if(previous==REMOVED){
+                        return;
+                    }
+                } while(!contribution.compareAndSet(previous, updated));
+
+                if(updated!=previous){
+                    aggregator.weightedProgress.addAndGet(updated-previous);
+                }
+            } while(updated!=computeContribution());
+        }
+
+        private long computeContribution(){
+            long current=progress.get();
+            //An empty task has nothing to scale, it's either done or not
+            int level=total>0 ? ProgressMath.scale(current, 0, total, TASK_RESOLUTION) : (current>=total ? TASK_RESOLUTION : 0);
+            return weight*level;
+        }
+    }
+}
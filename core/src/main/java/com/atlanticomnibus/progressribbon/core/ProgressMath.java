@@ -0,0 +1,132 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+/**
+ * <p>Plain arithmetic for mapping 64-bit progress values onto the much smaller ranges the widgets
+ * understand (a <code>ProgressBar</code>'s int range, a drawable's level, a percentage).</p>
+ * <br />
+ * <p>Everything in here is careful not to overflow, so raw byte counts can be fed in as they are,
+ * even when multiplying them would not fit in a long any more.</p>
+ */
+public final class ProgressMath {
+
+    /**
+     * <p>Basis points in a whole, i.e. the resolution of {@link ProgressMath#toBasisPoints(long, long, long)}</p>
+     */
+    public static final int BASIS_POINTS=10000;
+
+    private ProgressMath(){
+        //Static stuff only
+    }
+
+    /**
+     * <p>Maps a value between <code>min</code> and <code>max</code> onto <code>0..resolution</code>.
+     * Values outside the range are clamped, an empty range maps everything to 0.</p>
+     *
+     * @param value The value to map
+     * @param min Start of the range
+     * @param max End of the range
+     * @param resolution The number of steps the range should be mapped to
+     * @return The mapped value, between 0 and <code>resolution</code>
+     */
+    public static int scale(long value, long min, long max, int resolution){
+        long range=max-min;
+
+        if(range<=0 || value<=min){
+            return 0;
+        } else if(value>=max){
+            return resolution;
+        }
+
+        long offset=value-min;
+
+        if(offset<=Long.MAX_VALUE/resolution){
+            return (int) ((offset*resolution)/range);
+        } else {
+            //Would overflow, but at this size the precision of a double is plenty
+            return (int) Math.min(resolution, (double) offset / range * resolution);
+        }
+    }
+
+    /**
+     * <p>The percentage of the range covered by the value, taking <code>min</code> into account</p>
+     *
+     * @param value The value
+     * @param min Start of the range
+     * @param max End of the range
+     * @return Percentage between 0 and 100
+     */
+    public static int toPercentage(long value, long min, long max){
+        return scale(value, min, max, 100);
+    }
+
+    /**
+     * <p>The part of the range covered by the value, in basis points (hundredths of a percent)</p>
+     *
+     * @param value The value
+     * @param min Start of the range
+     * @param max End of the range
+     * @return Basis points between 0 and {@link ProgressMath#BASIS_POINTS}
+     */
+    public static int toBasisPoints(long value, long min, long max){
+        return scale(value, min, max, BASIS_POINTS);
+    }
+
+    /**
+     * <p>The opposite of {@link ProgressMath#toBasisPoints(long, long, long)}: the value that covers the given part
+     * of the range</p>
+     *
+     * @param basisPoints Part of the range, in basis points. Clamped to 0..{@link ProgressMath#BASIS_POINTS}
+     * @param min Start of the range
+     * @param max End of the range
+     * @return The value between <code>min</code> and <code>max</code>
+     */
+    public static long fromBasisPoints(int basisPoints, long min, long max){
+        long range=max-min;
+
+        if(range<=0 || basisPoints<=0){
+            return min;
+        } else if(basisPoints>=BASIS_POINTS){
+            return max;
+        }
+
+        //Split, so huge ranges do not overflow on the multiplication
+        return min+(range/BASIS_POINTS)*basisPoints+((range%BASIS_POINTS)*basisPoints)/BASIS_POINTS;
+    }
+
+    /**
+     * <p>Squeezes a long into an int, for the places where the API only speaks int</p>
+     *
+     * @param value The long value
+     * @return The value, clamped to the int range
+     */
+    public static int clampToInt(long value){
+        if(value>Integer.MAX_VALUE){
+            return Integer.MAX_VALUE;
+        } else if(value<Integer.MIN_VALUE){
+            return Integer.MIN_VALUE;
+        }
+        return (int) value;
+    }
+}
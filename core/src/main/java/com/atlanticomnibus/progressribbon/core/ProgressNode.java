@@ -0,0 +1,303 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A node in a tree of progress, for work that comes in nested phases, like an account sync made up of folders,
+ * made up of files. Leaves report their own progress against their own total, and every other node's progress is the
+ * weighted average of its children's.</p>
+ * <br />
+ * <p>Nothing is ever recomputed from scratch. When a node's progress changes, it hands the difference to its parent,
+ * which adjusts its own weighted sum, works out its new progress and hands its own difference on, and so on, up to
+ * the root. So an update costs O(depth), no matter how many nodes there are, and takes no lock, only atomic
+ * updates, so leaves can be updated from any thread at the same time.</p>
+ * <br />
+ * <p>Any node can be followed by a <code>ProgressRibbon</code> (through <code>setProgressSource()</code>), be it the
+ * root or just a subtree. The ribbon only reads the node's current value once per frame, and only redraws when
+ * that actually changed.</p>
+ */
+public final class ProgressNode implements ProgressSource {
+
+    /**
+     * <p>Progress of every node is kept as a fraction of this</p>
+     */
+    static final long RESOLUTION=1<<16;
+
+    /**
+     * <p>Marks a node that was removed, so updates reaching it are dropped</p>
+     */
+    private static final long REMOVED=-1;
+
+    private final ProgressNode parent;
+    private final long weight;
+
+    //This node's progress as a fraction of RESOLUTION, i.e. exactly what it adds to its parent's sum (per unit of weight)
+    private final AtomicLong level=new AtomicLong();
+
+    //Leaf state
+    private final AtomicLong progress=new AtomicLong();
+    private volatile long total;
+
+    //Branch state: sum of weight*level of the children, and the sum of their weights
+    private final AtomicLong weightedChildLevels=new AtomicLong();
+    private final AtomicLong childWeight=new AtomicLong();
+    private final AtomicInteger childCount=new AtomicInteger();
+    private volatile boolean isBranch;
+
+    /**
+     * <p>Creates a root node. Either add children to it, or use it as a single leaf, with a total of 1</p>
+     */
+    public ProgressNode(){
+        this(null, 1, 1);
+    }
+
+    private ProgressNode(ProgressNode parent, long total, long weight){
+        this.parent=parent;
+        this.total=total;
+        this.weight=weight;
+    }
+
+    /**
+     * <p>Adds a child with a weight of 1, i.e. counting the same as every sibling added this way</p>
+     *
+     * @param total The amount of work in the child, if it is going to be a leaf. Ignored once it has children of its own
+     * @return The new child node
+     */
+    public ProgressNode addChild(long total){
+        return addChild(total, 1);
+    }
+
+    /**
+     * <p>Adds a child, which counts towards this node's progress in proportion to its weight. Can be called while the
+     * other children are being updated. As the new child starts from zero, this node's progress will go back a bit.</p>
+     * <br />
+     * <p>The weights of a node's children should add up to less than 2<sup>47</sup></p>
+     *
+     * @param total The amount of work in the child, if it is going to be a leaf. Ignored once it has children of its own
+     * @param weight How much the child counts in this node's progress. Must be positive
+     * @return The new child node
+     */
+    public ProgressNode addChild(long total, long weight){
+        if(weight<=0){
+            throw new IllegalArgumentException("Node weight must be positive, got "+weight);
+        }
+        if(!isBranch && progress.get()!=0){
+            throw new IllegalStateException("Progress was already reported on this node, it cannot have children");
+        }
+        isBranch=true;
+
+        ProgressNode child=new ProgressNode(this, total, weight);
+        childCount.incrementAndGet();
+        childWeight.addAndGet(weight);
+        refresh();
+        return child;
+    }
+
+    /**
+     * <p>Sets the progress of a leaf node</p>
+     *
+     * @param progress The progress, between 0 and the node's total
+     * @throws IllegalStateException if the node has children, as their progress makes up its own
+     */
+    public void setProgress(long progress){
+        checkLeaf();
+        this.progress.set(progress);
+        refresh();
+    }
+
+    /**
+     * <p>Adds to the progress of a leaf node</p>
+     *
+     * @param diff The amount to add
+     * @throws IllegalStateException if the node has children, as their progress makes up its own
+     */
+    public void add(long diff){
+        checkLeaf();
+        progress.addAndGet(diff);
+        refresh();
+    }
+
+    /**
+     * <p>Changes the total of a leaf node, for work that turns out to be bigger (or smaller) than first thought</p>
+     *
+     * @param total The new total
+     * @throws IllegalStateException if the node has children
+     */
+    public void setTotal(long total){
+        checkLeaf();
+        this.total=total;
+        refresh();
+    }
+
+    /**
+     * <p>Marks a leaf node as done</p>
+     *
+     * @throws IllegalStateException if the node has children
+     */
+    public void complete(){
+        setProgress(total);
+    }
+
+    /**
+     * <p>Takes this node, and everything below it, out of the tree. Its parent's progress is then made up of the
+     * remaining children only, so it may jump either way. Updates to the removed subtree are ignored from here on</p>
+     */
+    public void remove(){
+        if(parent==null){
+            return;
+        }
+
+        long previous=level.getAndSet(REMOVED);
+        if(previous!=REMOVED){
+            parent.weightedChildLevels.addAndGet(-weight*previous);
+            parent.childWeight.addAndGet(-weight);
+            parent.childCount.decrementAndGet();
+            parent.refresh();
+        }
+    }
+
+    /**
+     * <p>Returns the progress of this node, including everything below it</p>
+     *
+     * @return Basis points between 0 and {@link ProgressMath#BASIS_POINTS}
+     */
+    @Override
+    public int getBasisPoints(){
+        long current=level.get();
+        return current==REMOVED ? 0 : ProgressMath.scale(current, 0, RESOLUTION, ProgressMath.BASIS_POINTS);
+    }
+
+    /**
+     * @return The progress of this node as a percentage between 0 and 100
+     */
+    public int getPercentage(){
+        return getBasisPoints()/(ProgressMath.BASIS_POINTS/100);
+    }
+
+    /**
+     * @return Whether all the work in and below this node is done
+     */
+    public boolean isComplete(){
+        return level.get()==RESOLUTION;
+    }
+
+    /**
+     * @return The parent node, or <code>null</code> for the root
+     */
+    public ProgressNode getParent(){
+        return parent;
+    }
+
+    public long getWeight(){
+        return weight;
+    }
+
+    public long getProgress(){
+        return progress.get();
+    }
+
+    public long getTotal(){
+        return total;
+    }
+
+    /**
+     * @return The number of children currently in this node
+     */
+    public int getChildCount(){
+        return childCount.get();
+    }
+
+    public boolean isRemoved(){
+        return level.get()==REMOVED;
+    }
+
+    private void checkLeaf(){
+        if(isBranch){
+            throw new IllegalStateException("This node has children, its progress is made up of theirs");
+        }
+    }
+
+    /**
+     * <p>Works out this node's progress from what it has right now</p>
+     *
+     * @return The level, between 0 and {@link ProgressNode#RESOLUTION}
+     */
+    private long computeLevel(){
+        if(isBranch){
+            long weights=childWeight.get();
+            if(weights<=0){
+                return 0;
+            }
+            //The two reads are not taken together, so a child joining or leaving can throw this off for a moment
+            return Math.max(0, Math.min(RESOLUTION, weightedChildLevels.get()/weights));
+        } else {
+            long currentTotal=total;
+            long currentProgress=progress.get();
+            if(currentTotal<=0){
+                return currentProgress>=currentTotal ? RESOLUTION : 0;
+            }
+            return ProgressMath.scale(currentProgress, 0, currentTotal, (int) RESOLUTION);
+        }
+    }
+
+    /**
+     * <p>Publishes this node's current level, and passes the difference on to the parent.</p>
+     * <br />
+     * <p>Two threads may publish the same node at the same time, and the one with the older value may well come
+     * second. So after publishing, the level is computed again, and if it moved in the meantime, it goes round once
+     * more. That way, whoever publishes last leaves the latest value behind.</p>
+     */
+    private void refresh(){
+        long computed;
+        do {
+            computed=computeLevel();
+
+            long previous;
+            do {
+                previous=level.get();
+                if(previous==REMOVED){
+                    return;
+                }
+            } while(!level.compareAndSet(previous, computed));
+
+            if(previous!=computed && parent!=null){
+                parent.onChildChanged(weight, previous, computed);
+            }
+        } while(computed!=computeLevel());
+    }
+
+    /**
+     * <p>A child's level changed</p>
+     *
+     * @param childWeight The child's weight
+     * @param previous The child's previous level
+     * @param updated The child's new level
+     */
+    private void onChildChanged(long childWeight, long previous, long updated){
+        weightedChildLevels.addAndGet(childWeight*(updated-previous));
+        refresh();
+    }
+}
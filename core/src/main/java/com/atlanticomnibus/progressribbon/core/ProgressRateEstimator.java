@@ -0,0 +1,166 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+/**
+ * <p>Estimates how fast progress is being made, and how long the rest will take, from the progress values as they
+ * come in.</p>
+ * <br />
+ * <p>The rate is an exponentially weighted moving average, weighted by time rather than by the number of updates, so
+ * it behaves the same whether progress comes in a thousand times a second or once every few seconds: a sample
+ * <code>dt</code> after the previous one counts with <code>1 - e<sup>-dt/timeConstant</sup></code>. Everything is
+ * kept in primitive fields and updated in place, nothing is allocated.</p>
+ * <br />
+ * <p>Takes the time as a parameter (in nanoseconds, from any monotonic clock), so it has no idea about Android, and is
+ * not thread-safe. A <code>ProgressRibbon</code> updates its own on the UI thread.</p>
+ */
+public final class ProgressRateEstimator {
+
+    /**
+     * <p>Returned by {@link ProgressRateEstimator#getRemainingMillis(long)} when there is no telling</p>
+     */
+    public static final long UNKNOWN=-1;
+
+    /**
+     * <p>Default time constant: roughly how far back (in milliseconds) the average looks</p>
+     */
+    public static final long DEFAULT_TIME_CONSTANT_MILLIS=3000;
+
+    private static final double NANOS_PER_SECOND=1e9;
+
+    private double timeConstantNanos=DEFAULT_TIME_CONSTANT_MILLIS*1e6;
+
+    private boolean hasSample;
+    private boolean hasRate;
+    private long lastValue;
+    private long lastTimeNanos;
+    //Units per second
+    private double rate;
+
+    /**
+     * <p>Sets how quickly the estimate follows changes in speed. Shorter is more responsive, longer is steadier</p>
+     *
+     * @param timeConstantMillis The time constant in milliseconds. Must be positive
+     */
+    public void setTimeConstant(long timeConstantMillis){
+        if(timeConstantMillis<=0){
+            throw new IllegalArgumentException("Time constant must be positive, got "+timeConstantMillis);
+        }
+        timeConstantNanos=timeConstantMillis*1e6;
+    }
+
+    public long getTimeConstant(){
+        return (long) (timeConstantNanos/1e6);
+    }
+
+    /**
+     * <p>Forgets everything, and starts over from the given value</p>
+     *
+     * @param value The value to start from
+     * @param nowNanos The current time in nanoseconds
+     */
+    public void reset(long value, long nowNanos){
+        hasSample=true;
+        hasRate=false;
+        lastValue=value;
+        lastTimeNanos=nowNanos;
+        rate=0;
+    }
+
+    /**
+     * <p>Forgets everything. The next value fed in is the new start</p>
+     */
+    public void clear(){
+        hasSample=false;
+        hasRate=false;
+        rate=0;
+    }
+
+    /**
+     * <p>Feeds in a new progress value. If progress went backwards, it's taken as a new start. Values coming in at the
+     * very same time as the previous one are merged into the next sample</p>
+     *
+     * @param value The current progress value
+     * @param nowNanos The current time in nanoseconds
+     * @return Whether the estimate changed
+     */
+    public boolean update(long value, long nowNanos){
+        if(!hasSample || value<lastValue){
+            reset(value, nowNanos);
+            return true;
+        }
+
+        long elapsed=nowNanos-lastTimeNanos;
+        if(elapsed<=0){
+            return false;
+        }
+
+        double sampleRate=(value-lastValue)*NANOS_PER_SECOND/elapsed;
+
+        if(hasRate){
+            double weight=1-Math.exp(-elapsed/timeConstantNanos);
+            rate+=weight*(sampleRate-rate);
+        } else {
+            rate=sampleRate;
+            hasRate=true;
+        }
+
+        lastValue=value;
+        lastTimeNanos=nowNanos;
+        return true;
+    }
+
+    /**
+     * @return Whether there were enough samples for an estimate yet
+     */
+    public boolean hasEstimate(){
+        return hasRate;
+    }
+
+    /**
+     * @return The estimated rate in progress units per second, 0 if there is no estimate yet
+     */
+    public double getRate(){
+        return rate;
+    }
+
+    /**
+     * <p>The time it should take to get from the last value to the given target, at the current rate</p>
+     *
+     * @param target The value progress is heading to, usually the max
+     * @return The remaining time in milliseconds, or {@link ProgressRateEstimator#UNKNOWN} if it is not moving
+     */
+    public long getRemainingMillis(long target){
+        if(!hasRate || rate<=0){
+            return UNKNOWN;
+        }
+
+        long remaining=target-lastValue;
+        if(remaining<=0){
+            return 0;
+        }
+
+        double millis=remaining/rate*1000;
+        return millis>=Long.MAX_VALUE ? UNKNOWN : (long) millis;
+    }
+}
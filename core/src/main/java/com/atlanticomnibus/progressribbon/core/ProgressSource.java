@@ -0,0 +1,40 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+/**
+ * <p>Anything that can tell how far along it is, as a fraction of the whole. A <code>ProgressRibbon</code>
+ * following one reads it once per frame, and maps the fraction onto its own min..max range.</p>
+ * <br />
+ * <p>Implementations have to be safe to read from the UI thread while being updated from any other thread,
+ * and reading should be cheap, as it happens on every frame.</p>
+ */
+public interface ProgressSource {
+
+    /**
+     * <p>Returns how much of the work is done, in basis points (hundredths of a percent)</p>
+     *
+     * @return Basis points between 0 and {@link ProgressMath#BASIS_POINTS}
+     */
+    int getBasisPoints();
+}
@@ -0,0 +1,378 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A progress text pattern, like <code>"{percent}% ({progress:MB} of {max:MB} MB)"</code>, parsed once and then
+ * filled in with the current values as often as needed, without allocating anything.</p>
+ * <br />
+ * <p>Placeholders:</p>
+ * <ul>
+ *     <li><code>{percent}</code> - the progress as a whole percentage</li>
+ *     <li><code>{progress}</code> - the progress value</li>
+ *     <li><code>{max}</code> - the max value</li>
+ *     <li><code>{rate}</code> - progress units per second</li>
+ *     <li><code>{eta}</code> - the remaining time, as <code>m:ss</code> or <code>h:mm:ss</code></li>
+ * </ul>
+ * <p><code>{progress}</code>, <code>{max}</code> and <code>{rate}</code> can take a unit, for values counted in bytes:
+ * <code>{progress:KB}</code>, <code>{progress:MB}</code> or <code>{progress:GB}</code> (powers of 1024, one decimal).
+ * A literal brace is written as <code>{{</code>.</p>
+ * <br />
+ * <p>The text is written into a <code>char[]</code>, which is kept and reused, and which can be handed straight to
+ * <code>TextView.setText(char[], int, int)</code>. There are two of them: every new text is written into the one not
+ * on screen, and only if it differs from the shown one are they swapped. So the array on screen is never touched
+ * behind the view's back, and unchanged text can be skipped altogether.</p>
+ * <br />
+ * <p>Digits and the decimal separator are set through {@link ProgressTextTemplate#setDigits(char, char)}, so the
+ * caller can look them up for its locale once, and have them used on every update. Not thread-safe.</p>
+ */
+public final class ProgressTextTemplate {
+
+    private static final int TOKEN_LITERAL=0,
+            TOKEN_PERCENT=1,
+            TOKEN_PROGRESS=2,
+            TOKEN_MAX=3,
+            TOKEN_RATE=4,
+            TOKEN_ETA=5;
+
+    //Shifts for the units, i.e. powers of 1024
+    private static final int UNIT_NONE=0,
+            UNIT_KB=10,
+            UNIT_MB=20,
+            UNIT_GB=30;
+
+    //Enough for any long with a sign, or a duration
+    private static final int MAX_NUMBER_LENGTH=24;
+
+    private final String pattern;
+    private final int[] tokens;
+    private final int[] units;
+    private final char[][] literals;
+
+    private char zeroDigit='0';
+    private char decimalSeparator='.';
+
+    //The text on screen, and the one being written
+    private char[] shown;
+    private int shownLength;
+    private char[] scratch;
+
+    /**
+     * <p>Parses the pattern</p>
+     *
+     * @param pattern The pattern, see the class description for what can go in it
+     * @throws IllegalArgumentException if there is an unknown placeholder or unit, or a brace that is not closed
+     */
+    public ProgressTextTemplate(String pattern){
+        this.pattern=pattern;
+
+        List<Integer> tokenList=new ArrayList<>();
+        List<Integer> unitList=new ArrayList<>();
+        List<char[]> literalList=new ArrayList<>();
+        StringBuilder literal=new StringBuilder();
+
+        int index=0;
+        while(index<pattern.length()){
+            char c=pattern.charAt(index);
+
+            if(c=='{' && index+1<pattern.length() && pattern.charAt(index+1)=='{'){
+                literal.append('{');
+                index+=2;
+            } else if(c=='{'){
+                int end=pattern.indexOf('}', index);
+                if(end<0){
+                    throw new IllegalArgumentException("Unclosed placeholder at "+index+" in \""+pattern+"\"");
+                }
+
+                if(literal.length()>0){
+                    tokenList.add(TOKEN_LITERAL);
+                    unitList.add(UNIT_NONE);
+                    literalList.add(literal.toString().toCharArray());
+                    literal.setLength(0);
+                }
+
+                String placeholder=pattern.substring(index+1, end);
+                String unit=null;
+                int colon=placeholder.indexOf(':');
+                if(colon>=0){
+                    unit=placeholder.substring(colon+1);
+                    placeholder=placeholder.substring(0, colon);
+                }
+
+                int token=parseToken(placeholder);
+                if(unit!=null && token!=TOKEN_PROGRESS && token!=TOKEN_MAX && token!=TOKEN_RATE){
+                    throw new IllegalArgumentException("{"+placeholder+"} takes no unit, in \""+pattern+"\"");
+                }
+                tokenList.add(token);
+                unitList.add(unit==null ? UNIT_NONE : parseUnit(unit));
+                literalList.add(null);
+                index=end+1;
+            } else {
+                literal.append(c);
+                index++;
+            }
+        }
+
+        if(literal.length()>0){
+            tokenList.add(TOKEN_LITERAL);
+            unitList.add(UNIT_NONE);
+            literalList.add(literal.toString().toCharArray());
+        }
+
+        tokens=new int[tokenList.size()];
+        units=new int[tokenList.size()];
+        literals=new char[tokenList.size()][];
+        int capacity=0;
+        for(int i=0; i<tokens.length; i++){
+            tokens[i]=tokenList.get(i);
+            units[i]=unitList.get(i);
+            literals[i]=literalList.get(i);
+            capacity+=(literals[i]==null) ? MAX_NUMBER_LENGTH : literals[i].length;
+        }
+
+        shown=new char[capacity];
+        scratch=new char[capacity];
+    }
+
+    private static int parseToken(String placeholder){
+        switch (placeholder){
+            case "percent":
+                return TOKEN_PERCENT;
+            case "progress":
+                return TOKEN_PROGRESS;
+            case "max":
+                return TOKEN_MAX;
+            case "rate":
+                return TOKEN_RATE;
+            case "eta":
+                return TOKEN_ETA;
+            default:
+                throw new IllegalArgumentException("Unknown placeholder {"+placeholder+"}");
+        }
+    }
+
+    private static int parseUnit(String unit){
+        switch (unit.toUpperCase(java.util.Locale.ROOT)){
+            case "KB":
+                return UNIT_KB;
+            case "MB":
+                return UNIT_MB;
+            case "GB":
+                return UNIT_GB;
+            default:
+                throw new IllegalArgumentException("Unknown unit "+unit+", expected KB, MB or GB");
+        }
+    }
+
+    /**
+     * <p>Sets the characters used for numbers, e.g. from a locale's <code>DecimalFormatSymbols</code>. The digits are
+     * taken as the 10 characters starting at <code>zeroDigit</code></p>
+     *
+     * @param zeroDigit The character for zero
+     * @param decimalSeparator The decimal separator
+     */
+    public void setDigits(char zeroDigit, char decimalSeparator){
+        if(this.zeroDigit!=zeroDigit || this.decimalSeparator!=decimalSeparator){
+            this.zeroDigit=zeroDigit;
+            this.decimalSeparator=decimalSeparator;
+            //Force the next update through, even if the numbers stayed the same
+            shownLength=-1;
+        }
+    }
+
+    /**
+     * <p>Fills in the pattern with the given values</p>
+     *
+     * @param progress The progress value
+     * @param min The min value, for working out the percentage
+     * @param max The max value
+     * @param rate Progress units per second
+     * @param remainingMillis Remaining time in milliseconds, negative if unknown
+     * @return Whether the text changed. If it did, {@link ProgressTextTemplate#getChars()} now holds the new one
+     */
+    public boolean update(long progress, long min, long max, double rate, long remainingMillis){
+        int length=0;
+
+        for(int i=0; i<tokens.length; i++){
+            switch (tokens[i]){
+                case TOKEN_LITERAL:
+                    char[] literal=literals[i];
+                    System.arraycopy(literal, 0, scratch, length, literal.length);
+                    length+=literal.length;
+                    break;
+                case TOKEN_PERCENT:
+                    length=writeLong(ProgressMath.toPercentage(progress, min, max), length);
+                    break;
+                case TOKEN_PROGRESS:
+                    length=writeValue(progress, units[i], length);
+                    break;
+                case TOKEN_MAX:
+                    length=writeValue(max, units[i], length);
+                    break;
+                case TOKEN_RATE:
+                    length=writeRate(rate, units[i], length);
+                    break;
+                case TOKEN_ETA:
+                    length=writeDuration(remainingMillis, length);
+                    break;
+            }
+        }
+
+        if(length==shownLength && regionEquals(scratch, shown, length)){
+            return false;
+        }
+
+        char[] previous=shown;
+        shown=scratch;
+        scratch=previous;
+        shownLength=length;
+        return true;
+    }
+
+    /**
+     * @return The current text. Valid until the next {@link ProgressTextTemplate#update(long, long, long, double, long)}
+     * that returns <code>true</code>, and must not be modified
+     */
+    public char[] getChars(){
+        return shown;
+    }
+
+    /**
+     * @return The length of the current text in {@link ProgressTextTemplate#getChars()}
+     */
+    public int getLength(){
+        return Math.max(0, shownLength);
+    }
+
+    public String getPattern(){
+        return pattern;
+    }
+
+    /**
+     * @return The current text, as a new String
+     */
+    @Override
+    public String toString(){
+        return new String(shown, 0, getLength());
+    }
+
+    private static boolean regionEquals(char[] a, char[] b, int length){
+        for(int i=0; i<length; i++){
+            if(a[i]!=b[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>Writes a value, in the given unit, with one decimal if it has a unit</p>
+     */
+    private int writeValue(long value, int unitShift, int position){
+        if(unitShift==UNIT_NONE){
+            return writeLong(value, position);
+        }
+
+        //Tenths of the unit, rounded
+        long tenths=(long) ((double) value*10/(1L<<unitShift)+0.5);
+        return writeTenths(tenths, position);
+    }
+
+    private int writeRate(double rate, int unitShift, int position){
+        if(Double.isNaN(rate) || rate<0){
+            rate=0;
+        }
+
+        if(unitShift==UNIT_NONE){
+            return writeLong((long) (rate+0.5), position);
+        }
+        return writeTenths((long) (rate*10/(1L<<unitShift)+0.5), position);
+    }
+
+    private int writeTenths(long tenths, int position){
+        position=writeLong(tenths/10, position);
+        scratch[position++]=decimalSeparator;
+        scratch[position++]=(char) (zeroDigit+Math.abs(tenths%10));
+        return position;
+    }
+
+    /**
+     * <p>Writes <code>m:ss</code> or <code>h:mm:ss</code>, rounded up to the second, or <code>-:--</code> if unknown</p>
+     */
+    private int writeDuration(long millis, int position){
+        if(millis<0){
+            scratch[position++]='-';
+            scratch[position++]=':';
+            scratch[position++]='-';
+            scratch[position++]='-';
+            return position;
+        }
+
+        long totalSeconds=(millis+999)/1000;
+        long hours=totalSeconds/3600;
+        long minutes=(totalSeconds/60)%60;
+        long seconds=totalSeconds%60;
+
+        if(hours>0){
+            position=writeLong(hours, position);
+            scratch[position++]=':';
+            scratch[position++]=(char) (zeroDigit+minutes/10);
+            scratch[position++]=(char) (zeroDigit+minutes%10);
+        } else {
+            position=writeLong(minutes, position);
+        }
+        scratch[position++]=':';
+        scratch[position++]=(char) (zeroDigit+seconds/10);
+        scratch[position++]=(char) (zeroDigit+seconds%10);
+        return position;
+    }
+
+    /**
+     * <p>Writes a whole number, digit by digit from the end, so no String is involved</p>
+     */
+    private int writeLong(long value, int position){
+        if(value==0){
+            scratch[position]=zeroDigit;
+            return position+1;
+        }
+
+        boolean negative=value<0;
+        int digits=0;
+        for(long rest=value; rest!=0; rest/=10){
+            digits++;
+        }
+
+        int end=position+digits+(negative ? 1 : 0);
+        int index=end;
+        for(long rest=value; rest!=0; rest/=10){
+            scratch[--index]=(char) (zeroDigit+Math.abs(rest%10));
+        }
+        if(negative){
+            scratch[position]='-';
+        }
+        return end;
+    }
+}
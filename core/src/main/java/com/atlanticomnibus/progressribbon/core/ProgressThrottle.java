@@ -0,0 +1,132 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+/**
+ * <p>Keeps a progress listener from being called on every tiny step. A value only gets through once it moved at least
+ * a minimum amount since the last one that got through, and/or once a minimum time has passed since then (when both
+ * are set, both have to hold). Either can be 0, to only go by the other.</p>
+ * <br />
+ * <p>Some values always get through, so nothing is lost at the edges: the very first one, one that goes backwards (a new
+ * run), and the final one. So a listener still ends up seeing the value the task finished with. A task can also stop
+ * short of its final value, so the last value held back is kept, to be handed over with {@link ProgressThrottle#releaseHeldBack()}.</p>
+ * <br />
+ * <p>Meant to be used as the {@link ListenerRegistry.Filter} of a single listener, where the event's first value is the
+ * progress, and the second one is non-zero for the final value. Keeps state, so one instance per listener, and it's
+ * only called from the dispatching thread.</p>
+ */
+public final class ProgressThrottle implements ListenerRegistry.HoldingFilter {
+
+    private final long minDelta;
+    private final long minIntervalNanos;
+
+    private boolean hasDelivered;
+    private long lastValue;
+    private long lastTimeNanos;
+    private boolean hasHeldBack;
+    private long heldBackValue;
+
+    /**
+     * @param minDelta The amount progress has to move to get through, 0 for any change
+     * @param minIntervalMillis The time that has to pass between two values, in milliseconds, 0 for no limit
+     */
+    public ProgressThrottle(long minDelta, long minIntervalMillis){
+        if(minDelta<0 || minIntervalMillis<0){
+            throw new IllegalArgumentException("Throttling limits cannot be negative");
+        }
+        this.minDelta=minDelta;
+        this.minIntervalNanos=minIntervalMillis*1000000L;
+    }
+
+    @Override
+    public boolean accept(long value, long isFinal){
+        return shouldDeliver(value, isFinal!=0, System.nanoTime());
+    }
+
+    /**
+     * <p>Decides whether a value gets through, and remembers it if it does</p>
+     *
+     * @param value The progress value
+     * @param isFinal Whether this is the final value of the task
+     * @param nowNanos The current time, in nanoseconds from a monotonic clock
+     * @return Whether the value should be delivered
+     */
+    public boolean shouldDeliver(long value, boolean isFinal, long nowNanos){
+        boolean deliver;
+
+        if(!hasDelivered || value<lastValue){
+            deliver=true;
+        } else if(isFinal){
+            //Unless it has been delivered already
+            deliver=value!=lastValue;
+        } else {
+            deliver=value-lastValue>=Math.max(1, minDelta) && nowNanos-lastTimeNanos>=minIntervalNanos;
+        }
+
+        if(deliver){
+            hasDelivered=true;
+            lastValue=value;
+            lastTimeNanos=nowNanos;
+            hasHeldBack=false;
+        } else if(value!=lastValue){
+            hasHeldBack=true;
+            heldBackValue=value;
+        }
+        return deliver;
+    }
+
+    @Override
+    public boolean hasHeldBack(){
+        return hasHeldBack;
+    }
+
+    /**
+     * <p>Hands over the last value that did not get through, and counts it as delivered. The time of the last
+     * delivery is left alone, as this is not one of the regular values</p>
+     *
+     * @return The value, only meaningful if {@link ProgressThrottle#hasHeldBack()} was true
+     */
+    @Override
+    public long releaseHeldBack(){
+        hasHeldBack=false;
+        hasDelivered=true;
+        lastValue=heldBackValue;
+        return heldBackValue;
+    }
+
+    /**
+     * <p>Forgets the last value, so the next one gets through no matter what</p>
+     */
+    public void reset(){
+        hasDelivered=false;
+        hasHeldBack=false;
+    }
+
+    public long getMinDelta(){
+        return minDelta;
+    }
+
+    public long getMinInterval(){
+        return minIntervalNanos/1000000L;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+/**
+ * <p>Layout of the compact saved state of a <code>ProgressRibbon</code>, kept free of any Android classes.</p>
+ * <br />
+ * <p>Every number in <code>ProgressRibbon.RibbonData</code> has a fixed field index. Values are handled as a <code>long[]</code>
+ * (ints simply widened, floats as their raw int bits), and only the ones that differ from their defaults are written,
+ * as marked in a presence mask. Booleans are packed into a single int. So a ribbon with mostly default settings takes
+ * up a version byte, the length of the rest, two ints and a couple of values, and no string keys get written or hashed.</p>
+ * <br />
+ * <p>The actual reading and writing happens in <code>ProgressRibbon.SavedState</code>, on the Android side</p>
+ */
+public final class RibbonStateCodec {
+
+    /**
+     * <p>Bump this whenever the meaning of the fields or flags change. States with another version are ignored on restore,
+     * skipped by the length written after the version. Version 1 did not write that length</p>
+     */
+    public static final byte VERSION=2;
+
+    /**
+     * <p>Field indices. Order matters, as this is the order they are written in</p>
+     */
+    public static final int FIELD_BORDER_COLOR=0,
+            FIELD_BACKGROUND_COLOR=1,
+            FIELD_SHOW_DELAY=2,
+            FIELD_HIDE_DELAY=3,
+            FIELD_MINIMUM_SHOW_TIME=4,
+            FIELD_MARGIN_TOP=5,
+            FIELD_MARGIN_BOTTOM=6,
+            FIELD_BORDER_SIZE=7,
+            FIELD_TEXT_COLOR=8,
+            FIELD_BAR_STYLE=9,
+            FIELD_RENDER_MODE=10,
+            FIELD_ANIMATION_DURATION=11,
+            FIELD_ANIMATION_TYPE=12,
+            FIELD_PADDING_TOP=13,
+            FIELD_PADDING_BOTTOM=14,
+            FIELD_TEXT_SIZE=15,
+            FIELD_ELEVATION=16,
+            FIELD_BORDER_RADIUS=17,
+            FIELD_MIN=18,
+            FIELD_MAX=19,
+            FIELD_PROGRESS=20,
+            FIELD_SECONDARY_PROGRESS=21,
+            FIELD_COUNT=22;
+
+    /**
+     * <p>Fields that need a full 64 bits. The rest fit in an int</p>
+     */
+    public static final int WIDE_FIELDS=(1<<FIELD_MIN) | (1<<FIELD_MAX) | (1<<FIELD_PROGRESS) | (1<<FIELD_SECONDARY_PROGRESS);
+
+    /**
+     * <p>Bits of the packed boolean flags</p>
+     */
+    public static final int FLAG_INDETERMINATE=1,
+            FLAG_XML_MARGIN_TOP_PERCENT=1<<1,
+            FLAG_XML_MARGIN_BOTTOM_PERCENT=1<<2,
+            FLAG_DIALOGUE_MODE=1<<3,
+            FLAG_DYNAMICALLY_CREATED=1<<4,
+            FLAG_BLOCKS_UNDERLYING=1<<5,
+            FLAG_KEEP_WINDOW_ATTACHED=1<<6,
+            FLAG_ORPHAN_MODE=1<<7,
+            FLAG_PROGRESS_FROZEN=1<<8,
+            FLAG_TEXT_BESIDE_BAR=1<<9,
+            FLAG_MARGIN_IS_PERCENTAGE=1<<10,
+            FLAG_ANIMATION_IN_PROGRESS=1<<11,
+            FLAG_LAYOUT_RTL=1<<12,
+            FLAG_SHOWING=1<<13,
+            FLAG_BORDERLESS=1<<14,
+            FLAG_DO_NOT_SHOW_ON_ATTACH=1<<15,
+            FLAG_HAS_PROGRESS_TEXT=1<<16;
+
+    private RibbonStateCodec(){
+        //No instances
+    }
+
+    /**
+     * <p>Works out which values need to be written at all</p>
+     *
+     * @param values Current values, indexed by the FIELD_ constants
+     * @param defaults Default values, indexed the same way
+     * @return Mask with a bit set for every field that differs from its default
+     */
+    public static int presenceMask(long[] values, long[] defaults){
+        int mask=0;
+        for(int field=0; field<FIELD_COUNT; field++){
+            if(values[field]!=defaults[field]){
+                mask|=1<<field;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param field One of the FIELD_ constants
+     * @return Whether the field has to be written as a long
+     */
+    public static boolean isWide(int field){
+        return (WIDE_FIELDS & (1<<field))!=0;
+    }
+
+    /**
+     * <p>Fills in the defaults for every field that was not written, i.e. that has no bit in the mask</p>
+     *
+     * @param mask The presence mask that was read
+     * @param values Values read, indexed by the FIELD_ constants. Missing ones are overwritten
+     * @param defaults Default values, indexed the same way
+     */
+    public static void fillDefaults(int mask, long[] values, long[] defaults){
+        for(int field=0; field<FIELD_COUNT; field++){
+            if((mask & (1<<field))==0){
+                values[field]=defaults[field];
+            }
+        }
+    }
+
+    /**
+     * @return Sets or clears a flag, depending on the value
+     */
+    public static int setFlag(int flags, int flag, boolean value){
+        return value ? (flags | flag) : (flags & ~flag);
+    }
+
+    public static boolean hasFlag(int flags, int flag){
+        return (flags & flag)!=0;
+    }
+
+    public static long fromFloat(float value){
+        return Float.floatToRawIntBits(value);
+    }
+
+    public static float toFloat(long value){
+        return Float.intBitsToFloat((int) value);
+    }
+}
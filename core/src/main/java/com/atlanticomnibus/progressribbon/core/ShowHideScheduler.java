@@ -0,0 +1,217 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+/**
+ * <p>The state machine behind <code>ProgressRibbon.show(int)</code> and <code>ProgressRibbon.hide(int)</code>.</p>
+ * <br />
+ * <p>It only keeps track of where the ribbon is (hidden, waiting to show, showing, waiting to hide), and tells the
+ * caller what to do about a request: show or hide right now, (re)schedule the one and only callback, cancel it, or
+ * nothing at all. It never touches a view or a <code>Handler</code>, and takes the current time as a parameter,
+ * so it can be tested (and benchmarked) on a plain JVM.</p>
+ * <br />
+ * <p>Repeated requests collapse: showing a ribbon that is already showing or about to, does nothing, and a hide
+ * requested while a show is still pending simply cancels the show, so the ribbon never appears at all. A hide
+ * requested while another one is pending can only bring it forward, never push it back. Like
+ * <code>ContentLoadingProgressBar</code>, once shown, the ribbon can be kept on screen for a
+ * minimum amount of time, so quick tasks do not make it flicker.</p>
+ * <br />
+ * <p>Not thread-safe, it's meant to be used on the UI thread only.</p>
+ */
+public final class ShowHideScheduler {
+
+    /**
+     * <p>States</p>
+     */
+    public static final int STATE_HIDDEN=0,
+            STATE_SHOW_PENDING=1,
+            STATE_SHOWN=2,
+            STATE_HIDE_PENDING=3;
+
+    /**
+     * <p>Actions the caller has to take after a request. For {@link ShowHideScheduler#ACTION_SCHEDULE}
+     * the (single) callback has to be (re)posted {@link ShowHideScheduler#getScheduledDelay()} milliseconds from now,
+     * and {@link ShowHideScheduler#onDue(long)} called when it runs</p>
+     */
+    public static final int ACTION_NONE=0,
+            ACTION_SHOW=1,
+            ACTION_HIDE=2,
+            ACTION_SCHEDULE=3,
+            ACTION_CANCEL=4;
+
+    private int state=STATE_HIDDEN;
+    private long scheduledDelay;
+    private long scheduledDue;
+    private long shownTime;
+    private long minimumShowTime;
+
+    /**
+     * <p>Sets for how long the ribbon should stay visible at least once shown, in milliseconds. Hides requested
+     * earlier than that are postponed</p>
+     *
+     * @param minimumShowTime Minimum time in milliseconds, 0 to disable
+     */
+    public void setMinimumShowTime(long minimumShowTime){
+        this.minimumShowTime=Math.max(0, minimumShowTime);
+    }
+
+    public long getMinimumShowTime(){
+        return minimumShowTime;
+    }
+
+    public int getState(){
+        return state;
+    }
+
+    /**
+     * @return The delay for the callback, when the last request returned {@link ShowHideScheduler#ACTION_SCHEDULE}
+     */
+    public long getScheduledDelay(){
+        return scheduledDelay;
+    }
+
+    /**
+     * <p>A show was requested</p>
+     *
+     * @param now Current time in milliseconds (uptime)
+     * @param delay Show delay in milliseconds
+     * @return What to do, one of the ACTION_ constants
+     */
+    public int requestShow(long now, long delay){
+        switch (state){
+            case STATE_HIDDEN:
+                if(delay<=0){
+                    return markShown(now);
+                }
+                return schedule(STATE_SHOW_PENDING, now, delay);
+
+            case STATE_SHOW_PENDING:
+                //Already on its way. Only an immediate show can make it come sooner
+                if(delay<=0){
+                    markShown(now);
+                    return ACTION_SHOW;
+                }
+                return ACTION_NONE;
+
+            case STATE_HIDE_PENDING:
+                //Still on screen, just forget about hiding it
+                state=STATE_SHOWN;
+                return ACTION_CANCEL;
+
+            default:
+                return ACTION_NONE;
+        }
+    }
+
+    /**
+     * <p>A hide was requested</p>
+     *
+     * @param now Current time in milliseconds (uptime)
+     * @param delay Hide delay in milliseconds
+     * @return What to do, one of the ACTION_ constants
+     */
+    public int requestHide(long now, long delay){
+        switch (state){
+            case STATE_SHOW_PENDING:
+                //Never made it to the screen, so there's nothing to hide either
+                state=STATE_HIDDEN;
+                return ACTION_CANCEL;
+
+            case STATE_SHOWN:
+                long due=Math.max(now+Math.max(0, delay), shownTime+minimumShowTime);
+                if(due<=now){
+                    state=STATE_HIDDEN;
+                    return ACTION_HIDE;
+                }
+                return schedule(STATE_HIDE_PENDING, now, due-now);
+
+            case STATE_HIDE_PENDING:
+                //Whichever comes first, but still not before the minimum show time is over
+                long sooner=Math.max(now+Math.max(0, delay), shownTime+minimumShowTime);
+                if(sooner>=scheduledDue){
+                    return ACTION_NONE;
+                } else if(sooner<=now){
+                    state=STATE_HIDDEN;
+                    return ACTION_HIDE;
+                }
+                return schedule(STATE_HIDE_PENDING, now, sooner-now);
+
+            default:
+                //Hidden
+                return ACTION_NONE;
+        }
+    }
+
+    /**
+     * <p>The scheduled callback has run</p>
+     *
+     * @param now Current time in milliseconds (uptime)
+     * @return {@link ShowHideScheduler#ACTION_SHOW}, {@link ShowHideScheduler#ACTION_HIDE}, or {@link ShowHideScheduler#ACTION_NONE} if it was stale
+     */
+    public int onDue(long now){
+        if(state==STATE_SHOW_PENDING){
+            return markShown(now);
+        } else if(state==STATE_HIDE_PENDING){
+            state=STATE_HIDDEN;
+            return ACTION_HIDE;
+        }
+        return ACTION_NONE;
+    }
+
+    /**
+     * <p>The ribbon was shown without going through {@link ShowHideScheduler#requestShow(long, long)}</p>
+     *
+     * @param now Current time in milliseconds (uptime)
+     */
+    public void forceShown(long now){
+        state=STATE_SHOWN;
+        shownTime=now;
+    }
+
+    /**
+     * <p>The ribbon was hidden (or removed) without going through {@link ShowHideScheduler#requestHide(long, long)}</p>
+     */
+    public void forceHidden(){
+        state=STATE_HIDDEN;
+    }
+
+    /**
+     * @return Whether there's a callback scheduled, that the caller has to keep around
+     */
+    public boolean isPending(){
+        return state==STATE_SHOW_PENDING || state==STATE_HIDE_PENDING;
+    }
+
+    private int markShown(long now){
+        state=STATE_SHOWN;
+        shownTime=now;
+        return ACTION_SHOW;
+    }
+
+    private int schedule(int pendingState, long now, long delay){
+        state=pendingState;
+        scheduledDelay=delay;
+        scheduledDue=now+delay;
+        return ACTION_SCHEDULE;
+    }
+}
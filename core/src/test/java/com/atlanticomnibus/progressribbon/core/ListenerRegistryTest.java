@@ -0,0 +1,231 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ListenerRegistryTest {
+
+    /**
+     * <p>Writes down every event it gets, along with its own name</p>
+     */
+    private static class Recorder {
+        private final String name;
+        private final List<String> log;
+
+        Recorder(String name, List<String> log){
+            this.name=name;
+            this.log=log;
+        }
+
+        void onEvent(long first, long second){
+            log.add(name+":"+first+","+second);
+        }
+    }
+
+    /**
+     * <p>Keeps what it is given, until it's told to run it</p>
+     */
+    private static final class QueueExecutor implements Executor {
+        final List<Runnable> queue=new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command){
+            queue.add(command);
+        }
+
+        void runAll(){
+            for(Runnable runnable : queue){
+                runnable.run();
+            }
+            queue.clear();
+        }
+    }
+
+    private static final ListenerRegistry.Event<Recorder> EVENT=new ListenerRegistry.Event<Recorder>() {
+        @Override
+        public void deliver(Recorder listener, long first, long second) {
+            listener.onEvent(first, second);
+        }
+    };
+
+    private ListenerRegistry<Recorder> registry;
+    private List<String> log;
+
+    @Before
+    public void setUp(){
+        registry=new ListenerRegistry<>();
+        log=new ArrayList<>();
+    }
+
+    @Test
+    public void emptyRegistryDispatchesNothing(){
+        assertTrue(registry.isEmpty());
+        registry.dispatch(EVENT, 1, 2);
+        assertTrue(log.isEmpty());
+    }
+
+    @Test
+    public void listenersAreCalledInOrder(){
+        registry.add(new Recorder("a", log));
+        registry.add(new Recorder("b", log));
+        assertEquals(2, registry.size());
+
+        registry.dispatch(EVENT, 1, 2);
+        assertEquals("[a:1,2, b:1,2]", log.toString());
+    }
+
+    @Test
+    public void addingAgainReplacesTheRegistration(){
+        Recorder a=new Recorder("a", log);
+        QueueExecutor executor=new QueueExecutor();
+        registry.add(a);
+        registry.add(new Recorder("b", log));
+        registry.add(a, executor);
+        assertEquals(2, registry.size());
+
+        registry.dispatch(EVENT, 1, 0);
+        //Keeps its place, but now goes through the executor
+        assertEquals("[b:1,0]", log.toString());
+        executor.runAll();
+        assertEquals("[b:1,0, a:1,0]", log.toString());
+    }
+
+    @Test
+    public void executorGetsTheValuesOfTheDispatch(){
+        QueueExecutor executor=new QueueExecutor();
+        registry.add(new Recorder("a", log), executor);
+
+        registry.dispatch(EVENT, 1, 0);
+        registry.dispatch(EVENT, 2, 0);
+        assertTrue(log.isEmpty());
+        assertEquals(2, executor.queue.size());
+
+        executor.runAll();
+        assertEquals("[a:1,0, a:2,0]", log.toString());
+    }
+
+    @Test
+    public void filterSkipsEvents(){
+        registry.add(new Recorder("a", log), null, new ListenerRegistry.Filter() {
+            @Override
+            public boolean accept(long first, long second) {
+                return first%2==0;
+            }
+        });
+        registry.add(new Recorder("b", log));
+
+        registry.dispatch(EVENT, 1, 0);
+        registry.dispatch(EVENT, 2, 0);
+        assertEquals("[b:1,0, a:2,0, b:2,0]", log.toString());
+    }
+
+    @Test
+    public void filteredEventsAreNotPosted(){
+        QueueExecutor executor=new QueueExecutor();
+        registry.add(new Recorder("a", log), executor, new ListenerRegistry.Filter() {
+            @Override
+            public boolean accept(long first, long second) {
+                return false;
+            }
+        });
+
+        registry.dispatch(EVENT, 1, 0);
+        assertTrue(executor.queue.isEmpty());
+    }
+
+    @Test
+    public void flushDeliversWhatWasHeldBack(){
+        QueueExecutor executor=new QueueExecutor();
+        registry.add(new Recorder("a", log), null, new ProgressThrottle(10, 0));
+        registry.add(new Recorder("b", log), executor, new ProgressThrottle(10, 0));
+        registry.add(new Recorder("c", log));
+
+        registry.dispatch(EVENT, 0, 0);
+        executor.runAll();
+        registry.dispatch(EVENT, 4, 0);
+        log.clear();
+
+        //Only to the ones that held something back, and only once
+        registry.flush(EVENT, 1);
+        registry.flush(EVENT, 1);
+        assertEquals("[a:4,1]", log.toString());
+        executor.runAll();
+        assertEquals("[a:4,1, b:4,1]", log.toString());
+    }
+
+    @Test
+    public void removedListenerIsNotCalled(){
+        Recorder a=new Recorder("a", log);
+        registry.add(a);
+        registry.add(new Recorder("b", log));
+
+        assertTrue(registry.remove(a));
+        assertFalse(registry.remove(a));
+        assertEquals(1, registry.size());
+
+        registry.dispatch(EVENT, 1, 0);
+        assertEquals("[b:1,0]", log.toString());
+    }
+
+    @Test
+    public void removalDuringDispatchWaitsForTheNextOne(){
+        final Recorder b=new Recorder("b", log);
+        registry.add(new Recorder("a", log){
+            @Override
+            void onEvent(long first, long second){
+                super.onEvent(first, second);
+                registry.remove(b);
+            }
+        });
+        registry.add(b);
+
+        registry.dispatch(EVENT, 1, 0);
+        registry.dispatch(EVENT, 2, 0);
+        assertEquals("[a:1,0, b:1,0, a:2,0]", log.toString());
+    }
+
+    @Test
+    public void clearRemovesEverything(){
+        registry.add(new Recorder("a", log));
+        registry.add(new Recorder("b", log));
+        registry.clear();
+        assertTrue(registry.isEmpty());
+        registry.dispatch(EVENT, 1, 0);
+        assertTrue(log.isEmpty());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void nullListenerIsRejected(){
+        registry.add(null);
+    }
+}
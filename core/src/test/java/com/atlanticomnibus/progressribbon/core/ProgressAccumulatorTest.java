@@ -0,0 +1,90 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProgressAccumulatorTest {
+
+    @Test
+    public void sumsWhatIsAdded(){
+        ProgressAccumulator accumulator=new ProgressAccumulator(4);
+        accumulator.add(10);
+        accumulator.increment();
+        accumulator.add(-1);
+        assertEquals(10, accumulator.sum());
+    }
+
+    @Test
+    public void resetStartsOver(){
+        ProgressAccumulator accumulator=new ProgressAccumulator();
+        accumulator.add(42);
+        accumulator.reset();
+        assertEquals(0, accumulator.sum());
+    }
+
+    @Test
+    public void singleCellStillCounts(){
+        ProgressAccumulator accumulator=new ProgressAccumulator(1);
+        for(int i=0; i<100; i++){
+            accumulator.increment();
+        }
+        assertEquals(100, accumulator.sum());
+    }
+
+    @Test
+    public void noIncrementIsLostBetweenThreads() throws InterruptedException {
+        //More writers than cells, so some of them have to move around
+        final ProgressAccumulator accumulator=new ProgressAccumulator(2);
+        final CountDownLatch start=new CountDownLatch(1);
+        Thread[] threads=new Thread[8];
+
+        for(int i=0; i<threads.length; i++){
+            threads[i]=new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for(int step=0; step<20000; step++){
+                        accumulator.increment();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+
+        assertEquals(8*20000, accumulator.sum());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressAggregatorTest {
+
+    @Test
+    public void emptyAggregatorIsNowhere(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        assertEquals(0, aggregator.getBasisPoints());
+        assertEquals(0, aggregator.getTaskCount());
+        assertFalse(aggregator.isComplete());
+    }
+
+    @Test
+    public void tasksCountEqually(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        ProgressAggregator.Task first=aggregator.addTask(100);
+        aggregator.addTask(1000);
+
+        first.setProgress(50);
+        assertEquals(2500, aggregator.getBasisPoints());
+        assertEquals(25, aggregator.getPercentage());
+        assertEquals(2, aggregator.getTaskCount());
+    }
+
+    @Test
+    public void tasksCountByWeight(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        ProgressAggregator.Task heavy=aggregator.addTask(100, 3);
+        aggregator.addTask(100, 1);
+
+        heavy.complete();
+        assertEquals(7500, aggregator.getBasisPoints());
+    }
+
+    @Test
+    public void addAccumulates(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        ProgressAggregator.Task task=aggregator.addTask(100);
+        task.add(25);
+        task.add(25);
+        assertEquals(50, task.getProgress());
+        assertEquals(5000, aggregator.getBasisPoints());
+    }
+
+    @Test
+    public void completeWhenEveryTaskIsDone(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        ProgressAggregator.Task first=aggregator.addTask(10);
+        ProgressAggregator.Task second=aggregator.addTask(20);
+
+        first.complete();
+        assertFalse(aggregator.isComplete());
+        second.setProgress(20);
+        assertTrue(aggregator.isComplete());
+        assertEquals(ProgressMath.BASIS_POINTS, aggregator.getBasisPoints());
+    }
+
+    @Test
+    public void joiningTaskPullsTheTotalBack(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        aggregator.addTask(10).complete();
+        assertEquals(ProgressMath.BASIS_POINTS, aggregator.getBasisPoints());
+
+        aggregator.addTask(10);
+        assertEquals(5000, aggregator.getBasisPoints());
+    }
+
+    @Test
+    public void removedTaskNoLongerCounts(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        ProgressAggregator.Task first=aggregator.addTask(100);
+        ProgressAggregator.Task second=aggregator.addTask(100);
+        first.setProgress(50);
+
+        second.remove();
+        assertTrue(second.isRemoved());
+        assertEquals(1, aggregator.getTaskCount());
+        assertEquals(5000, aggregator.getBasisPoints());
+
+        //Late updates and a second removal are ignored
+        second.complete();
+        second.remove();
+        assertEquals(1, aggregator.getTaskCount());
+        assertEquals(5000, aggregator.getBasisPoints());
+    }
+
+    @Test
+    public void removingEveryTaskLeavesNothing(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        ProgressAggregator.Task task=aggregator.addTask(100);
+        task.setProgress(30);
+        task.remove();
+        assertEquals(0, aggregator.getBasisPoints());
+        assertEquals(0, aggregator.getTaskCount());
+    }
+
+    @Test
+    public void emptyTaskIsEitherDoneOrNot(){
+        ProgressAggregator aggregator=new ProgressAggregator();
+        ProgressAggregator.Task task=aggregator.addTask(0);
+        task.setProgress(-1);
+        assertEquals(0, aggregator.getBasisPoints());
+        task.setProgress(0);
+        assertTrue(aggregator.isComplete());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void weightMustBePositive(){
+        new ProgressAggregator().addTask(100, 0);
+    }
+
+    @Test
+    public void racingUpdatesEndUpAtTheLatestProgress() throws InterruptedException {
+        final ProgressAggregator aggregator=new ProgressAggregator();
+        final ProgressAggregator.Task task=aggregator.addTask(4*10000);
+        final CountDownLatch start=new CountDownLatch(1);
+        Thread[] threads=new Thread[4];
+
+        for(int i=0; i<threads.length; i++){
+            threads[i]=new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for(int step=0; step<10000; step++){
+                        task.add(1);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+
+        assertEquals(4*10000, task.getProgress());
+        assertTrue(aggregator.isComplete());
+    }
+}
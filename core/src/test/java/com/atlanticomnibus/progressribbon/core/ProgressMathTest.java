@@ -0,0 +1,101 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressMathTest {
+
+    @Test
+    public void scalesWithinTheRange(){
+        assertEquals(50, ProgressMath.scale(50, 0, 100, 100));
+        assertEquals(5, ProgressMath.scale(150, 100, 200, 10));
+        assertEquals(2500, ProgressMath.toBasisPoints(25, 0, 100));
+        assertEquals(33, ProgressMath.toPercentage(1, 0, 3));
+    }
+
+    @Test
+    public void clampsOutsideTheRange(){
+        assertEquals(0, ProgressMath.scale(-5, 0, 100, 100));
+        assertEquals(0, ProgressMath.scale(50, 100, 200, 100));
+        assertEquals(100, ProgressMath.scale(500, 0, 100, 100));
+    }
+
+    @Test
+    public void emptyRangeIsZero(){
+        assertEquals(0, ProgressMath.scale(10, 10, 10, 100));
+        assertEquals(0, ProgressMath.scale(10, 20, 10, 100));
+    }
+
+    @Test
+    public void hugeValuesDoNotOverflow(){
+        //offset*resolution would not fit in a long
+        assertEquals(5000, ProgressMath.toBasisPoints(Long.MAX_VALUE/2, 0, Long.MAX_VALUE));
+        assertEquals(ProgressMath.BASIS_POINTS, ProgressMath.toBasisPoints(Long.MAX_VALUE, 0, Long.MAX_VALUE));
+
+        int almostDone=ProgressMath.toBasisPoints(Long.MAX_VALUE-1, 0, Long.MAX_VALUE);
+        assertTrue(almostDone>=0 && almostDone<=ProgressMath.BASIS_POINTS);
+    }
+
+    @Test
+    public void lastStepBeforeOverflowStaysExact(){
+        long offset=Long.MAX_VALUE/ProgressMath.BASIS_POINTS;
+        long range=offset*2;
+        assertEquals(5000, ProgressMath.toBasisPoints(offset, 0, range));
+        assertEquals(5000, ProgressMath.toBasisPoints(offset+1, 0, range));
+    }
+
+    @Test
+    public void fromBasisPointsClamps(){
+        assertEquals(10, ProgressMath.fromBasisPoints(-1, 10, 20));
+        assertEquals(20, ProgressMath.fromBasisPoints(ProgressMath.BASIS_POINTS+1, 10, 20));
+        assertEquals(10, ProgressMath.fromBasisPoints(5000, 10, 10));
+        assertEquals(15, ProgressMath.fromBasisPoints(5000, 10, 20));
+    }
+
+    @Test
+    public void fromBasisPointsOnHugeRanges(){
+        assertEquals(Long.MAX_VALUE/2, ProgressMath.fromBasisPoints(5000, 0, Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, ProgressMath.fromBasisPoints(ProgressMath.BASIS_POINTS, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void basisPointsRoundTrip(){
+        long max=10000000000L;
+        for(int basisPoints=0; basisPoints<=ProgressMath.BASIS_POINTS; basisPoints+=37){
+            assertEquals(basisPoints, ProgressMath.toBasisPoints(ProgressMath.fromBasisPoints(basisPoints, 0, max), 0, max));
+        }
+    }
+
+    @Test
+    public void clampsToInt(){
+        assertEquals(Integer.MAX_VALUE, ProgressMath.clampToInt(Long.MAX_VALUE));
+        assertEquals(Integer.MAX_VALUE, ProgressMath.clampToInt(Integer.MAX_VALUE+1L));
+        assertEquals(Integer.MIN_VALUE, ProgressMath.clampToInt(Long.MIN_VALUE));
+        assertEquals(Integer.MIN_VALUE, ProgressMath.clampToInt(Integer.MIN_VALUE-1L));
+        assertEquals(-7, ProgressMath.clampToInt(-7));
+    }
+}
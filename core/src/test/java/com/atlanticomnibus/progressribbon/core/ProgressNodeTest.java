@@ -0,0 +1,185 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressNodeTest {
+
+    @Test
+    public void rootCanBeASingleLeaf(){
+        ProgressNode root=new ProgressNode();
+        assertEquals(1, root.getTotal());
+        assertNull(root.getParent());
+        root.complete();
+        assertTrue(root.isComplete());
+        assertEquals(ProgressMath.BASIS_POINTS, root.getBasisPoints());
+    }
+
+    @Test
+    public void childrenRollUpEqually(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode first=root.addChild(100);
+        ProgressNode second=root.addChild(100);
+        assertSame(root, first.getParent());
+        assertEquals(2, root.getChildCount());
+
+        first.setProgress(50);
+        assertEquals(5000, first.getBasisPoints());
+        assertEquals(2500, root.getBasisPoints());
+
+        second.add(60);
+        second.add(40);
+        assertEquals(100, second.getProgress());
+        assertEquals(7500, root.getBasisPoints());
+        assertEquals(75, root.getPercentage());
+    }
+
+    @Test
+    public void childrenRollUpByWeight(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode heavy=root.addChild(100, 3);
+        root.addChild(100, 1);
+        assertEquals(3, heavy.getWeight());
+
+        heavy.complete();
+        assertEquals(7500, root.getBasisPoints());
+    }
+
+    @Test
+    public void progressRollsUpThroughEveryLevel(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode folder=root.addChild(0);
+        ProgressNode otherFolder=root.addChild(0);
+        ProgressNode file=folder.addChild(10);
+        folder.addChild(10);
+        otherFolder.addChild(10);
+
+        file.complete();
+        assertEquals(5000, folder.getBasisPoints());
+        assertEquals(2500, root.getBasisPoints());
+        assertFalse(root.isComplete());
+    }
+
+    @Test
+    public void everythingDoneMeansComplete(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode folder=root.addChild(0);
+        ProgressNode first=folder.addChild(10);
+        ProgressNode second=folder.addChild(20);
+
+        first.complete();
+        second.complete();
+        assertTrue(folder.isComplete());
+        assertTrue(root.isComplete());
+    }
+
+    @Test
+    public void newChildPullsTheParentBack(){
+        ProgressNode root=new ProgressNode();
+        root.addChild(10).complete();
+        assertEquals(ProgressMath.BASIS_POINTS, root.getBasisPoints());
+
+        root.addChild(10);
+        assertEquals(5000, root.getBasisPoints());
+    }
+
+    @Test
+    public void removedChildNoLongerCounts(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode first=root.addChild(100);
+        ProgressNode second=root.addChild(100);
+        first.setProgress(50);
+
+        second.remove();
+        assertTrue(second.isRemoved());
+        assertEquals(0, second.getBasisPoints());
+        assertEquals(1, root.getChildCount());
+        assertEquals(5000, root.getBasisPoints());
+
+        //Updates to it, or removing it again, change nothing
+        second.complete();
+        second.remove();
+        assertEquals(1, root.getChildCount());
+        assertEquals(5000, root.getBasisPoints());
+    }
+
+    @Test
+    public void removingASubtreeUpdatesTheRoot(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode done=root.addChild(0);
+        ProgressNode pending=root.addChild(0);
+        done.addChild(10).complete();
+        ProgressNode leaf=pending.addChild(10);
+
+        pending.remove();
+        assertTrue(root.isComplete());
+
+        //Below the removed node, updates go nowhere
+        leaf.setProgress(5);
+        assertTrue(root.isComplete());
+    }
+
+    @Test
+    public void removingTheRootDoesNothing(){
+        ProgressNode root=new ProgressNode();
+        root.remove();
+        assertFalse(root.isRemoved());
+    }
+
+    @Test
+    public void totalCanChange(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode leaf=root.addChild(100);
+        leaf.setProgress(50);
+        leaf.setTotal(200);
+        assertEquals(2500, leaf.getBasisPoints());
+        assertEquals(2500, root.getBasisPoints());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void branchTakesNoProgressOfItsOwn(){
+        ProgressNode root=new ProgressNode();
+        root.addChild(10);
+        root.setProgress(1);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void leafWithProgressTakesNoChildren(){
+        ProgressNode root=new ProgressNode();
+        ProgressNode leaf=root.addChild(10);
+        leaf.setProgress(1);
+        leaf.addChild(10);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void weightMustBePositive(){
+        new ProgressNode().addChild(10, -1);
+    }
+}
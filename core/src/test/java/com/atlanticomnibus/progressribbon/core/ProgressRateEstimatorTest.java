@@ -0,0 +1,186 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressRateEstimatorTest {
+
+    private static final long SECOND=1000000000L;
+
+    private ProgressRateEstimator estimator;
+
+    @Before
+    public void setUp(){
+        estimator=new ProgressRateEstimator();
+    }
+
+    @Test
+    public void firstSampleIsOnlyTheStart(){
+        assertTrue(estimator.update(100, 0));
+        assertFalse(estimator.hasEstimate());
+        assertEquals(0, estimator.getRate(), 0);
+        assertEquals(ProgressRateEstimator.UNKNOWN, estimator.getRemainingMillis(1000));
+    }
+
+    @Test
+    public void secondSampleGivesTheRate(){
+        estimator.update(0, 0);
+        estimator.update(500, 2*SECOND);
+        assertTrue(estimator.hasEstimate());
+        assertEquals(250, estimator.getRate(), 1e-9);
+        assertEquals(2000, estimator.getRemainingMillis(1000));
+    }
+
+    @Test
+    public void convergesOnANewSteadyRate(){
+        estimator.setTimeConstant(1000);
+        long value=0;
+        long now=0;
+        estimator.update(value, now);
+
+        //100 per second for a while
+        for(int i=0; i<10; i++){
+            value+=10;
+            now+=SECOND/10;
+            estimator.update(value, now);
+        }
+        assertEquals(100, estimator.getRate(), 1e-6);
+
+        //Then 1000 per second. One time constant in, it's about 63% of the way there
+        for(int i=0; i<10; i++){
+            value+=100;
+            now+=SECOND/10;
+            estimator.update(value, now);
+        }
+        assertEquals(100+900*(1-Math.exp(-1)), estimator.getRate(), 1e-6);
+
+        //And after many, it's there
+        for(int i=0; i<200; i++){
+            value+=100;
+            now+=SECOND/10;
+            estimator.update(value, now);
+        }
+        assertEquals(1000, estimator.getRate(), 1e-3);
+    }
+
+    @Test
+    public void weightDependsOnTimeNotOnTheNumberOfSamples(){
+        ProgressRateEstimator often=new ProgressRateEstimator();
+        ProgressRateEstimator rarely=new ProgressRateEstimator();
+        often.update(0, 0);
+        often.update(100, SECOND);
+        rarely.update(0, 0);
+        rarely.update(100, SECOND);
+
+        //Same speed change over the same time, in 10 samples or in one
+        for(int i=1; i<=10; i++){
+            often.update(100+30*i, SECOND+i*SECOND/10);
+        }
+        rarely.update(400, 2*SECOND);
+
+        assertEquals(rarely.getRate(), often.getRate(), 1e-6);
+    }
+
+    @Test
+    public void goingBackwardsStartsOver(){
+        estimator.update(0, 0);
+        estimator.update(500, SECOND);
+        assertTrue(estimator.hasEstimate());
+
+        assertTrue(estimator.update(10, 2*SECOND));
+        assertFalse(estimator.hasEstimate());
+        assertEquals(0, estimator.getRate(), 0);
+
+        estimator.update(110, 3*SECOND);
+        assertEquals(100, estimator.getRate(), 1e-9);
+    }
+
+    @Test
+    public void samplesAtTheSameTimeAreMerged(){
+        estimator.update(0, 0);
+        estimator.update(100, SECOND);
+
+        assertFalse(estimator.update(150, SECOND));
+        assertFalse(estimator.update(200, SECOND-1));
+        assertEquals(100, estimator.getRate(), 1e-9);
+
+        //The merged progress is in the next sample
+        estimator.setTimeConstant(1);
+        estimator.update(300, 2*SECOND);
+        assertEquals(200, estimator.getRate(), 1e-6);
+    }
+
+    @Test
+    public void remainingTimeAtTheEdges(){
+        estimator.update(0, 0);
+        estimator.update(1, SECOND);
+
+        assertEquals(0, estimator.getRemainingMillis(1));
+        assertEquals(0, estimator.getRemainingMillis(0));
+        //Would not fit in a long
+        assertEquals(ProgressRateEstimator.UNKNOWN, estimator.getRemainingMillis(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void standingStillHasNoRemainingTime(){
+        estimator.update(50, 0);
+        estimator.update(50, SECOND);
+        assertTrue(estimator.hasEstimate());
+        assertEquals(ProgressRateEstimator.UNKNOWN, estimator.getRemainingMillis(100));
+    }
+
+    @Test
+    public void resetAndClear(){
+        estimator.update(0, 0);
+        estimator.update(100, SECOND);
+
+        estimator.reset(1000, 5*SECOND);
+        assertFalse(estimator.hasEstimate());
+        estimator.update(1100, 6*SECOND);
+        assertEquals(100, estimator.getRate(), 1e-9);
+
+        estimator.clear();
+        assertFalse(estimator.hasEstimate());
+        //After clear, the next value is a start, even if it's lower
+        assertTrue(estimator.update(0, 7*SECOND));
+        assertFalse(estimator.hasEstimate());
+    }
+
+    @Test
+    public void keepsItsTimeConstant(){
+        assertEquals(ProgressRateEstimator.DEFAULT_TIME_CONSTANT_MILLIS, estimator.getTimeConstant());
+        estimator.setTimeConstant(500);
+        assertEquals(500, estimator.getTimeConstant());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void timeConstantMustBePositive(){
+        estimator.setTimeConstant(0);
+    }
+}
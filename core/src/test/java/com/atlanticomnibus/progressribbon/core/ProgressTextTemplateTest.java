@@ -0,0 +1,146 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressTextTemplateTest {
+
+    private static String fill(String pattern, long progress, long max){
+        ProgressTextTemplate template=new ProgressTextTemplate(pattern);
+        template.update(progress, 0, max, 0, -1);
+        return template.toString();
+    }
+
+    private static String fillEta(long remainingMillis){
+        ProgressTextTemplate template=new ProgressTextTemplate("{eta}");
+        template.update(0, 0, 100, 0, remainingMillis);
+        return template.toString();
+    }
+
+    @Test
+    public void fillsInPlaceholders(){
+        assertEquals("50% (50 of 100)", fill("{percent}% ({progress} of {max})", 50, 100));
+        assertEquals("done", fill("done", 1, 1));
+        assertEquals("-5", fill("{progress}", -5, 10));
+        assertEquals("0", fill("{progress}", 0, 10));
+    }
+
+    @Test
+    public void percentTakesMinIntoAccount(){
+        ProgressTextTemplate template=new ProgressTextTemplate("{percent}");
+        template.update(150, 100, 200, 0, -1);
+        assertEquals("50", template.toString());
+    }
+
+    @Test
+    public void bytesInUnits(){
+        assertEquals("1.5 of 10.0 MB", fill("{progress:MB} of {max:MB} MB", 1572864, 10485760));
+        assertEquals("2.0", fill("{progress:GB}", 2147483648L, 4294967296L));
+        //Rounded to the nearest tenth
+        assertEquals("1.0", fill("{progress:KB}", 1075, 2048));
+        assertEquals("1.1", fill("{progress:KB}", 1076, 2048));
+    }
+
+    @Test
+    public void unitsAreCaseInsensitive(){
+        assertEquals("1.5", fill("{progress:kb}", 1536, 2048));
+    }
+
+    @Test
+    public void rateInUnits(){
+        ProgressTextTemplate template=new ProgressTextTemplate("{rate:KB}/s, {rate}");
+        template.update(0, 0, 100, 2048, -1);
+        assertEquals("2.0/s, 2048", template.toString());
+
+        template.update(0, 0, 100, Double.NaN, -1);
+        assertEquals("0.0/s, 0", template.toString());
+    }
+
+    @Test
+    public void remainingTime(){
+        assertEquals("-:--", fillEta(-1));
+        assertEquals("0:00", fillEta(0));
+        //Rounded up to the second
+        assertEquals("0:01", fillEta(1));
+        assertEquals("1:01", fillEta(61000));
+        assertEquals("1:01:01", fillEta(3661000));
+    }
+
+    @Test
+    public void doubleBraceIsALiteral(){
+        assertEquals("{percent} 10%", fill("{{percent} {percent}%", 10, 100));
+    }
+
+    @Test
+    public void reportsWhetherTheTextChanged(){
+        ProgressTextTemplate template=new ProgressTextTemplate("{percent}%");
+        assertTrue(template.update(10, 0, 100, 0, -1));
+        assertFalse(template.update(10, 0, 100, 0, -1));
+        //Something changed, but nothing that is in the text
+        assertFalse(template.update(10, 0, 100, 5, 1000));
+        assertTrue(template.update(11, 0, 100, 0, -1));
+        assertEquals("11%", new String(template.getChars(), 0, template.getLength()));
+    }
+
+    @Test
+    public void usesTheDigitsItIsGiven(){
+        ProgressTextTemplate template=new ProgressTextTemplate("{progress:KB}");
+        template.update(1536, 0, 2048, 0, -1);
+        assertEquals("1.5", template.toString());
+
+        //Arabic-Indic digits and separator
+        template.setDigits('\u0660', '\u066B');
+        assertTrue(template.update(1536, 0, 2048, 0, -1));
+        assertEquals("\u0661\u066B\u0665", template.toString());
+    }
+
+    @Test
+    public void keepsThePattern(){
+        assertEquals("{percent}%", new ProgressTextTemplate("{percent}%").getPattern());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void unknownPlaceholderIsRejected(){
+        new ProgressTextTemplate("{speed}");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void unknownUnitIsRejected(){
+        new ProgressTextTemplate("{progress:TB}");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void unitOnPercentIsRejected(){
+        new ProgressTextTemplate("{percent:MB}");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void unclosedPlaceholderIsRejected(){
+        new ProgressTextTemplate("{percent");
+    }
+}
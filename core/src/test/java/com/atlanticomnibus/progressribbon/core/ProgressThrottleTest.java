@@ -0,0 +1,170 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressThrottleTest {
+
+    private static final long MILLIS=1000000L;
+
+    @Test
+    public void firstValueAlwaysGetsThrough(){
+        ProgressThrottle throttle=new ProgressThrottle(1000, 1000);
+        assertTrue(throttle.shouldDeliver(3, false, 0));
+    }
+
+    @Test
+    public void smallStepsAreHeldBack(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 0);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertFalse(throttle.shouldDeliver(5, false, 0));
+        assertFalse(throttle.shouldDeliver(9, false, 0));
+        assertTrue(throttle.shouldDeliver(10, false, 0));
+        //Measured from the last one delivered, not the last one seen
+        assertFalse(throttle.shouldDeliver(19, false, 0));
+    }
+
+    @Test
+    public void unchangedValuesAreHeldBackEvenWithoutDelta(){
+        ProgressThrottle throttle=new ProgressThrottle(0, 0);
+        assertTrue(throttle.shouldDeliver(5, false, 0));
+        assertFalse(throttle.shouldDeliver(5, false, 0));
+        assertTrue(throttle.shouldDeliver(6, false, 0));
+    }
+
+    @Test
+    public void valuesTooSoonAreHeldBack(){
+        ProgressThrottle throttle=new ProgressThrottle(0, 100);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertFalse(throttle.shouldDeliver(1, false, 50*MILLIS));
+        assertTrue(throttle.shouldDeliver(1, false, 100*MILLIS));
+    }
+
+    @Test
+    public void bothLimitsHaveToHold(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 100);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertFalse(throttle.shouldDeliver(50, false, 10*MILLIS));
+        assertFalse(throttle.shouldDeliver(5, false, 200*MILLIS));
+        assertTrue(throttle.shouldDeliver(50, false, 200*MILLIS));
+    }
+
+    @Test
+    public void goingBackwardsAlwaysGetsThrough(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 1000);
+        assertTrue(throttle.shouldDeliver(50, false, 0));
+        assertTrue(throttle.shouldDeliver(3, false, 1));
+        assertFalse(throttle.shouldDeliver(4, false, 2));
+    }
+
+    @Test
+    public void finalValueGetsThroughOnce(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 1000);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertFalse(throttle.shouldDeliver(5, false, 1));
+        assertTrue(throttle.shouldDeliver(5, true, 2));
+        assertFalse(throttle.shouldDeliver(5, true, 3));
+    }
+
+    @Test
+    public void finalValueAlreadyDeliveredIsNotRepeated(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 0);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertTrue(throttle.shouldDeliver(100, false, 0));
+        assertFalse(throttle.shouldDeliver(100, true, 0));
+    }
+
+    @Test
+    public void resetLetsTheNextOneThrough(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 0);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        throttle.reset();
+        assertTrue(throttle.shouldDeliver(1, false, 0));
+    }
+
+    @Test
+    public void lastHeldBackValueCanBeReleased(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 0);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertFalse(throttle.hasHeldBack());
+        assertFalse(throttle.shouldDeliver(5, false, 0));
+        assertFalse(throttle.shouldDeliver(7, false, 0));
+        assertTrue(throttle.hasHeldBack());
+
+        assertEquals(7, throttle.releaseHeldBack());
+        assertFalse(throttle.hasHeldBack());
+        //Counts as delivered
+        assertFalse(throttle.shouldDeliver(16, false, 0));
+        assertTrue(throttle.shouldDeliver(17, false, 0));
+    }
+
+    @Test
+    public void deliveredOrRepeatedValuesAreNotHeldBack(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 0);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertFalse(throttle.shouldDeliver(5, false, 0));
+        assertTrue(throttle.shouldDeliver(10, false, 0));
+        assertFalse(throttle.hasHeldBack());
+        assertFalse(throttle.shouldDeliver(10, true, 0));
+        assertFalse(throttle.hasHeldBack());
+    }
+
+    @Test
+    public void resetForgetsTheHeldBackValue(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 0);
+        assertTrue(throttle.shouldDeliver(0, false, 0));
+        assertFalse(throttle.shouldDeliver(5, false, 0));
+        throttle.reset();
+        assertFalse(throttle.hasHeldBack());
+    }
+
+    @Test
+    public void filterTakesTheSecondValueAsFinal(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 0);
+        assertTrue(throttle.accept(0, 0));
+        assertFalse(throttle.accept(5, 0));
+        assertTrue(throttle.accept(5, 1));
+    }
+
+    @Test
+    public void keepsItsLimits(){
+        ProgressThrottle throttle=new ProgressThrottle(10, 250);
+        assertEquals(10, throttle.getMinDelta());
+        assertEquals(250, throttle.getMinInterval());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void negativeDeltaIsRejected(){
+        new ProgressThrottle(-1, 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void negativeIntervalIsRejected(){
+        new ProgressThrottle(0, -1);
+    }
+}
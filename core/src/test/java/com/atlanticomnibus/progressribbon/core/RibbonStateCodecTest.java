@@ -0,0 +1,129 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RibbonStateCodecTest {
+
+    private static long[] defaults(){
+        long[] defaults=new long[RibbonStateCodec.FIELD_COUNT];
+        for(int i=0; i<defaults.length; i++){
+            defaults[i]=i*3+1;
+        }
+        return defaults;
+    }
+
+    @Test
+    public void everyFieldFitsInTheMask(){
+        assertTrue(RibbonStateCodec.FIELD_COUNT<=Integer.SIZE);
+    }
+
+    @Test
+    public void defaultsAreNotWritten(){
+        long[] defaults=defaults();
+        assertEquals(0, RibbonStateCodec.presenceMask(defaults.clone(), defaults));
+    }
+
+    @Test
+    public void changedFieldsAreMarked(){
+        long[] defaults=defaults();
+        long[] values=defaults.clone();
+        values[RibbonStateCodec.FIELD_BORDER_COLOR]=0xFF00FF00L;
+        values[RibbonStateCodec.FIELD_PROGRESS]=5000000000L;
+
+        int mask=RibbonStateCodec.presenceMask(values, defaults);
+        assertEquals((1<<RibbonStateCodec.FIELD_BORDER_COLOR) | (1<<RibbonStateCodec.FIELD_PROGRESS), mask);
+    }
+
+    @Test
+    public void roundTripRestoresEveryField(){
+        long[] defaults=defaults();
+        long[] values=defaults.clone();
+        values[RibbonStateCodec.FIELD_SHOW_DELAY]=250;
+        values[RibbonStateCodec.FIELD_TEXT_SIZE]=RibbonStateCodec.fromFloat(14.5f);
+        values[RibbonStateCodec.FIELD_MAX]=Long.MAX_VALUE;
+        values[RibbonStateCodec.FIELD_SECONDARY_PROGRESS]=-1;
+
+        int mask=RibbonStateCodec.presenceMask(values, defaults);
+
+        //Only the marked fields make it through, the way SavedState writes and reads them
+        long[] restored=new long[RibbonStateCodec.FIELD_COUNT];
+        for(int field=0; field<RibbonStateCodec.FIELD_COUNT; field++){
+            if((mask & (1<<field))!=0){
+                restored[field]=RibbonStateCodec.isWide(field) ? values[field] : (int) values[field];
+            } else {
+                restored[field]=Long.MIN_VALUE;
+            }
+        }
+        RibbonStateCodec.fillDefaults(mask, restored, defaults);
+
+        assertArrayEquals(values, restored);
+        assertEquals(14.5f, RibbonStateCodec.toFloat(restored[RibbonStateCodec.FIELD_TEXT_SIZE]), 0f);
+    }
+
+    @Test
+    public void fillDefaultsWithEmptyMaskGivesDefaults(){
+        long[] defaults=defaults();
+        long[] values=new long[RibbonStateCodec.FIELD_COUNT];
+        RibbonStateCodec.fillDefaults(0, values, defaults);
+        assertArrayEquals(defaults, values);
+    }
+
+    @Test
+    public void onlyProgressFieldsAreWide(){
+        assertTrue(RibbonStateCodec.isWide(RibbonStateCodec.FIELD_MIN));
+        assertTrue(RibbonStateCodec.isWide(RibbonStateCodec.FIELD_MAX));
+        assertTrue(RibbonStateCodec.isWide(RibbonStateCodec.FIELD_PROGRESS));
+        assertTrue(RibbonStateCodec.isWide(RibbonStateCodec.FIELD_SECONDARY_PROGRESS));
+        assertFalse(RibbonStateCodec.isWide(RibbonStateCodec.FIELD_BORDER_COLOR));
+        assertFalse(RibbonStateCodec.isWide(RibbonStateCodec.FIELD_ELEVATION));
+    }
+
+    @Test
+    public void flagsAreSetAndCleared(){
+        int flags=RibbonStateCodec.setFlag(0, RibbonStateCodec.FLAG_SHOWING, true);
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_LAYOUT_RTL, true);
+        assertTrue(RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_SHOWING));
+        assertTrue(RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_LAYOUT_RTL));
+        assertFalse(RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_INDETERMINATE));
+
+        flags=RibbonStateCodec.setFlag(flags, RibbonStateCodec.FLAG_SHOWING, false);
+        assertFalse(RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_SHOWING));
+        assertTrue(RibbonStateCodec.hasFlag(flags, RibbonStateCodec.FLAG_LAYOUT_RTL));
+    }
+
+    @Test
+    public void floatsSurviveTheTrip(){
+        float[] samples={0f, -0f, 1.5f, -42.25f, Float.MAX_VALUE, Float.MIN_VALUE};
+        for(float sample : samples){
+            assertEquals(Float.floatToRawIntBits(sample), Float.floatToRawIntBits(RibbonStateCodec.toFloat(RibbonStateCodec.fromFloat(sample))));
+        }
+        assertTrue(Float.isNaN(RibbonStateCodec.toFloat(RibbonStateCodec.fromFloat(Float.NaN))));
+    }
+}
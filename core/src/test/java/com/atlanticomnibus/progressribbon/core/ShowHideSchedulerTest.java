@@ -0,0 +1,193 @@
+/*
+ * ProgressRibbon v1.0
+ *
+ * Copyright (c) 2019 Attila Orosz
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.atlanticomnibus.progressribbon.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShowHideSchedulerTest {
+
+    private ShowHideScheduler scheduler;
+
+    @Before
+    public void setUp(){
+        scheduler=new ShowHideScheduler();
+    }
+
+    @Test
+    public void showWithoutDelayShowsRightAway(){
+        assertEquals(ShowHideScheduler.ACTION_SHOW, scheduler.requestShow(0, 0));
+        assertEquals(ShowHideScheduler.STATE_SHOWN, scheduler.getState());
+        assertFalse(scheduler.isPending());
+    }
+
+    @Test
+    public void delayedShowIsScheduled(){
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestShow(0, 300));
+        assertEquals(300, scheduler.getScheduledDelay());
+        assertEquals(ShowHideScheduler.STATE_SHOW_PENDING, scheduler.getState());
+        assertTrue(scheduler.isPending());
+
+        assertEquals(ShowHideScheduler.ACTION_SHOW, scheduler.onDue(300));
+        assertEquals(ShowHideScheduler.STATE_SHOWN, scheduler.getState());
+    }
+
+    @Test
+    public void repeatedShowsCollapse(){
+        scheduler.requestShow(0, 300);
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.requestShow(100, 300));
+        assertEquals(ShowHideScheduler.STATE_SHOW_PENDING, scheduler.getState());
+
+        //Only an immediate one can make it come sooner
+        assertEquals(ShowHideScheduler.ACTION_SHOW, scheduler.requestShow(200, 0));
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.requestShow(300, 0));
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.onDue(300));
+    }
+
+    @Test
+    public void hideWhileShowIsPendingCancelsTheShow(){
+        scheduler.requestShow(0, 300);
+        assertEquals(ShowHideScheduler.ACTION_CANCEL, scheduler.requestHide(100, 0));
+        assertEquals(ShowHideScheduler.STATE_HIDDEN, scheduler.getState());
+
+        //The stale callback, if it still runs, does nothing
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.onDue(300));
+    }
+
+    @Test
+    public void hideWithoutDelayHidesRightAway(){
+        scheduler.requestShow(0, 0);
+        assertEquals(ShowHideScheduler.ACTION_HIDE, scheduler.requestHide(10, 0));
+        assertEquals(ShowHideScheduler.STATE_HIDDEN, scheduler.getState());
+    }
+
+    @Test
+    public void delayedHideIsScheduled(){
+        scheduler.requestShow(0, 0);
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestHide(100, 200));
+        assertEquals(200, scheduler.getScheduledDelay());
+        assertEquals(ShowHideScheduler.STATE_HIDE_PENDING, scheduler.getState());
+
+        assertEquals(ShowHideScheduler.ACTION_HIDE, scheduler.onDue(300));
+        assertEquals(ShowHideScheduler.STATE_HIDDEN, scheduler.getState());
+    }
+
+    @Test
+    public void hideOrShowWhenAlreadyThereDoesNothing(){
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.requestHide(0, 0));
+        scheduler.requestShow(0, 0);
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.requestShow(10, 0));
+        scheduler.requestHide(20, 100);
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.requestHide(30, 500));
+    }
+
+    @Test
+    public void earlierHideWinsOverPendingOne(){
+        scheduler.requestShow(0, 0);
+        scheduler.requestHide(100, 5000);
+
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestHide(200, 1000));
+        assertEquals(1000, scheduler.getScheduledDelay());
+        assertEquals(ShowHideScheduler.ACTION_HIDE, scheduler.requestHide(300, 0));
+        assertEquals(ShowHideScheduler.STATE_HIDDEN, scheduler.getState());
+    }
+
+    @Test
+    public void earlierHideStillWaitsForMinimumShowTime(){
+        scheduler.setMinimumShowTime(500);
+        scheduler.requestShow(1000, 0);
+        scheduler.requestHide(1100, 5000);
+
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestHide(1200, 0));
+        assertEquals(300, scheduler.getScheduledDelay());
+        assertEquals(ShowHideScheduler.ACTION_HIDE, scheduler.onDue(1500));
+    }
+
+    @Test
+    public void showWhileHideIsPendingKeepsItOnScreen(){
+        scheduler.requestShow(0, 0);
+        scheduler.requestHide(100, 200);
+        assertEquals(ShowHideScheduler.ACTION_CANCEL, scheduler.requestShow(150, 300));
+        assertEquals(ShowHideScheduler.STATE_SHOWN, scheduler.getState());
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.onDue(300));
+    }
+
+    @Test
+    public void minimumShowTimePostponesEarlyHides(){
+        scheduler.setMinimumShowTime(500);
+        scheduler.requestShow(1000, 0);
+
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestHide(1100, 0));
+        assertEquals(400, scheduler.getScheduledDelay());
+        assertEquals(ShowHideScheduler.ACTION_HIDE, scheduler.onDue(1500));
+    }
+
+    @Test
+    public void minimumShowTimeCountsFromTheDelayedShow(){
+        scheduler.setMinimumShowTime(500);
+        scheduler.requestShow(0, 300);
+        scheduler.onDue(300);
+
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestHide(400, 0));
+        assertEquals(400, scheduler.getScheduledDelay());
+    }
+
+    @Test
+    public void longerHideDelayWinsOverMinimumShowTime(){
+        scheduler.setMinimumShowTime(500);
+        scheduler.requestShow(0, 0);
+
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestHide(100, 1000));
+        assertEquals(1000, scheduler.getScheduledDelay());
+    }
+
+    @Test
+    public void minimumShowTimeOverDoesNotHoldHidesBack(){
+        scheduler.setMinimumShowTime(500);
+        scheduler.requestShow(0, 0);
+        assertEquals(ShowHideScheduler.ACTION_HIDE, scheduler.requestHide(600, 0));
+    }
+
+    @Test
+    public void negativeMinimumShowTimeMeansNone(){
+        scheduler.setMinimumShowTime(-100);
+        assertEquals(0, scheduler.getMinimumShowTime());
+    }
+
+    @Test
+    public void forcedChangesAreFollowed(){
+        scheduler.setMinimumShowTime(500);
+        scheduler.forceShown(1000);
+        assertEquals(ShowHideScheduler.STATE_SHOWN, scheduler.getState());
+        assertEquals(ShowHideScheduler.ACTION_SCHEDULE, scheduler.requestHide(1200, 0));
+        assertEquals(300, scheduler.getScheduledDelay());
+
+        scheduler.forceHidden();
+        assertEquals(ShowHideScheduler.STATE_HIDDEN, scheduler.getState());
+        assertEquals(ShowHideScheduler.ACTION_NONE, scheduler.onDue(1500));
+    }
+}